@@ -15,6 +15,8 @@
  */
 package de.odysseus.staxon.base;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -48,6 +50,24 @@ public abstract class AbstractXMLInputFactory extends XMLInputFactory {
 	private boolean validating;
 	private boolean supportDTD;
 	
+	private XMLStreamReader createClosingXMLStreamReader(String systemId, final InputStream stream) throws XMLStreamException {
+		return new StreamReaderDelegate(createXMLStreamReader(systemId, stream)) {
+			/*
+			 * Close underlying stream, otherwise it could never be done
+			 * @see javax.xml.stream.util.StreamReaderDelegate#close()
+			 */
+			@Override
+			public void close() throws XMLStreamException {
+				super.close();
+				try {
+					stream.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		};
+	}
+
 	@Override
 	public XMLStreamReader createXMLStreamReader(Source source) throws XMLStreamException {
 		if (source instanceof StreamSource) {
@@ -70,22 +90,12 @@ public abstract class AbstractXMLInputFactory extends XMLInputFactory {
 			}
 			if (streamSource.getSystemId() != null) {
 				try {
-					final InputStream stream = new URI(source.getSystemId()).toURL().openStream();
-					return new StreamReaderDelegate(createXMLStreamReader(streamSource.getSystemId(), stream)) {
-						/*
-						 * Close underlying stream, otherwise it could never be done
-						 * @see javax.xml.stream.util.StreamReaderDelegate#close()
-						 */
-						@Override
-						public void close() throws XMLStreamException {
-							super.close();
-							try {
-								stream.close();
-							} catch (IOException e) {
-								// ignore
-							}
-						}
-					};
+					URI uri = new URI(source.getSystemId());
+					if ("file".equals(uri.getScheme()) && !uri.isOpaque() && uri.getAuthority() == null
+							&& uri.getQuery() == null && uri.getFragment() == null) {
+						return createXMLStreamReader(new File(uri));
+					}
+					return createClosingXMLStreamReader(streamSource.getSystemId(), uri.toURL().openStream());
 				} catch (URISyntaxException e) {
 					throw new XMLStreamException("Cannot parse system id for reading: " + source.getSystemId(), e);
 				} catch (IOException e) {
@@ -98,6 +108,21 @@ public abstract class AbstractXMLInputFactory extends XMLInputFactory {
 		throw new XMLStreamException("Unsupported source type: " + source.getClass());
 	}
 
+	/**
+	 * Create reader for the given file. The file is closed when the reader is closed.
+	 * This implementation opens a file input stream; subclasses may read the file more efficiently.
+	 * @param file file
+	 * @return stream reader
+	 * @throws XMLStreamException
+	 */
+	public XMLStreamReader createXMLStreamReader(File file) throws XMLStreamException {
+		try {
+			return createClosingXMLStreamReader(file.toURI().toString(), new FileInputStream(file));
+		} catch (IOException e) {
+			throw new XMLStreamException("Cannot open file for reading: " + file, e);
+		}
+	}
+
 	@Override
 	public XMLEventReader createXMLEventReader(Reader reader) throws XMLStreamException {
 		return createXMLEventReader(createXMLStreamReader(reader));
@@ -16,8 +16,6 @@
 package de.odysseus.staxon.base;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.Queue;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
@@ -31,27 +29,64 @@ import javax.xml.stream.XMLStreamReader;
  * Abstract XML stream reader.
  */
 public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
-	class Event {
-		private final int type;
-		private final XMLStreamReaderScope<T> scope;
-		private final String text;
-		private final Object data;
-		private final int lineNumber;
-		private final int columnNumber;
-		private final int characterOffset;
-
-		Event(int type, XMLStreamReaderScope<T> scope) {
-			this(type, scope, null, null);
-		}
+	/**
+	 * Event type reported by non-blocking readers if no event is available
+	 * until more input has been provided.
+	 */
+	public static final int EVENT_INCOMPLETE = 257;
 
-		Event(int type, XMLStreamReaderScope<T> scope, String text, Object data) {
+	/**
+	 * Mutable event slot. Slots are owned by the event queue and recycled, so an
+	 * event's state must not be referenced once the reader has moved on.
+	 * Text is kept as string or in the slot's char buffer (reused by later events),
+	 * whichever it has been read from; the other representation is created on demand.
+	 */
+	class Event {
+		private int type;
+		private XMLStreamReaderScope<T> scope;
+		private String text;
+		private char[] chars;
+		private int charsLength = -1; // number of valid chars or -1
+		private Object data;
+		private int lineNumber;
+		private int columnNumber;
+		private int characterOffset;
+
+		Event set(int type, XMLStreamReaderScope<T> scope, String text, Object data) {
 			this.type = type;
 			this.scope = scope;
 			this.text = text;
+			this.charsLength = -1;
 			this.data = data;
-			this.lineNumber = locationProvider.getLineNumber();
-			this.columnNumber = locationProvider.getColumnNumber();
-			this.characterOffset = locationProvider.getCharacterOffset();
+			if (locationProvider != UNKNOWN_LOCATION) {
+				this.lineNumber = locationProvider.getLineNumber();
+				this.columnNumber = locationProvider.getColumnNumber();
+				this.characterOffset = locationProvider.getCharacterOffset();
+			} else {
+				this.lineNumber = this.columnNumber = this.characterOffset = -1;
+			}
+			return this;
+		}
+
+		Event set(int type, XMLStreamReaderScope<T> scope, char[] text, int start, int length, Object data) {
+			set(type, scope, null, data);
+			System.arraycopy(text, start, ensureChars(length), 0, length);
+			charsLength = length;
+			return this;
+		}
+
+		private char[] ensureChars(int length) {
+			if (chars == null || chars.length < length) {
+				chars = new char[Math.max(length, chars == null ? 32 : 2 * chars.length)];
+			}
+			return chars;
+		}
+
+		void clear() {
+			scope = null;
+			text = null;
+			charsLength = -1;
+			data = null;
 		}
 
 		XMLStreamReaderScope<T> getScope() {
@@ -63,14 +98,66 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 
 		String getText() {
+			if (text == null && charsLength >= 0) {
+				text = new String(chars, 0, charsLength);
+			}
 			return text;
 		}
 
+		/**
+		 * @return text characters, starting at index <code>0</code>
+		 */
+		char[] getTextCharacters() {
+			if (charsLength < 0 && text != null) {
+				text.getChars(0, text.length(), ensureChars(text.length()), 0);
+				charsLength = text.length();
+			}
+			return chars;
+		}
+
+		void getTextCharacters(int sourceStart, char[] target, int targetStart, int length) {
+			if (charsLength >= 0) {
+				System.arraycopy(chars, sourceStart, target, targetStart, length);
+			} else {
+				text.getChars(sourceStart, sourceStart + length, target, targetStart);
+			}
+		}
+
+		int getTextLength() {
+			if (charsLength >= 0) {
+				return charsLength;
+			}
+			return text == null ? 0 : text.length();
+		}
+
+		boolean isWhiteSpace() {
+			if (charsLength >= 0) {
+				for (int i = 0; i < charsLength; i++) {
+					if (!Character.isWhitespace(chars[i])) {
+						return false;
+					}
+				}
+			} else if (text != null) {
+				for (int i = 0; i < text.length(); i++) {
+					if (!Character.isWhitespace(text.charAt(i))) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
 		Object getData() {
 			return data;
 		}
 		
 		Location getLocation() {
+			if (locationProvider == UNKNOWN_LOCATION) {
+				return UNKNOWN_LOCATION;
+			}
+			final int lineNumber = this.lineNumber; // snapshot, the slot will be recycled
+			final int columnNumber = this.columnNumber;
+			final int characterOffset = this.characterOffset;
 			return new Location() {
 				@Override
 				public int getLineNumber() {
@@ -121,6 +208,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		case XMLStreamConstants.SPACE: return "SPACE";
 		case XMLStreamConstants.START_DOCUMENT: return "START_DOCUMENT";
 		case XMLStreamConstants.START_ELEMENT: return "START_ELEMENT";
+		case EVENT_INCOMPLETE: return "EVENT_INCOMPLETE";
 		default: return String.valueOf(type); // should not happen...
 		}
 	}
@@ -157,11 +245,21 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 	};
 
-	private final Queue<Event> queue = new LinkedList<Event>();
-	private final Location locationProvider;
+	private static final int INITIAL_QUEUE_CAPACITY = 16;
+
+	/*
+	 * Event queue: array ring buffer of recycled slots (capacity is a power of two).
+	 */
+	private Event[] queue;
+	private int queueHead;
+	private int queueSize;
+
+	private Location locationProvider;
+	private QNameCache nameCache;
 
 	private XMLStreamReaderScope<T> scope;
 	private boolean moreTokens;
+	private boolean incomplete;
 	private Event event;
 	private boolean startDocumentRead;
 
@@ -180,18 +278,138 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	/**
 	 * Create new reader instance.
 	 * @param rootInfo root scope information
+	 * @param locationProvider current location, <code>null</code> to disable location tracking
 	 */
 	public AbstractXMLStreamReader(T rootInfo, Location locationProvider) {
-		this.scope = new XMLStreamReaderScope<T>(XMLConstants.NULL_NS_URI, rootInfo);
-		this.locationProvider = locationProvider;
+		this(rootInfo, locationProvider, null);
+	}
+
+	/**
+	 * Create new reader instance.
+	 * @param rootInfo root scope information
+	 * @param locationProvider current location, <code>null</code> to disable location tracking
+	 * @param rootContext namespace context in which documents are read (may be <code>null</code>)
+	 */
+	public AbstractXMLStreamReader(T rootInfo, Location locationProvider, NamespaceContext rootContext) {
+		this.scope = createRootScope(rootInfo, rootContext);
+		this.locationProvider = locationProvider == null ? UNKNOWN_LOCATION : locationProvider;
+		this.queue = newEvents(INITIAL_QUEUE_CAPACITY);
+		fillEvents(queue, 0);
 	}	
 	
+	/**
+	 * Reset reader to read another document.
+	 * Subclasses must call {@link #initialize()} afterwards.
+	 * @param rootInfo root scope information
+	 * @param locationProvider current location, <code>null</code> to disable location tracking
+	 */
+	protected void reset(T rootInfo, Location locationProvider) {
+		reset(rootInfo, locationProvider, null);
+	}
+
+	/**
+	 * Reset reader to read another document.
+	 * Subclasses must call {@link #initialize()} afterwards.
+	 * @param rootInfo root scope information
+	 * @param locationProvider current location, <code>null</code> to disable location tracking
+	 * @param rootContext namespace context in which documents are read (may be <code>null</code>)
+	 */
+	protected void reset(T rootInfo, Location locationProvider, NamespaceContext rootContext) {
+		this.scope = createRootScope(rootInfo, rootContext);
+		this.locationProvider = locationProvider == null ? UNKNOWN_LOCATION : locationProvider;
+		clearQueue();
+		moreTokens = false;
+		incomplete = false;
+		event = null;
+		startDocumentRead = false;
+		encodingScheme = null;
+		version = null;
+		standalone = null;
+	}
+
+	private static <T> XMLStreamReaderScope<T> createRootScope(T rootInfo, NamespaceContext rootContext) {
+		if (rootContext == null) {
+			return new XMLStreamReaderScope<T>(XMLConstants.NULL_NS_URI, rootInfo);
+		}
+		return new XMLStreamReaderScope<T>(rootContext, rootInfo);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private Event[] newEvents(int capacity) {
+		return (Event[]) new AbstractXMLStreamReader.Event[capacity];
+	}
+
+	private void fillEvents(Event[] events, int start) {
+		for (int i = start; i < events.length; i++) {
+			events[i] = new Event();
+		}
+	}
+
+	/**
+	 * Answer the queue's next free slot, growing the queue if it is full.
+	 */
+	private Event enqueue() {
+		if (queueSize == queue.length) {
+			Event[] events = newEvents(queue.length << 1);
+			for (int i = 0; i < queueSize; i++) {
+				events[i] = queue[(queueHead + i) & (queue.length - 1)];
+			}
+			fillEvents(events, queueSize);
+			queue = events;
+			queueHead = 0;
+		}
+		return queue[(queueHead + queueSize++) & (queue.length - 1)];
+	}
+
+	/**
+	 * Remove the queue's head and make it the current event. The previous current
+	 * event takes its place in the ring and will be reused.
+	 */
+	private void dequeue() {
+		Event head = queue[queueHead];
+		if (event != null) {
+			event.clear();
+			queue[queueHead] = event;
+		} else {
+			queue[queueHead] = new Event();
+		}
+		event = head;
+		queueHead = (queueHead + 1) & (queue.length - 1);
+		queueSize--;
+	}
+
+	private void clearQueue() {
+		for (int i = 0; i < queueSize; i++) {
+			queue[(queueHead + i) & (queue.length - 1)].clear();
+		}
+		queueHead = 0;
+		queueSize = 0;
+	}
+
+	/**
+	 * Make the current event a synthetic event of the given type.
+	 */
+	private void setEvent(int type) {
+		if (event == null) {
+			event = new Event();
+		}
+		event.set(type, scope, null, null);
+	}
+
 	private void ensureStartTagClosed() throws XMLStreamException {
 		if (!scope.isStartTagClosed()) {
 			scope.setStartTagClosed(true);
 		}
 	}
 
+	/**
+	 * Set cache for element and attribute names (may be <code>null</code>).
+	 * @param nameCache name cache, possibly shared with other readers
+	 */
+	protected void setNameCache(QNameCache nameCache) {
+		this.nameCache = nameCache;
+	}
+
 	/**
 	 * @return current scope
 	 */
@@ -219,9 +437,32 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 
 		if (hasNext()) {
-			event = queue.remove();
+			nextEvent();
 		} else {
-			event = new Event(XMLStreamConstants.END_DOCUMENT, scope);
+			setEvent(XMLStreamConstants.END_DOCUMENT);
+		}
+	}
+
+	/**
+	 * Answer <code>true</code> if the queue's head may be delivered. While input is incomplete,
+	 * the current scope's start element is held back, since more attributes may follow.
+	 */
+	private boolean isEventAvailable() {
+		if (queueSize == 0) {
+			return false;
+		}
+		Event head = queue[queueHead];
+		return !incomplete
+				|| head.getType() != XMLStreamConstants.START_ELEMENT
+				|| head.getScope() != scope
+				|| scope.isStartTagClosed();
+	}
+
+	private void nextEvent() {
+		if (isEventAvailable()) {
+			dequeue();
+		} else {
+			setEvent(EVENT_INCOMPLETE);
 		}
 	}
 
@@ -231,12 +472,22 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	 * Consume some events and delegate to the various <code>readXXX()</code> methods.
 	 * When encountering an element start event, all attributes and namespace delarations
 	 * must be consumed too, otherwise these won't be available during start element.
+	 * Non-blocking readers which run out of input call {@link #readIncomplete()} and return;
+	 * the method will be called again to resume.
 	 * @return <code>true</code> if there's more to read
 	 * @throws XMLStreamException
 	 * @throws IOException
 	 */
 	protected abstract boolean consume() throws XMLStreamException, IOException;
 
+	/**
+	 * Signal that no more events can be read until more input has been provided.
+	 * Until then, {@link #next()} reports {@link #EVENT_INCOMPLETE}.
+	 */
+	protected void readIncomplete() {
+		incomplete = true;
+	}
+
 	/**
 	 * Read start document
 	 * @param version XML version
@@ -247,7 +498,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		if (startDocumentRead || !scope.isRoot()) {
 			throw new XMLStreamException("Cannot start document", locationProvider);
 		}
-		queue.add(new Event(XMLStreamConstants.START_DOCUMENT, scope));
+		enqueue().set(XMLStreamConstants.START_DOCUMENT, scope, null, null);
 		startDocumentRead = true;
 
 		this.version = version;
@@ -272,7 +523,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		ensureStartTagClosed();
 		scope = new XMLStreamReaderScope<T>(scope, prefix, localName, namespaceURI);
 		scope.setInfo(scopeInfo);
-		queue.add(new Event(XMLStreamConstants.START_ELEMENT, scope));
+		enqueue().set(XMLStreamConstants.START_ELEMENT, scope, null, null);
 	}
 	
 	/**
@@ -320,7 +571,27 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	protected void readData(String text, Object data, int type) throws XMLStreamException {
 		if (hasData(type)) {
 			ensureStartTagClosed();
-			queue.add(new Event(type, scope, text, data));
+			enqueue().set(type, scope, text, data);
+		} else {
+			throw new XMLStreamException("Unexpected event type " + getEventName(), locationProvider);
+		}
+	}
+
+	/**
+	 * Read characters/comment/dtd/entity data from a char array.
+	 * The characters are copied into a recycled buffer; no string is created unless
+	 * {@link #getText()} is called, so the caller may reuse its array.
+	 * @param text text buffer
+	 * @param start start index
+	 * @param length text length
+	 * @param data additional data exposed by {@link #getEventData()} (e.g. type conversion)
+	 * @param type one of <code>CHARACTERS, COMMENT, CDATA, DTD, ENTITY_REFERENCE, SPACE</code>
+	 * @throws XMLStreamException
+	 */
+	protected void readData(char[] text, int start, int length, Object data, int type) throws XMLStreamException {
+		if (hasData(type)) {
+			ensureStartTagClosed();
+			enqueue().set(type, scope, text, start, length, data);
 		} else {
 			throw new XMLStreamException("Unexpected event type " + getEventName(), locationProvider);
 		}
@@ -335,7 +606,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	protected void readPI(String target, String data) throws XMLStreamException {
 		ensureStartTagClosed();
 		String text = data == null ? target : target + ':' + data;
-		queue.add(new Event(XMLStreamConstants.PROCESSING_INSTRUCTION, scope, text, null));
+		enqueue().set(XMLStreamConstants.PROCESSING_INSTRUCTION, scope, text, null);
 	}
 
 	/**
@@ -345,7 +616,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	 */
 	protected void readEndElementTag() throws XMLStreamException {
 		ensureStartTagClosed();
-		queue.add(new Event(XMLStreamConstants.END_ELEMENT, scope));
+		enqueue().set(XMLStreamConstants.END_ELEMENT, scope, null, null);
 		scope = scope.getParent();
 	}
 
@@ -356,7 +627,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		if (!startDocumentRead || !scope.isRoot()) {
 			throw new XMLStreamException("Cannot end document", locationProvider);
 		}
-		queue.add(new Event(XMLStreamConstants.END_DOCUMENT, scope));
+		enqueue().set(XMLStreamConstants.END_DOCUMENT, scope, null, null);
 		startDocumentRead = false;
 	}
 
@@ -407,13 +678,17 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	@Override
 	public boolean hasNext() throws XMLStreamException {
 		try {
-			while (queue.isEmpty() && moreTokens) {
+			while (!isEventAvailable() && moreTokens) {
+				incomplete = false;
 				moreTokens = consume();
+				if (incomplete) {
+					break;
+				}
 			}
 		} catch (IOException e) {
 			throw new XMLStreamException(e.getMessage(), locationProvider, e);
 		}
-		return !queue.isEmpty();
+		return queueSize > 0 || incomplete;
 	}
 
 	@Override
@@ -421,7 +696,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		if (!hasNext()) {
 			throw new IllegalStateException("No more events");
 		}
-		event = queue.remove();
+		nextEvent();
 		return event.getType();
 	}
 
@@ -444,7 +719,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	@Override
 	public void close() throws XMLStreamException {
 		scope = null;
-		queue.clear();
+		clearQueue();
 	}
 
 	@Override
@@ -465,12 +740,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	@Override
 	public boolean isWhiteSpace() {	
 		if (getEventType() == XMLStreamConstants.CHARACTERS || getEventType() == XMLStreamConstants.CDATA) {
-			for (char ch : getText().toCharArray()) {
-				if (!Character.isWhitespace(ch)) {
-					return false;
-				}
-			}
-			return true;
+			return event.isWhiteSpace();
 		}
 		return false;
 	}
@@ -482,7 +752,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 
 	@Override
 	public QName getAttributeName(int index) {
-		return event.getScope().getAttributeName(index);
+		return event.getScope().getAttributeName(index, nameCache);
 	}
 
 	@Override
@@ -576,16 +846,21 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		return hasText() ? event.getText() : null;
 	}
 
+	/**
+	 * Answer the current text without copying. The array may be longer than the text
+	 * and is only valid until the next event: use {@link #getTextStart()} and
+	 * {@link #getTextLength()}, as required by the StAX API.
+	 */
 	@Override
 	public char[] getTextCharacters() {
-		return hasText() ? event.getText().toCharArray() : null;
+		return hasText() ? event.getTextCharacters() : null;
 	}
 
 	@Override
 	public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) throws XMLStreamException {
 		int count = Math.min(length, getTextLength() - sourceStart);
 		if (count > 0) {
-			System.arraycopy(getTextCharacters(), sourceStart, target, targetStart, count);
+			event.getTextCharacters(sourceStart, target, targetStart, count);
 		}
 		return count;
 	}
@@ -597,7 +872,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 
 	@Override
 	public int getTextLength() {
-		return hasText() ? event.getText().length() : 0;
+		return hasText() ? event.getTextLength() : 0;
 	}
 
 	@Override
@@ -607,7 +882,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 
 	@Override
 	public QName getName() {
-		return hasName() ? new QName(getNamespaceURI(), getLocalName(), getPrefix()) : null;
+		return hasName() ? event.getScope().getName(nameCache) : null;
 	}
 
 	@Override
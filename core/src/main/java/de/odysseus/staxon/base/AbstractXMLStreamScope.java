@@ -15,19 +15,21 @@
  */
 package de.odysseus.staxon.base;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 
 /**
  * Represent document/element scope. Used to store namespace bindings and
  * attributes, implements {@link NamespaceContext}.
+ * Once the start tag has been closed, bindings are fixed and resolved names are cached.
  */
 public abstract class AbstractXMLStreamScope implements NamespaceContext {
 	class Attr {
@@ -35,6 +37,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		private final String localName;
 		private final String namespaceURI;
 		private final String value;
+		private QName name; // resolved
 
 		Attr(String prefix, String localName, String namespaceURI, String value) {
 			this.prefix = prefix;
@@ -70,6 +73,23 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		String getValue() {
 			return value;
 		}
+
+		/**
+		 * @param cache name cache (may be <code>null</code>)
+		 * @return resolved name
+		 */
+		QName getName(QNameCache cache) {
+			if (name != null) {
+				return name;
+			}
+			String namespaceURI = getNamespaceURI();
+			String prefix = getPrefix();
+			QName result = cache == null ? new QName(namespaceURI, localName, prefix) : cache.lookup(namespaceURI, localName, prefix);
+			if (startTagClosed) {
+				name = result;
+			}
+			return result;
+		}
 		
 		void verify() throws XMLStreamException {
 			if (prefix == null) {
@@ -111,10 +131,19 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 
 	private String defaultNamespace;
 	private List<Attr> attributes;
-	private List<Pair<String, String>> prefixes;
+	private String[] bindings; // prefix/namespace URI pairs
+	private int bindingCount; // number of pairs
+	private final AbstractXMLStreamScope bindingParent; // nearest ancestor with bindings or root, null for root
 	private AbstractXMLStreamScope lastChild;
 	private boolean startTagClosed;
 
+	/*
+	 * resolved names, set when the start tag has been closed
+	 */
+	private String resolvedPrefix;
+	private String resolvedNamespaceURI;
+	private QName name;
+
 	/**
 	 * Create root scope.
 	 * 
@@ -126,6 +155,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		this.localName = null;
 		this.namespaceURI = XMLConstants.NULL_NS_URI;
 		this.defaultNamespace = defaultNamespace;
+		this.bindingParent = null;
 		this.startTagClosed = true;
 	}
 
@@ -141,6 +171,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		this.localName = null;
 		this.namespaceURI = XMLConstants.NULL_NS_URI;
 		this.defaultNamespace = parent.getNamespaceURI(XMLConstants.NULL_NS_URI);
+		this.bindingParent = null;
 		this.startTagClosed = true;
 	}
 
@@ -157,7 +188,8 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		this.localName = localName;
 		this.namespaceURI = namespaceURI;
 		this.startTagClosed = false;		
-		this.defaultNamespace = parent.getNamespaceURI(XMLConstants.NULL_NS_URI);
+		this.defaultNamespace = parent.defaultNamespace;
+		this.bindingParent = parent.bindingCount > 0 || parent.isRoot() ? parent : parent.bindingParent;
 
 		parent.lastChild = this;
 		parent.startTagClosed = true;
@@ -165,7 +197,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 
 	void addAttribute(String prefix, String localName, String namespaceURI, String value) {
 		if (attributes == null) {
-			attributes = new LinkedList<Attr>();
+			attributes = new ArrayList<Attr>();
 		}
 		attributes.add(new Attr(prefix, localName, namespaceURI, value));
 	}
@@ -175,7 +207,17 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 	}
 	
 	public String getPrefix() {
-		return prefix == null ? getPrefix(namespaceURI) : prefix;
+		if (prefix != null) {
+			return prefix;
+		}
+		if (resolvedPrefix == null) {
+			String result = getPrefix(namespaceURI);
+			if (!startTagClosed) {
+				return result;
+			}
+			resolvedPrefix = result;
+		}
+		return resolvedPrefix;
 	}
 	
 	public String getLocalName() {
@@ -183,7 +225,35 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 	}
 	
 	public String getNamespaceURI() {
-		return namespaceURI == null ? getNamespaceURI(prefix) : namespaceURI;
+		if (namespaceURI != null) {
+			return namespaceURI;
+		}
+		if (resolvedNamespaceURI == null) {
+			String result = getNamespaceURI(prefix);
+			if (!startTagClosed) {
+				return result;
+			}
+			resolvedNamespaceURI = result;
+		}
+		return resolvedNamespaceURI;
+	}
+
+	/**
+	 * Answer the element's resolved name.
+	 * @param cache name cache (may be <code>null</code>)
+	 * @return element name
+	 */
+	public QName getName(QNameCache cache) {
+		if (name != null) {
+			return name;
+		}
+		String namespaceURI = getNamespaceURI();
+		String prefix = getPrefix();
+		QName result = cache == null ? new QName(namespaceURI, localName, prefix) : cache.lookup(namespaceURI, localName, prefix);
+		if (startTagClosed) {
+			name = result;
+		}
+		return result;
 	}
 
 	public boolean isRoot() {
@@ -236,34 +306,47 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		this.startTagClosed = startTagClosed;
 	}
 
-	private String findNonEmptyPrefix(String namespaceURI, AbstractXMLStreamScope descendent) {
-		if (prefixes != null) {
-			for (Pair<String, String> pair : prefixes) {
-				if (pair.getSecond().equals(namespaceURI)) {
-					if (descendent == this || descendent.getNamespaceURI(pair.getFirst()).equals(namespaceURI)) {
-						return pair.getFirst();
+	/**
+	 * Lookup namespace URI bound to prefix in this scope.
+	 * @return namespace URI or <code>null</code>
+	 */
+	private String getBinding(String prefix) {
+		for (int i = 0; i < bindingCount; i++) {
+			if (bindings[2 * i].equals(prefix)) {
+				return bindings[2 * i + 1];
+			}
+		}
+		return null;
+	}
+
+	private String findNonEmptyPrefix(String namespaceURI) {
+		AbstractXMLStreamScope scope = this;
+		while (true) {
+			for (int i = 0; i < scope.bindingCount; i++) {
+				if (scope.bindings[2 * i + 1].equals(namespaceURI)) {
+					String prefix = scope.bindings[2 * i];
+					if (scope == this || getNamespaceURI(prefix).equals(namespaceURI)) {
+						return prefix;
 					}
 				}
 			}
+			if (scope.bindingParent == null) { // root
+				break;
+			}
+			scope = scope.bindingParent;
 		}
-		if (isRoot()) {
-			if (parent == null) {
-				return null;
-			} else {
-				Iterator<?> prefixes = parent.getPrefixes(namespaceURI);
-				while (prefixes.hasNext()) {
-					String prefix = prefixes.next().toString();
-					if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-						if (descendent == this || descendent.getNamespaceURI(prefix).equals(namespaceURI)) {
-							return prefix;
-						}
+		if (scope.parent != null) {
+			Iterator<?> prefixes = scope.parent.getPrefixes(namespaceURI);
+			while (prefixes.hasNext()) {
+				String prefix = prefixes.next().toString();
+				if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+					if (scope == this || getNamespaceURI(prefix).equals(namespaceURI)) {
+						return prefix;
 					}
 				}
-				return null;
 			}
-		} else {
-			return getParent().findNonEmptyPrefix(namespaceURI, descendent);
 		}
+		return null;
 	}
 	
 	String getNonEmptyPrefix(String namespaceURI) {
@@ -274,7 +357,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		} else if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI)) {
 			return XMLConstants.XMLNS_ATTRIBUTE;
 		} else {
-			return findNonEmptyPrefix(namespaceURI, this);
+			return findNonEmptyPrefix(namespaceURI);
 		}
 	}
 
@@ -300,17 +383,23 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(namespaceURI)) {
 			throw new IllegalArgumentException("Cannot bind to prefix: " + prefix);
 		} else {
-			if (prefixes == null) {
-				prefixes = new LinkedList<Pair<String, String>>();
+			if (bindings == null) {
+				bindings = new String[8];
 			} else {
-				Iterator<Pair<String, String>> iterator = prefixes.iterator();
-				while (iterator.hasNext()) {
-					if (iterator.next().getFirst().equals(prefix)) {
-						iterator.remove();
+				for (int i = 0; i < bindingCount; i++) {
+					if (bindings[2 * i].equals(prefix)) { // remove, latest binding goes last
+						System.arraycopy(bindings, 2 * i + 2, bindings, 2 * i, 2 * (bindingCount - i - 1));
+						bindingCount--;
+						break;
 					}
 				}
+				if (2 * bindingCount == bindings.length) {
+					bindings = Arrays.copyOf(bindings, 2 * bindings.length);
+				}
 			}
-			prefixes.add(new Pair<String, String>(prefix, namespaceURI));
+			bindings[2 * bindingCount] = prefix;
+			bindings[2 * bindingCount + 1] = namespaceURI;
+			bindingCount++;
 		}
 	}
 
@@ -326,7 +415,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 			return new Iterator<String>() {
 				int state = 0;
 				String next = null;
-				Iterator<Pair<String, String>> pairs;
+				int index;
 				Iterator<?> above;
 
 				private String next0() {
@@ -336,28 +425,24 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 							return XMLConstants.DEFAULT_NS_PREFIX;
 						}
 					}
-					if (state == 1) { // check pairs
-						if (prefixes != null) {
-							if (pairs == null) {
-								pairs = prefixes.iterator();
-							}
-							while (pairs.hasNext()) {
-								Pair<String, String> pair = pairs.next();
-								if (namespaceURI.equals(pair.getSecond())) {
-									return pair.getFirst();
-								}
+					if (state == 1) { // check bindings
+						while (index < bindingCount) {
+							int i = index++;
+							if (namespaceURI.equals(bindings[2 * i + 1])) {
+								return bindings[2 * i];
 							}
 						}
 						state = 2;
 					}
-					if (state == 2) { // check above
-						if (parent != null) {
+					if (state == 2) { // check above (default has been checked)
+						NamespaceContext context = bindingParent != null ? bindingParent : parent;
+						if (context != null) {
 							if (above == null) {
-								above = parent.getPrefixes(namespaceURI);
+								above = context.getPrefixes(namespaceURI);
 							}
 							while (above.hasNext()) {
 								String prefix = above.next().toString();
-								if (getNamespaceURI(prefix).equals(namespaceURI)) {
+								if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) && getNamespaceURI(prefix).equals(namespaceURI)) {
 									return prefix;
 								}
 							}
@@ -407,14 +492,17 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
 			return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
 		} else {
-			if (prefixes != null) {
-				for (Pair<String, String> pair : prefixes) {
-					if (pair.getFirst().equals(prefix)) {
-						return pair.getSecond();
-					}
+			AbstractXMLStreamScope scope = this;
+			while (true) {
+				String namespaceURI = scope.getBinding(prefix);
+				if (namespaceURI != null) {
+					return namespaceURI;
+				}
+				if (scope.bindingParent == null) { // root
+					return scope.parent == null ? XMLConstants.NULL_NS_URI : scope.parent.getNamespaceURI(prefix);
 				}
+				scope = scope.bindingParent;
 			}
-			return parent == null ? XMLConstants.NULL_NS_URI : parent.getNamespaceURI(prefix);
 		}
 	}
 }
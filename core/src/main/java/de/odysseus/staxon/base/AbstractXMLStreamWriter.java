@@ -52,6 +52,15 @@ public abstract class AbstractXMLStreamWriter<T> implements XMLStreamWriter {
 		this.startDocumentWritten = false;
 	}
 	
+	/**
+	 * Reset writer to write another document.
+	 * @param rootInfo root scope information
+	 */
+	protected void reset(T rootInfo) {
+		this.scope = new XMLStreamWriterScope<T>(XMLConstants.NULL_NS_URI, rootInfo);
+		this.startDocumentWritten = false;
+	}
+
 	private void ensureStartTagClosed() throws XMLStreamException {
 		if (!scope.isStartTagClosed()) {
 			if (repairingNamespaces != null) { // missing declaration?
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.base;
+
+import javax.xml.namespace.QName;
+
+import de.odysseus.staxon.util.CanonicalTable;
+
+/**
+ * Bounded, thread-safe cache of qualified names.
+ *
+ * <p>A cache may be shared by all readers created by a factory. Looking up a known
+ * (namespace URI, local name, prefix) triple returns the cached <code>QName</code>
+ * instance without allocating. Unknown names are added; when the cache's capacity
+ * is reached, it is cleared and starts over.</p>
+ *
+ * <p>Hit and miss counters may be enabled to size the cache.</p>
+ */
+public class QNameCache extends CanonicalTable<QName> {
+	/**
+	 * Default capacity (number of names)
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * Create cache with default capacity.
+	 */
+	public QNameCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create cache without statistics.
+	 * @param capacity maximum number of names
+	 */
+	public QNameCache(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * Create cache.
+	 * @param capacity maximum number of names
+	 * @param statistics whether to count hits and misses
+	 */
+	public QNameCache(int capacity, boolean statistics) {
+		super(capacity, statistics);
+	}
+
+	/**
+	 * Lookup name. Note that, unlike {@link QName#equals(Object)}, prefixes are significant.
+	 * @param namespaceURI namespace URI
+	 * @param localPart local name
+	 * @param prefix prefix
+	 * @return cached or new name
+	 */
+	public QName lookup(String namespaceURI, String localPart, String prefix) {
+		if (namespaceURI == null || localPart == null || prefix == null) { // let QName decide
+			return miss(new QName(namespaceURI, localPart, prefix));
+		}
+		int hash = (31 * localPart.hashCode() + namespaceURI.hashCode()) * 31 + prefix.hashCode();
+		for (Entry<QName> entry = bucket(hash); entry != null; entry = entry.next) {
+			if (entry.hash == hash
+					&& entry.value.getLocalPart().equals(localPart)
+					&& entry.value.getNamespaceURI().equals(namespaceURI)
+					&& entry.value.getPrefix().equals(prefix)) {
+				return hit(entry.value);
+			}
+		}
+		return add(hash, new QName(namespaceURI, localPart, prefix));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+
+/**
+ * Immutable namespace context, compiled from prefix to namespace URI mappings.
+ * Since it has no state, an instance may be shared by all readers created by a
+ * factory as root context, instead of binding the mappings in every document.
+ */
+public final class RootNamespaceContext implements NamespaceContext {
+	private final String defaultNamespace;
+	private final String[] prefixes;
+	private final String[] namespaceURIs;
+
+	/**
+	 * Create context.
+	 * @param mappings prefix to namespace URI mappings (the empty prefix maps the default namespace)
+	 */
+	public RootNamespaceContext(Map<String, String> mappings) {
+		String defaultNamespace = XMLConstants.NULL_NS_URI;
+		List<String> prefixes = new ArrayList<String>(mappings.size());
+		List<String> namespaceURIs = new ArrayList<String>(mappings.size());
+		for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+			if (mapping.getKey() == null || mapping.getValue() == null) {
+				throw new IllegalArgumentException("Prefix and namespace URI must not be null");
+			}
+			if (XMLConstants.DEFAULT_NS_PREFIX.equals(mapping.getKey())) {
+				defaultNamespace = mapping.getValue();
+			} else {
+				prefixes.add(mapping.getKey());
+				namespaceURIs.add(mapping.getValue());
+			}
+		}
+		this.defaultNamespace = defaultNamespace;
+		this.prefixes = prefixes.toArray(new String[prefixes.size()]);
+		this.namespaceURIs = namespaceURIs.toArray(new String[namespaceURIs.size()]);
+	}
+
+	@Override
+	public String getNamespaceURI(String prefix) {
+		if (prefix == null) {
+			throw new IllegalArgumentException("Prefix must not be null");
+		} else if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+			return defaultNamespace;
+		} else if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
+			return XMLConstants.XML_NS_URI;
+		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
+			return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+		}
+		for (int i = 0; i < prefixes.length; i++) {
+			if (prefixes[i].equals(prefix)) {
+				return namespaceURIs[i];
+			}
+		}
+		return XMLConstants.NULL_NS_URI;
+	}
+
+	@Override
+	public String getPrefix(String namespaceURI) {
+		Iterator<String> prefixes = getPrefixes(namespaceURI);
+		return prefixes.hasNext() ? prefixes.next() : null;
+	}
+
+	@Override
+	public Iterator<String> getPrefixes(String namespaceURI) {
+		if (namespaceURI == null) {
+			throw new IllegalArgumentException("Namespace URI must not be null");
+		} else if (XMLConstants.XML_NS_URI.equals(namespaceURI)) {
+			return Arrays.asList(XMLConstants.XML_NS_PREFIX).iterator();
+		} else if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI)) {
+			return Arrays.asList(XMLConstants.XMLNS_ATTRIBUTE).iterator();
+		}
+		List<String> result = null;
+		if (defaultNamespace.equals(namespaceURI)) {
+			result = new ArrayList<String>(1);
+			result.add(XMLConstants.DEFAULT_NS_PREFIX);
+		}
+		for (int i = 0; i < prefixes.length; i++) {
+			if (namespaceURIs[i].equals(namespaceURI)) {
+				if (result == null) {
+					result = new ArrayList<String>(1);
+				}
+				result.add(prefixes[i]);
+			}
+		}
+		return result == null ? Collections.<String>emptyList().iterator() : Collections.unmodifiableList(result).iterator();
+	}
+}
@@ -15,14 +15,14 @@
  */
 package de.odysseus.staxon.base;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 
 public class XMLStreamReaderScope<T> extends AbstractXMLStreamScope {
-	private List<Pair<String, String>> declarations;
+	private String[] declarations; // prefix/namespace URI pairs
+	private int declarationCount;
 	private T info;
 
 	public XMLStreamReaderScope(String defaultNamespace, T info) {
@@ -54,22 +54,33 @@ public class XMLStreamReaderScope<T> extends AbstractXMLStreamScope {
 	}
 
 	public int getNamespaceCount() {
-		return declarations == null ? 0 : declarations.size();
+		return declarationCount;
 	}
 
 	public String getNamespacePrefix(int index) {
-		return declarations == null ? null : declarations.get(index).getFirst();
+		return declarations == null ? null : declarations[2 * checkDeclarationIndex(index)];
 	}
 
 	public String getNamespaceURI(int index) {
-		return declarations == null ? null : declarations.get(index).getSecond();
+		return declarations == null ? null : declarations[2 * checkDeclarationIndex(index) + 1];
+	}
+
+	private int checkDeclarationIndex(int index) {
+		if (index < 0 || index >= declarationCount) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + declarationCount);
+		}
+		return index;
 	}
 
 	void addNamespaceURI(String prefix, String namespaceURI) {
 		if (declarations == null) {
-			declarations = new LinkedList<Pair<String, String>>();
+			declarations = new String[8];
+		} else if (2 * declarationCount == declarations.length) {
+			declarations = Arrays.copyOf(declarations, 2 * declarations.length);
 		}
-		declarations.add(new Pair<String, String>(prefix, namespaceURI));
+		declarations[2 * declarationCount] = prefix;
+		declarations[2 * declarationCount + 1] = namespaceURI;
+		declarationCount++;
 	}
 
 	public int getAttributeCount() {
@@ -77,8 +88,17 @@ public class XMLStreamReaderScope<T> extends AbstractXMLStreamScope {
 	}
 
 	public QName getAttributeName(int index) {
-		Attr attribute = getAttributes().get(index);
-		return new QName(attribute.getNamespaceURI(), attribute.getLocalName(), attribute.getPrefix());
+		return getAttributeName(index, null);
+	}
+
+	/**
+	 * Answer attribute name.
+	 * @param index attribute index
+	 * @param cache name cache (may be <code>null</code>)
+	 * @return resolved attribute name
+	 */
+	public QName getAttributeName(int index, QNameCache cache) {
+		return getAttributes().get(index).getName(cache);
 	}
 
 	public String getAttributeValue(int index) {
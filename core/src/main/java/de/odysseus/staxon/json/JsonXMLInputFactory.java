@@ -15,14 +15,18 @@
  */
 package de.odysseus.staxon.json;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Arrays;
 import java.util.Map;
 
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.EventFilter;
 import javax.xml.stream.FactoryConfigurationError;
@@ -33,10 +37,14 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import de.odysseus.staxon.base.AbstractXMLInputFactory;
+import de.odysseus.staxon.base.QNameCache;
 import de.odysseus.staxon.event.SimpleXMLEventReader;
 import de.odysseus.staxon.event.SimpleXMLFilteredEventReader;
 import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamFeedSource;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.SymbolTable;
 import de.odysseus.staxon.json.stream.util.AddRootSource;
 
 /**
@@ -75,18 +83,83 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 
 	/**
 	 * <p>Namespace mappings associate prefixes with URIs when reading JSON.
-	 * This can be used to parse documents which are missing namespace declarations.</p>
+	 * This can be used to parse documents which are missing namespace declarations.
+	 * The mappings are compiled when set, later changes to the map have no effect.</p>
 	 * 
 	 * <p>The default value is <code>null</code>.</p>
 	 */
 	public static final String PROP_NAMESPACE_MAPPINGS = "JsonXMLInputFactory.namespaceMappings";
 
+	/**
+	 * <p>Field name symbol table (a {@link SymbolTable} instance), shared by all readers
+	 * created by this factory. Set to <code>null</code> to disable name canonicalization.</p>
+	 * 
+	 * <p>The default value is a symbol table with default capacity.</p>
+	 */
+	public static final String PROP_SYMBOL_TABLE = "JsonXMLInputFactory.symbolTable";
+
+	/**
+	 * <p>Settings ({@link JsonStreamSettings}) passed to the stream factory for each source.
+	 * Setting {@link #PROP_SYMBOL_TABLE} replaces the settings' symbol table. Readers
+	 * reject input nested deeper than the settings' maximum depth.</p>
+	 * 
+	 * <p>The default value is <code>new JsonStreamSettings()</code>.</p>
+	 */
+	public static final String PROP_STREAM_SETTINGS = "JsonXMLInputFactory.streamSettings";
+
+	/**
+	 * <p>Maximum length of <code>CHARACTERS</code> events reporting string values if
+	 * {@link #IS_COALESCING} is <code>false</code>. Longer strings are split into
+	 * consecutive events, so readers never hold them in memory at once.</p>
+	 * 
+	 * <p>The default value is <code>8192</code>.</p>
+	 */
+	public static final String PROP_TEXT_CHUNK_SIZE = "JsonXMLInputFactory.textChunkSize";
+
+	/**
+	 * <p>Whether readers record event locations. If <code>false</code>, readers report an
+	 * unknown location (all values <code>-1</code>) for events and errors. Scanners count
+	 * lines per token in any case, so this saves little more than the per-event capture.</p>
+	 * 
+	 * <p>The default value is <code>true</code>.</p>
+	 */
+	public static final String PROP_LOCATION_TRACKING = "JsonXMLInputFactory.locationTracking";
+
+	/**
+	 * <p>Maximum number of closed readers kept for reuse. If positive, readers created for
+	 * an input stream or reader are taken from the pool and reset, if available. Readers
+	 * are returned to the pool when closed and must not be used afterwards. Changing the
+	 * factory's configuration discards the pool.</p>
+	 * 
+	 * <p>The default value is <code>0</code> (no pooling).</p>
+	 */
+	public static final String PROP_POOL_SIZE = "JsonXMLInputFactory.poolSize";
+
+	/**
+	 * <p>Element and attribute name cache (a {@link QNameCache} instance), shared by all
+	 * readers created by this factory. Set to <code>null</code> to disable caching.</p>
+	 * 
+	 * <p>The default value is a cache with default capacity.</p>
+	 */
+	public static final String PROP_NAME_CACHE = "JsonXMLInputFactory.nameCache";
+
+	private static final int DEFAULT_TEXT_CHUNK_SIZE = 8192;
+
 	private final JsonStreamFactory streamFactory;
 
 	private boolean multiplePI;
 	private QName virtualRoot;
 	private char namespaceSeparator;
 	private Map<String, String> namespaceMappings;
+	private NamespaceContext namespaceContext; // compiled namespace mappings
+	private int textChunkSize = DEFAULT_TEXT_CHUNK_SIZE;
+	private int poolSize = 0;
+	private QNameCache nameCache = new QNameCache();
+	private JsonStreamSettings settings = new JsonStreamSettings();
+	private boolean locationTracking = true;
+
+	private ObjectPool<JsonXMLStreamReader> pool = null;
+	private int generation = 0; // incremented on configuration changes
 
 	public JsonXMLInputFactory() throws FactoryConfigurationError {
 		this(JsonXMLConfig.DEFAULT);
@@ -105,6 +178,7 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 		this.virtualRoot = config.getVirtualRoot();
 		this.namespaceSeparator = config.getNamespaceSeparator();
 		this.namespaceMappings = config.getNamespaceMappings();
+		this.namespaceContext = JsonXMLStreamReader.createNamespaceContext(namespaceMappings);
 		this.streamFactory = streamFactory;
 		
 		/*
@@ -124,9 +198,69 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 		}
 		return source;
 	}
+
+	private JsonXMLStreamReader createReader(JsonStreamSource source, JsonStreamFeedSource feeder) throws XMLStreamException {
+		int chunkSize = Boolean.TRUE.equals(getProperty(IS_COALESCING)) ? 0 : textChunkSize;
+		JsonXMLStreamReader reader = new JsonXMLStreamReader(decorate(source), multiplePI, namespaceSeparator, namespaceContext, feeder, chunkSize, locationTracking, settings.getMaxDepth());
+		reader.setNameCache(nameCache);
+		if (feeder == null) {
+			reader.setFactory(this, generation, source);
+		}
+		return reader;
+	}
+
+	private void checkGeneration(JsonXMLStreamReader reader) {
+		if (reader.getGeneration() != generation) {
+			throw new IllegalStateException("Factory configuration has changed");
+		}
+	}
+
+	/**
+	 * Reset a reader created by this factory.
+	 */
+	void reset(JsonXMLStreamReader reader, Reader input) throws XMLStreamException {
+		checkGeneration(reader);
+		try {
+			JsonStreamSource source = streamFactory.resetJsonStreamSource(reader.getOrigin(), input, settings);
+			reader.reset(source, decorate(source));
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Reset a reader created by this factory.
+	 */
+	void reset(JsonXMLStreamReader reader, InputStream input) throws XMLStreamException {
+		checkGeneration(reader);
+		try {
+			JsonStreamSource source = streamFactory.resetJsonStreamSource(reader.getOrigin(), input, settings);
+			reader.reset(source, decorate(source));
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Return a closed reader to the pool (if pooling is enabled and the configuration has not changed).
+	 */
+	void release(JsonXMLStreamReader reader) {
+		ObjectPool<JsonXMLStreamReader> pool = this.pool;
+		if (pool != null && reader.getGeneration() == generation) {
+			pool.release(reader);
+		}
+	}
+
+	private JsonXMLStreamReader acquire() {
+		ObjectPool<JsonXMLStreamReader> pool = this.pool;
+		return pool == null ? null : pool.acquire();
+	}
 	
 	@Override
 	public JsonXMLStreamReader createXMLStreamReader(InputStream stream, String encoding) throws XMLStreamException {
+		if ("UTF-8".equalsIgnoreCase(encoding)) { // let the stream factory do the decoding
+			return createXMLStreamReader(stream);
+		}
 		try {
 			return createXMLStreamReader(new InputStreamReader(stream, encoding));
 		} catch (UnsupportedEncodingException e) {
@@ -146,8 +280,13 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 
 	@Override
 	public JsonXMLStreamReader createXMLStreamReader(Reader reader) throws XMLStreamException {
+		JsonXMLStreamReader pooled = acquire();
+		if (pooled != null) {
+			reset(pooled, reader);
+			return pooled;
+		}
 		try {
-			return new JsonXMLStreamReader(decorate(streamFactory.createJsonStreamSource(reader)), multiplePI, namespaceSeparator, namespaceMappings);
+			return createReader(streamFactory.createJsonStreamSource(reader, settings), null);
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -155,8 +294,77 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 
 	@Override
 	public JsonXMLStreamReader createXMLStreamReader(InputStream stream) throws XMLStreamException {
+		JsonXMLStreamReader pooled = acquire();
+		if (pooled != null) {
+			reset(pooled, stream);
+			return pooled;
+		}
+		try {
+			return createReader(streamFactory.createJsonStreamSource(stream, settings), null);
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Create reader for the given (UTF-8) file channel, starting at its current position.
+	 * The default stream factory scans the file through memory-mapped buffers.
+	 * The channel is not closed when the reader is closed.
+	 * @param channel file channel
+	 * @return stream reader
+	 * @throws XMLStreamException
+	 */
+	public JsonXMLStreamReader createXMLStreamReader(FileChannel channel) throws XMLStreamException {
+		try {
+			return createReader(streamFactory.createJsonStreamSource(channel, settings), null);
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Create reader for the given (UTF-8) channel, which must be in blocking mode.
+	 * The channel is not closed when the reader is closed.
+	 * @param channel channel
+	 * @return stream reader
+	 * @throws XMLStreamException
+	 */
+	public JsonXMLStreamReader createXMLStreamReader(ReadableByteChannel channel) throws XMLStreamException {
+		try {
+			return createReader(streamFactory.createJsonStreamSource(channel, settings), null);
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Create non-blocking reader. Input (UTF-8) is fed in chunks via
+	 * {@link JsonXMLStreamReader#getInputFeeder()}; while no event is available,
+	 * the reader reports {@link JsonXMLStreamConstants#EVENT_INCOMPLETE}.
+	 * @return stream reader
+	 * @throws XMLStreamException
+	 * @throws UnsupportedOperationException if the stream factory does not support non-blocking sources
+	 */
+	public JsonXMLStreamReader createNonBlockingXMLStreamReader() throws XMLStreamException {
+		try {
+			JsonStreamFeedSource feeder = streamFactory.createJsonStreamFeedSource(settings);
+			return createReader(feeder, feeder);
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Create reader for the given (UTF-8) file.
+	 * The file is closed when the reader is closed.
+	 * @param file file
+	 * @return stream reader
+	 * @throws XMLStreamException
+	 */
+	@Override
+	public JsonXMLStreamReader createXMLStreamReader(File file) throws XMLStreamException {
 		try {
-			return new JsonXMLStreamReader(decorate(streamFactory.createJsonStreamSource(stream)), multiplePI, namespaceSeparator, namespaceMappings);
+			return createReader(streamFactory.createJsonStreamSource(file, settings), null);
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -189,7 +397,7 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 	@Override
 	public boolean isPropertySupported(String name) {
 		return super.isPropertySupported(name)
-			|| Arrays.asList(PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR, PROP_NAMESPACE_MAPPINGS).contains(name);
+			|| Arrays.asList(PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR, PROP_NAMESPACE_MAPPINGS, PROP_SYMBOL_TABLE, PROP_STREAM_SETTINGS, PROP_TEXT_CHUNK_SIZE, PROP_LOCATION_TRACKING, PROP_POOL_SIZE, PROP_NAME_CACHE).contains(name);
 	}
 
 	@Override
@@ -205,6 +413,18 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 				return namespaceSeparator;
 			} else if (PROP_NAMESPACE_MAPPINGS.equals(name)) {
 				return namespaceMappings;
+			} else if (PROP_SYMBOL_TABLE.equals(name)) {
+				return settings.getSymbolTable();
+			} else if (PROP_STREAM_SETTINGS.equals(name)) {
+				return settings;
+			} else if (PROP_TEXT_CHUNK_SIZE.equals(name)) {
+				return Integer.valueOf(textChunkSize);
+			} else if (PROP_LOCATION_TRACKING.equals(name)) {
+				return Boolean.valueOf(locationTracking);
+			} else if (PROP_POOL_SIZE.equals(name)) {
+				return Integer.valueOf(poolSize);
+			} else if (PROP_NAME_CACHE.equals(name)) {
+				return nameCache;
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
@@ -246,9 +466,35 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 				@SuppressWarnings("unchecked")
 				Map<String, String> map = (Map<String, String>)value;
 				this.namespaceMappings = map;
+				this.namespaceContext = JsonXMLStreamReader.createNamespaceContext(map);
+			} else if (PROP_SYMBOL_TABLE.equals(name)) {
+				settings = settings.withSymbolTable((SymbolTable)value);
+			} else if (PROP_STREAM_SETTINGS.equals(name)) {
+				if (value == null) {
+					throw new IllegalArgumentException("Stream settings must not be null");
+				}
+				settings = (JsonStreamSettings)value;
+			} else if (PROP_TEXT_CHUNK_SIZE.equals(name)) {
+				int size = ((Integer)value).intValue();
+				if (size <= 0) {
+					throw new IllegalArgumentException("Text chunk size must be positive: " + size);
+				}
+				textChunkSize = size;
+			} else if (PROP_LOCATION_TRACKING.equals(name)) {
+				locationTracking = ((Boolean)value).booleanValue();
+			} else if (PROP_POOL_SIZE.equals(name)) {
+				int size = ((Integer)value).intValue();
+				if (size < 0) {
+					throw new IllegalArgumentException("Pool size must not be negative: " + size);
+				}
+				poolSize = size;
+			} else if (PROP_NAME_CACHE.equals(name)) {
+				nameCache = (QNameCache)value;
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
 		}
+		generation++; // don't reset or pool readers created with the previous configuration
+		pool = poolSize > 0 ? new ObjectPool<JsonXMLStreamReader>(poolSize) : null;
 	}
 }
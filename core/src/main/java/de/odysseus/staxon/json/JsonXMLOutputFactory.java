@@ -20,6 +20,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,9 +35,14 @@ import javax.xml.stream.XMLStreamWriter;
 import de.odysseus.staxon.base.AbstractXMLOutputFactory;
 import de.odysseus.staxon.event.SimpleXMLEventWriter;
 import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.util.AsyncOutput;
+import de.odysseus.staxon.json.stream.util.AsyncOutputStream;
 import de.odysseus.staxon.json.stream.util.AutoArrayTarget;
 import de.odysseus.staxon.json.stream.util.AutoPrimitiveTarget;
+import de.odysseus.staxon.json.stream.util.FlushPolicy;
+import de.odysseus.staxon.json.stream.util.FlushPolicyTarget;
 import de.odysseus.staxon.json.stream.util.RemoveRootTarget;
 
 /**
@@ -113,6 +119,49 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	public static final String PROP_FIELD_PREFIX = "JsonXMLOutputFactory.fieldPrefix";
 	public static final String PROP_CONTENT_FIELD = "JsonXMLOutputFactory.contentField";
 
+	/**
+	 * <p>Maximum number of closed writers kept for reuse. If positive, writers created for
+	 * an output stream or writer are taken from the pool and reset, if available. Writers
+	 * are returned to the pool when closed and must not be used afterwards. Changing the
+	 * factory's configuration discards the pool.</p>
+	 * 
+	 * <p>The default value is <code>0</code> (no pooling).</p>
+	 */
+	public static final String PROP_POOL_SIZE = "JsonXMLOutputFactory.poolSize";
+
+	/**
+	 * <p>Flush policy ({@link FlushPolicy}), deciding when output is flushed to the
+	 * underlying stream, e.g. {@link FlushPolicy#NEVER} to flush on close only.
+	 * If set, explicit flushes between the elements of a root array (e.g. by a JAXB
+	 * marshaller after every document) are left to the policy, too.</p>
+	 * 
+	 * <p>The default value is <code>null</code> (flushing is left to the stream target;
+	 * the default target flushes whenever a top-level object has been written).</p>
+	 */
+	public static final String PROP_FLUSH_POLICY = "JsonXMLOutputFactory.flushPolicy";
+
+	/**
+	 * <p>Asynchronous output ({@link AsyncOutput}). If set, writers created for an output
+	 * stream write to an {@link AsyncOutputStream}, which passes the output to the
+	 * configured executor, so that producing JSON overlaps with writing it to slow
+	 * streams. Flushing and closing a writer wait until its output has been written.</p>
+	 * 
+	 * <p>The default value is <code>null</code> (write to the stream directly).</p>
+	 */
+	public static final String PROP_ASYNC_OUTPUT = "JsonXMLOutputFactory.asyncOutput";
+
+	/**
+	 * <p>Settings ({@link JsonStreamSettings}) passed to the stream factory for each target,
+	 * e.g. to limit the nesting depth or to disable automatic flushing. If a flush policy
+	 * is set, targets do not flush automatically, regardless of these settings.</p>
+	 * 
+	 * <p>The default value is <code>new JsonStreamSettings()</code> (targets flush whenever
+	 * a top-level object has been written), without symbol table.</p>
+	 */
+	public static final String PROP_STREAM_SETTINGS = "JsonXMLOutputFactory.streamSettings";
+
+	private static final JsonStreamSettings DEFAULT_STREAM_SETTINGS = new JsonStreamSettings().withSymbolTable(null);
+
 	private JsonStreamFactory streamFactory;
 	private boolean multiplePI;
 	private QName virtualRoot;
@@ -126,6 +175,14 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	private String fieldPrefix;
    private String contentField;
 
+	private FlushPolicy flushPolicy = null;
+	private AsyncOutput asyncOutput = null;
+	private JsonStreamSettings settings = DEFAULT_STREAM_SETTINGS;
+
+	private int poolSize = 0;
+	private ObjectPool<JsonXMLStreamWriter> pool = null;
+	private int generation = 0; // incremented on configuration changes
+
 	public JsonXMLOutputFactory() throws FactoryConfigurationError {
 		this(JsonXMLConfig.DEFAULT);
 	}
@@ -159,6 +216,9 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	}
 		
 	private JsonStreamTarget decorate(JsonStreamTarget target) {
+		if (flushPolicy != null) {
+			target = new FlushPolicyTarget(target, flushPolicy);
+		}
 		if (virtualRoot != null) {
 			target = new RemoveRootTarget(target, virtualRoot, namespaceSeparator);
 		}
@@ -171,10 +231,29 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 		return target;
 	}
 	
+	/**
+	 * With a flush policy, targets must not flush on their own; the policy decides.
+	 * @return settings for new targets
+	 */
+	private JsonStreamSettings getTargetSettings() {
+		return flushPolicy == null ? settings : settings.withAutoFlush(false);
+	}
+
+	private OutputStream async(OutputStream stream) {
+		return asyncOutput == null ? stream : new AsyncOutputStream(stream, asyncOutput);
+	}
+
+	/**
+	 * UTF-8 output is encoded by the stream factory's target, other encodings are
+	 * handled by an {@link OutputStreamWriter}.
+	 */
 	@Override
 	public JsonXMLStreamWriter createXMLStreamWriter(OutputStream stream, String encoding) throws XMLStreamException {
+		if (encoding == null || "UTF-8".equalsIgnoreCase(encoding)) {
+			return createXMLStreamWriter(stream);
+		}
 		try {
-			return createXMLStreamWriter(new OutputStreamWriter(stream, encoding));
+			return createXMLStreamWriter(new OutputStreamWriter(async(stream), encoding));
 		} catch (UnsupportedEncodingException e) {
 			throw new XMLStreamException(e);
 		}
@@ -195,12 +274,70 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 		return null;
 	}
 
+	private JsonXMLStreamWriter createWriter(JsonStreamTarget target) {
+		JsonXMLStreamWriter writer = new JsonXMLStreamWriter(decorate(target),
+		      repairNamespacesMap(), multiplePI, namespaceSeparator, namespaceDeclarations,
+		      fieldPrefix, contentField);
+		writer.setFactory(this, generation, target);
+		return writer;
+	}
+
+	private void checkGeneration(JsonXMLStreamWriter writer) {
+		if (writer.getGeneration() != generation) {
+			throw new IllegalStateException("Factory configuration has changed");
+		}
+	}
+
+	/**
+	 * Reset a writer created by this factory.
+	 */
+	void reset(JsonXMLStreamWriter writer, Writer output) throws XMLStreamException {
+		checkGeneration(writer);
+		try {
+			JsonStreamTarget target = streamFactory.resetJsonStreamTarget(writer.getOrigin(), output, prettyPrint, getTargetSettings());
+			writer.reset(target, decorate(target));
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Reset a writer created by this factory.
+	 */
+	void reset(JsonXMLStreamWriter writer, OutputStream output) throws XMLStreamException {
+		checkGeneration(writer);
+		try {
+			JsonStreamTarget target = streamFactory.resetJsonStreamTarget(writer.getOrigin(), async(output), prettyPrint, getTargetSettings());
+			writer.reset(target, decorate(target));
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Return a closed writer to the pool (if pooling is enabled and the configuration has not changed).
+	 */
+	void release(JsonXMLStreamWriter writer) {
+		ObjectPool<JsonXMLStreamWriter> pool = this.pool;
+		if (pool != null && writer.getGeneration() == generation) {
+			pool.release(writer);
+		}
+	}
+
+	private JsonXMLStreamWriter acquire() {
+		ObjectPool<JsonXMLStreamWriter> pool = this.pool;
+		return pool == null ? null : pool.acquire();
+	}
+
 	@Override
 	public JsonXMLStreamWriter createXMLStreamWriter(Writer stream) throws XMLStreamException {
+		JsonXMLStreamWriter pooled = acquire();
+		if (pooled != null) {
+			reset(pooled, stream);
+			return pooled;
+		}
 		try {
-			return new JsonXMLStreamWriter(decorate(streamFactory.createJsonStreamTarget(stream, prettyPrint)),
-			      repairNamespacesMap(), multiplePI, namespaceSeparator, namespaceDeclarations,
-			      fieldPrefix, contentField);
+			return createWriter(streamFactory.createJsonStreamTarget(stream, prettyPrint, getTargetSettings()));
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -208,10 +345,28 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 
 	@Override
 	public JsonXMLStreamWriter createXMLStreamWriter(OutputStream stream) throws XMLStreamException {
+		JsonXMLStreamWriter pooled = acquire();
+		if (pooled != null) {
+			reset(pooled, stream);
+			return pooled;
+		}
 		try {
-			return new JsonXMLStreamWriter(decorate(streamFactory.createJsonStreamTarget(stream, prettyPrint)),
-			      repairNamespacesMap(), multiplePI, namespaceSeparator, namespaceDeclarations,
-			      fieldPrefix, contentField);
+			return createWriter(streamFactory.createJsonStreamTarget(async(stream), prettyPrint, getTargetSettings()));
+		} catch (IOException e) {
+			throw new XMLStreamException(e);
+		}
+	}
+
+	/**
+	 * Create writer for the given channel, which must be in blocking mode.
+	 * Output is encoded as UTF-8. The channel is not closed when the writer is closed.
+	 * @param channel channel
+	 * @return stream writer
+	 * @throws XMLStreamException
+	 */
+	public JsonXMLStreamWriter createXMLStreamWriter(WritableByteChannel channel) throws XMLStreamException {
+		try {
+			return createWriter(streamFactory.createJsonStreamTarget(channel, prettyPrint, getTargetSettings()));
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -227,7 +382,8 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 		return super.isPropertySupported(name)
 			|| Arrays.asList(PROP_AUTO_ARRAY, PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR,
 			      PROP_NAMESPACE_DECLARATIONS, PROP_NAMESPACE_MAPPINGS, PROP_PRETTY_PRINT,
-			      PROP_FIELD_PREFIX, PROP_CONTENT_FIELD).contains(name);
+			      PROP_FIELD_PREFIX, PROP_CONTENT_FIELD, PROP_POOL_SIZE, PROP_FLUSH_POLICY,
+			      PROP_ASYNC_OUTPUT, PROP_STREAM_SETTINGS).contains(name);
 	}
 
 	@Override
@@ -255,6 +411,14 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 			   return fieldPrefix;
 			} else if (PROP_CONTENT_FIELD.equals(name)) {
 			   return contentField;
+			} else if (PROP_POOL_SIZE.equals(name)) {
+				return Integer.valueOf(poolSize);
+			} else if (PROP_FLUSH_POLICY.equals(name)) {
+				return flushPolicy;
+			} else if (PROP_ASYNC_OUTPUT.equals(name)) {
+				return asyncOutput;
+			} else if (PROP_STREAM_SETTINGS.equals(name)) {
+				return settings;
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
@@ -288,9 +452,26 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
             fieldPrefix = (String) value;
          } else if (PROP_CONTENT_FIELD.equals(name)) {
             contentField = (String) value;
-         } else {
+         } else if (PROP_POOL_SIZE.equals(name)) {
+				int size = ((Integer)value).intValue();
+				if (size < 0) {
+					throw new IllegalArgumentException("Pool size must not be negative: " + size);
+				}
+				poolSize = size;
+			} else if (PROP_FLUSH_POLICY.equals(name)) {
+				flushPolicy = (FlushPolicy) value;
+			} else if (PROP_ASYNC_OUTPUT.equals(name)) {
+				asyncOutput = (AsyncOutput) value;
+			} else if (PROP_STREAM_SETTINGS.equals(name)) {
+				if (value == null) {
+					throw new IllegalArgumentException("Stream settings must not be null");
+				}
+				settings = (JsonStreamSettings) value;
+			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
 		}
+		generation++; // don't reset or pool writers created with the previous configuration
+		pool = poolSize > 0 ? new ObjectPool<JsonXMLStreamWriter>(poolSize) : null;
 	}
 }
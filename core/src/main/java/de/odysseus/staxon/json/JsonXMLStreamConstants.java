@@ -15,6 +15,8 @@
  */
 package de.odysseus.staxon.json;
 
+import de.odysseus.staxon.base.AbstractXMLStreamReader;
+
 /**
  * Constants used by reader and writer classes.
  */
@@ -30,4 +32,10 @@ public class JsonXMLStreamConstants {
 	 * When reading JSON, a reader may report this processing instruction on array starts.
 	 */
 	public static final String MULTIPLE_PI_TARGET = "xml-multiple";
+
+	/**
+	 * Event type reported by a non-blocking reader if no event is available until
+	 * more input has been fed (see {@link JsonXMLStreamReader#getInputFeeder()}).
+	 */
+	public static final int EVENT_INCOMPLETE = AbstractXMLStreamReader.EVENT_INCOMPLETE;
 }
@@ -16,14 +16,22 @@
 package de.odysseus.staxon.json;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 
 import de.odysseus.staxon.base.AbstractXMLStreamReader;
+import de.odysseus.staxon.base.QNameCache;
+import de.odysseus.staxon.base.RootNamespaceContext;
 import de.odysseus.staxon.base.XMLStreamReaderScope;
+import de.odysseus.staxon.json.stream.JsonNumber;
+import de.odysseus.staxon.json.stream.JsonStreamFeedSource;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamSource.Value;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
@@ -39,17 +47,50 @@ import de.odysseus.staxon.json.stream.JsonStreamToken;
  * <p>The reader may produce processing instructions
  * <code>&lt;?xml-multiple element-name?&gt;</code>
  * to indicate array starts (<code>'['</code>).</p>
+ * 
+ * <p>If created on a {@link JsonStreamFeedSource}, the reader operates in non-blocking mode:
+ * whenever the input fed so far is exhausted, {@link #next()} answers
+ * {@link JsonXMLStreamConstants#EVENT_INCOMPLETE} instead of blocking. Feed more input
+ * via {@link #getInputFeeder()} and call <code>next()</code> again.</p>
+ * 
+ * <p>If created with a text chunk size, string values are reported as consecutive
+ * <code>CHARACTERS</code> events of at most that many characters, so that long strings
+ * are never held entirely in memory (non-coalescing mode).</p>
  */
 public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamReader.ScopeInfo> {
 	static class ScopeInfo extends JsonXMLStreamScopeInfo {
 		private String currentTagName;
 	}
 	
-	private final JsonStreamSource source;
+	private final JsonStreamFeedSource feeder;
 	private final boolean multiplePI;
 	private final char namespaceSeparator;
+	private final NamespaceContext namespaceContext; // predefined namespaces
+	private final char[] textChunk; // null in coalescing mode
+	private final boolean locationTracking;
+
+	private JsonStreamSource source;
+
+	/*
+	 * Reset support: creating factory, its configuration generation and the undecorated source
+	 */
+	private JsonXMLInputFactory factory;
+	private int generation;
+	private JsonStreamSource origin;
+	private boolean released; // returned to factory on close
 	
 	private boolean documentArray = false;
+	private boolean textChunkPending = false;
+
+	private final int maxDepth;
+	private int depth; // element nesting by objects
+
+	/*
+	 * Non-blocking mode: state of a field whose value was not available
+	 */
+	private String pendingFieldName; // attribute or text field name
+	private boolean pendingNsObject; // inside badgerfish namespace object
+	private String pendingPrefix; // badgerfish namespace prefix
 
 	/**
 	 * Create reader instance.
@@ -71,22 +112,120 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 	 * @throws XMLStreamException
 	 */
 	public JsonXMLStreamReader(JsonStreamSource source, boolean multiplePI, char namespaceSeparator, Map<String, String> namespaceMappings) throws XMLStreamException {
-		super(new ScopeInfo(), source);
+		this(source, multiplePI, namespaceSeparator, createNamespaceContext(namespaceMappings), source instanceof JsonStreamFeedSource ? (JsonStreamFeedSource) source : null, 0, true, JsonStreamSettings.DEFAULT_MAX_DEPTH);
+	}
+
+	/**
+	 * Compile namespace mappings.
+	 * @param namespaceMappings predefined namespaces (may be <code>null</code>)
+	 * @return root namespace context or <code>null</code> if there are no mappings
+	 */
+	static NamespaceContext createNamespaceContext(Map<String, String> namespaceMappings) {
+		return namespaceMappings == null || namespaceMappings.isEmpty() ? null : new RootNamespaceContext(namespaceMappings);
+	}
+
+	/**
+	 * Create reader instance.
+	 * @param source stream source (possibly decorating <code>feeder</code>)
+	 * @param multiplePI whether to produce <code>&lt;xml-multiple?&gt;</code> PIs to signal array start
+	 * @param namespaceSeparator namespace prefix separator
+	 * @param namespaceContext predefined namespaces (may be <code>null</code>)
+	 * @param feeder non-blocking source (may be <code>null</code>)
+	 * @param textChunkSize maximum length of <code>CHARACTERS</code> events for string values (<code>0</code> for coalescing mode)
+	 * @param locationTracking whether to record event locations (otherwise, locations are unknown)
+	 * @param maxDepth maximum nesting of elements by objects
+	 * @throws XMLStreamException
+	 */
+	JsonXMLStreamReader(JsonStreamSource source, boolean multiplePI, char namespaceSeparator, NamespaceContext namespaceContext, JsonStreamFeedSource feeder, int textChunkSize, boolean locationTracking, int maxDepth) throws XMLStreamException {
+		super(new ScopeInfo(), locationTracking ? source : null, namespaceContext);
 		this.source = source;
+		this.feeder = feeder;
+		this.textChunk = textChunkSize > 0 ? new char[textChunkSize] : null;
 		this.multiplePI = multiplePI;
 		this.namespaceSeparator = namespaceSeparator;
-		initialize(namespaceMappings);
+		this.namespaceContext = namespaceContext;
+		this.locationTracking = locationTracking;
+		this.maxDepth = maxDepth;
+		initialize();
 	}
-	
-	private void initialize(Map<String, String> namespaceMappings) throws XMLStreamException {
-		if (namespaceMappings != null && !namespaceMappings.isEmpty()) {
-			for (Map.Entry<String, String> namespace : namespaceMappings.entrySet()) {
-				getScope().setPrefix(namespace.getKey(), namespace.getValue());
-			}
+
+	/**
+	 * Enable {@link #reset(Reader)} and pooling.
+	 * @param factory creating factory
+	 * @param generation factory configuration generation
+	 * @param origin source created by the factory's stream factory (before decoration)
+	 */
+	void setFactory(JsonXMLInputFactory factory, int generation, JsonStreamSource origin) {
+		this.factory = factory;
+		this.generation = generation;
+		this.origin = origin;
+	}
+
+	@Override
+	protected void setNameCache(QNameCache nameCache) { // make accessible to factory
+		super.setNameCache(nameCache);
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	JsonStreamSource getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Reset reader to read another document.
+	 * @param origin source created by the factory's stream factory
+	 * @param source decorated source
+	 * @throws XMLStreamException
+	 */
+	void reset(JsonStreamSource origin, JsonStreamSource source) throws XMLStreamException {
+		this.origin = origin;
+		this.source = source;
+		released = false;
+		documentArray = false;
+		textChunkPending = false;
+		depth = 0;
+		pendingFieldName = null;
+		pendingNsObject = false;
+		pendingPrefix = null;
+		reset(new ScopeInfo(), locationTracking ? source : null, namespaceContext);
+		initialize();
+	}
+
+	private JsonXMLInputFactory resetFactory() {
+		if (factory == null) {
+			throw new IllegalStateException("Reader has not been created by a blocking factory method");
 		}
-		super.initialize();
+		return factory;
 	}
 
+	/**
+	 * Reset this (closed) reader to read another document from the given reader.
+	 * The reader must have been created by a blocking {@link JsonXMLInputFactory} method,
+	 * and the factory's configuration must not have changed since. The factory's stream
+	 * factory may reuse the previous source and its buffers. Readers returned to the
+	 * factory's pool on close (see {@link JsonXMLInputFactory#PROP_POOL_SIZE}) must not be reset.
+	 * @param reader new input
+	 * @throws XMLStreamException
+	 * @throws IllegalStateException if the reader cannot be reset
+	 */
+	public void reset(Reader reader) throws XMLStreamException {
+		resetFactory().reset(this, reader);
+	}
+
+	/**
+	 * Reset this (closed) reader to read another (UTF-8) document from the given stream.
+	 * @param stream new input
+	 * @throws XMLStreamException
+	 * @throws IllegalStateException if the reader cannot be reset
+	 * @see #reset(Reader)
+	 */
+	public void reset(InputStream stream) throws XMLStreamException {
+		resetFactory().reset(this, stream);
+	}
+	
 	private void readStartElementTag(String name) throws XMLStreamException {
 		int separator = name.indexOf(namespaceSeparator);
 		if (separator < 0) {
@@ -117,112 +256,207 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 		readData(value.text, value.data, type);
 	}
 
-	private void consumeName(ScopeInfo info) throws XMLStreamException, IOException {
-		String fieldName = source.name();
+	/**
+	 * Read string value chunk. The element is ended with the last chunk.
+	 * @param length chunk length
+	 * @param first whether this is the first chunk of the string
+	 */
+	private void readTextChunk(int length, boolean first) throws XMLStreamException {
+		if (length > 0 || first) {
+			readData(textChunk, 0, length, null, XMLStreamConstants.CHARACTERS);
+		}
+		textChunkPending = length == textChunk.length;
+		if (!textChunkPending) {
+			readEndElementTag();
+		}
+	}
+
+	/**
+	 * Consume field name and attribute, namespace or text value.
+	 * @return <code>false</code> if input is not available (non-blocking mode), call again to resume
+	 */
+	private boolean consumeName(ScopeInfo info) throws XMLStreamException, IOException {
+		String fieldName = pendingFieldName;
+		if (fieldName == null) {
+			fieldName = source.name();
+		} else {
+			pendingFieldName = null;
+		}
 		if (fieldName.startsWith("@")) {
-			fieldName = fieldName.substring(1);
-			if (source.peek() == JsonStreamToken.VALUE) {
-				readAttrNsDecl(fieldName, source.value().text);
-			} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(fieldName)) { // badgerfish
-				source.startObject();
-				while (source.peek() == JsonStreamToken.NAME) {
-					String prefix = source.name();
-					if ("$".equals(prefix)) {
-						readNsDecl(XMLConstants.DEFAULT_NS_PREFIX, source.value().text);
-					} else {
-						readNsDecl(prefix, source.value().text);
+			if (!pendingNsObject) {
+				JsonStreamToken token = source.peek();
+				if (token == JsonStreamToken.NOT_AVAILABLE) {
+					pendingFieldName = fieldName;
+					return false;
+				} else if (token == JsonStreamToken.VALUE) {
+					readAttrNsDecl(fieldName.substring(1), source.value().text);
+					return true;
+				} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(fieldName.substring(1))) { // badgerfish
+					source.startObject();
+					pendingNsObject = true;
+				} else {
+					throw new IllegalStateException("Expected attribute value");
+				}
+			}
+			while (true) {
+				if (pendingPrefix == null) {
+					JsonStreamToken token = source.peek();
+					if (token == JsonStreamToken.NOT_AVAILABLE) {
+						pendingFieldName = fieldName;
+						return false;
+					} else if (token != JsonStreamToken.NAME) {
+						break;
 					}
+					pendingPrefix = source.name();
+				}
+				if (source.peek() == JsonStreamToken.NOT_AVAILABLE) {
+					pendingFieldName = fieldName;
+					return false;
+				}
+				String prefix = pendingPrefix;
+				pendingPrefix = null;
+				if ("$".equals(prefix)) {
+					readNsDecl(XMLConstants.DEFAULT_NS_PREFIX, source.value().text);
+				} else {
+					readNsDecl(prefix, source.value().text);
 				}
-				source.endObject();
-			} else {
-				throw new IllegalStateException("Expected attribute value");
 			}
+			pendingNsObject = false;
+			source.endObject();
 		} else if ("$".equals(fieldName)) {
+			if (source.peek() == JsonStreamToken.NOT_AVAILABLE) {
+				pendingFieldName = fieldName;
+				return false;
+			}
 			readData(source.value(), XMLStreamConstants.CHARACTERS);
 		} else {
 			info.currentTagName = fieldName;
 		}
+		return true;
 	}
 
+	/*
+	 * Loop over names and array/object starts until a value, an object/array end or
+	 * missing input completes the step (no recursion, the stack doesn't grow with input).
+	 */
 	@Override
 	protected boolean consume() throws XMLStreamException, IOException {
-		XMLStreamReaderScope<ScopeInfo> scope = getScope();
-		switch (source.peek()) {
-		case NAME:
-			consumeName(scope.getInfo());
-			return consume();
-		case START_ARRAY:
-			source.startArray();
-			if (scope.getInfo().isArray()) {
-				throw new IOException("Array start inside array");
-			}
-			if (scope.isRoot() && !isStartDocumentRead()) {
-				documentArray = true;
-			} else {
-				if (scope.getInfo().currentTagName == null) {
-					throw new IOException("Array name missing");
+		if (textChunkPending) { // one chunk per call
+			readTextChunk(source.stringChunk(textChunk, 0, textChunk.length), false);
+			return true;
+		}
+		while (true) {
+			XMLStreamReaderScope<ScopeInfo> scope = getScope();
+			if (pendingFieldName != null) {
+				if (!consumeName(scope.getInfo())) {
+					readIncomplete();
+					return true;
 				}
-				scope.getInfo().startArray(scope.getInfo().currentTagName);
+				continue;
 			}
-			if (multiplePI) {
-				readPI(JsonXMLStreamConstants.MULTIPLE_PI_TARGET, scope.getInfo().currentTagName);
-			}
-			return consume();
-		case START_OBJECT:
-			source.startObject();
-			if (scope.isRoot() && !isStartDocumentRead()) {
-				readStartDocument(null, null, null);
-			} else {
+			switch (source.peek()) {
+			case NAME:
+				if (!consumeName(scope.getInfo())) {
+					readIncomplete();
+					return true;
+				}
+				continue;
+			case START_ARRAY:
+				source.startArray();
+				if (scope.getInfo().isArray()) {
+					throw new IOException("Array start inside array");
+				}
+				if (scope.isRoot() && !isStartDocumentRead()) {
+					documentArray = true;
+				} else {
+					if (scope.getInfo().currentTagName == null) {
+						throw new IOException("Array name missing");
+					}
+					scope.getInfo().startArray(scope.getInfo().currentTagName);
+				}
+				if (multiplePI) {
+					readPI(JsonXMLStreamConstants.MULTIPLE_PI_TARGET, scope.getInfo().currentTagName);
+				}
+				continue;
+			case START_OBJECT:
+				source.startObject();
+				if (scope.isRoot() && !isStartDocumentRead()) {
+					readStartDocument(null, null, null);
+				} else {
+					if (scope.getInfo().isArray()) {
+						scope.getInfo().incArraySize();
+					}
+					if (scope.getInfo().currentTagName != null) {
+						if (depth == maxDepth) {
+							throw new IOException("Maximum depth exceeded: " + maxDepth);
+						}
+						depth++;
+						readStartElementTag(scope.getInfo().currentTagName);
+					}
+				}
+				continue;
+			case END_OBJECT:
+				source.endObject();
+				if (scope.isRoot() && isStartDocumentRead()) {
+					readEndDocument();
+					return documentArray;
+				} else {
+					depth--;
+					readEndElementTag();
+					return true;
+				}
+			case VALUE:
+				String name = scope.getInfo().currentTagName;
 				if (scope.getInfo().isArray()) {
 					scope.getInfo().incArraySize();
+					name = scope.getInfo().getArrayName();
 				}
-				if (scope.getInfo().currentTagName != null) {
-					readStartElementTag(scope.getInfo().currentTagName);
+				if (scope.isRoot() && !isStartDocumentRead()) { // hack: allow to read simple value
+					readData(source.value(), XMLStreamConstants.CHARACTERS);
+				} else {
+					readStartElementTag(name);
+					int length = textChunk == null ? -1 : source.stringChunk(textChunk, 0, textChunk.length);
+					if (length >= 0) {
+						readTextChunk(length, true);
+						return true;
+					}
+					Value value = source.value();
+					if (value != JsonStreamSource.NULL) {
+						readData(value, XMLStreamConstants.CHARACTERS);
+					}
+					readEndElementTag();
 				}
-			}
-			return consume();
-		case END_OBJECT:
-			source.endObject();
-			if (scope.isRoot() && isStartDocumentRead()) {
-				readEndDocument();
-				return documentArray;
-			} else {
-				readEndElementTag();
 				return true;
-			}
-		case VALUE:
-			String name = scope.getInfo().currentTagName;
-			if (scope.getInfo().isArray()) {
-				scope.getInfo().incArraySize();
-				name = scope.getInfo().getArrayName();
-			}
-			if (getScope().isRoot() && !isStartDocumentRead()) { // hack: allow to read simple value
-				readData(source.value(), XMLStreamConstants.CHARACTERS);
-			} else {
-				readStartElementTag(name);
-				Value value = source.value();
-				if (value != JsonStreamSource.NULL) {
-					readData(value, XMLStreamConstants.CHARACTERS);
+			case END_ARRAY:
+				source.endArray();
+				if (scope.isRoot() && documentArray) {
+					return false;
 				}
-				readEndElementTag();
-			}
-			return true;
-		case END_ARRAY:
-			source.endArray();
-			if (getScope().isRoot() && documentArray) {
+				if (!scope.getInfo().isArray()) {
+					throw new IllegalStateException("Array end without matching start");
+				}
+				scope.getInfo().endArray();
+				return true;
+			case NONE:
 				return false;
+			case NOT_AVAILABLE:
+				readIncomplete();
+				return true;
+			default:
+				throw new IOException("Unexpected token: " + source.peek());
 			}
-			if (!scope.getInfo().isArray()) {
-				throw new IllegalStateException("Array end without matching start");
-			}
-			scope.getInfo().endArray();
-			return true;
-		case NONE:
-			return false;
-		default:
-			throw new IOException("Unexpected token: " + source.peek());
 		}
 	}
+
+	/**
+	 * Answer the non-blocking source to feed input to. If the reader reports
+	 * {@link JsonXMLStreamConstants#EVENT_INCOMPLETE}, more input must be fed
+	 * (or its end must be signaled) to make progress.
+	 * @return non-blocking source or <code>null</code> if the reader is blocking
+	 */
+	public JsonStreamFeedSource getInputFeeder() {
+		return feeder;
+	}
 	
 	/**
 	 * @return <code>true</code> iff the current event data is a number primitive
@@ -232,11 +466,14 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 	}
 	
 	/**
+	 * Lazily decoded {@link JsonNumber}s are answered as {@link java.math.BigInteger}
+	 * or {@link java.math.BigDecimal}.
 	 * @return number primitive
 	 * @throws ClassCastException
 	 */
 	public Number getNumber() {
-		return (Number) getEventData();
+		Object data = getEventData();
+		return data instanceof JsonNumber ? ((JsonNumber) data).getNumber() : (Number) data;
 	}
 	
 	/**
@@ -262,5 +499,9 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
+		if (factory != null && !released) {
+			released = true;
+			factory.release(this);
+		}
 	}
 }
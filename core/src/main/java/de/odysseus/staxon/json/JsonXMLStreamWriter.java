@@ -16,6 +16,8 @@
 package de.odysseus.staxon.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
@@ -24,6 +26,7 @@ import javax.xml.stream.XMLStreamException;
 
 import de.odysseus.staxon.base.AbstractXMLStreamWriter;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 /**
  * JSON XML stream writer.
@@ -59,10 +62,14 @@ import de.odysseus.staxon.json.stream.JsonStreamTarget;
  */
 public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWriter.ScopeInfo> {
 	static class ScopeInfo extends JsonXMLStreamScopeInfo {
+		private static final int TEXT_PREFIX_LENGTH = 32;
+
 		private Object leadData = null;
+		private String textPrefix = null; // start of streamed text, for error messages
 		private StringBuilder builder = null;
 		boolean startObjectWritten = false;
 		boolean pendingStartArray = false;
+		boolean streaming = false; // text is written to the target as a string value
 
 		void addText(String data) {
 			if (leadData == null) { // first event?
@@ -75,10 +82,28 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 			}
 		}
 		boolean hasData() {
-			return leadData != null;
+			return leadData != null || streaming;
 		}
 		Object getData() {
-			return builder == null ? (hasData() ? leadData : null) : builder.toString();
+			return builder == null ? leadData : builder.toString();
+		}
+		boolean isWhitespaceData() {
+			return builder == null ? isWhitespace(leadData) : isWhitespace(builder);
+		}
+		void startStreaming(String lead, String text) {
+			StringBuilder prefix = new StringBuilder(TEXT_PREFIX_LENGTH + 3);
+			prefix.append(lead, 0, Math.min(lead.length(), TEXT_PREFIX_LENGTH));
+			prefix.append(text, 0, Math.min(text.length(), TEXT_PREFIX_LENGTH - prefix.length()));
+			if (lead.length() + text.length() > TEXT_PREFIX_LENGTH) {
+				prefix.append("...");
+			}
+			this.textPrefix = prefix.toString();
+			this.leadData = null;
+			this.builder = null;
+			this.streaming = true;
+		}
+		String getTextPrefix() {
+			return streaming ? textPrefix : String.valueOf(getData());
 		}
 		void setData(Object data) {
 			this.leadData = data;
@@ -86,11 +111,31 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		}
 	}
 
+	/**
+	 * Serialized JSON value, passed as element data
+	 */
+	static final class RawValue {
+		final CharSequence json;
+		final byte[] utf8;
+
+		RawValue(CharSequence json, byte[] utf8) {
+			this.json = json;
+			this.utf8 = utf8;
+		}
+		void writeTo(JsonStreamTarget target) throws IOException {
+			if (utf8 != null) {
+				target.rawValue(utf8);
+			} else {
+				target.rawValue(json);
+			}
+		}
+	}
+
 	static boolean isWhitespace(Object data) {
-		if (data == null) {
+		if (data == null || data instanceof RawValue) {
 			return false;
 		}
-		String text = data.toString();
+		CharSequence text = data instanceof CharSequence ? (CharSequence) data : data.toString();
 		for (int i = 0; i < text.length(); i++) {
 			if (!Character.isWhitespace(text.charAt(i))) {
 				return false;
@@ -99,7 +144,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		return true;
 	}
 
-	private final JsonStreamTarget target;
+	private JsonStreamTarget target;
 	private final boolean multiplePI;
 	private final boolean autoEndArray;
 	private final boolean skipSpace;
@@ -109,8 +154,31 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 	private final String fieldPrefix;
 	private final String contentField;
 
+	/**
+	 * Maximum number of prepared element and attribute names cached per writer
+	 */
+	private static final int NAME_CACHE_SIZE = 1024;
+
+	private final PreparedNameCache names = new PreparedNameCache(NAME_CACHE_SIZE);
+	private final PreparedName contentName;
+
+	/**
+	 * Size of chunks passed to {@link JsonStreamTarget#appendString(char[], int, int)}
+	 */
+	private static final int TEXT_CHUNK_SIZE = 1024;
+
+	private char[] textChunk;
+
 	private boolean documentArray = false;
 
+	/*
+	 * Reset support: creating factory, its configuration generation and the undecorated target
+	 */
+	private JsonXMLOutputFactory factory;
+	private int generation;
+	private JsonStreamTarget origin;
+	private boolean released; // returned to factory on close
+
 	/**
 	 * Create writer instance.
 	 * @param target stream target
@@ -131,6 +199,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		
 		this.fieldPrefix = fieldPrefix;
 		this.contentField = contentField;
+		this.contentName = contentField == null ? null : new PreparedName(contentField);
 	}
 
 	/**
@@ -153,22 +222,103 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		
 		this.fieldPrefix = fieldPrefix;
       this.contentField = contentField;
+		this.contentName = contentField == null ? null : new PreparedName(contentField);
+	}
+
+	/**
+	 * Enable {@link #reset(Writer)} and pooling.
+	 * @param factory creating factory
+	 * @param generation factory configuration generation
+	 * @param origin target created by the factory's stream factory (before decoration)
+	 */
+	void setFactory(JsonXMLOutputFactory factory, int generation, JsonStreamTarget origin) {
+		this.factory = factory;
+		this.generation = generation;
+		this.origin = origin;
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	JsonStreamTarget getOrigin() {
+		return origin;
+	}
+
+	/**
+	 * Reset writer to write another document.
+	 * @param origin target created by the factory's stream factory
+	 * @param target decorated target
+	 */
+	void reset(JsonStreamTarget origin, JsonStreamTarget target) {
+		this.origin = origin;
+		this.target = target;
+		released = false;
+		documentArray = false;
+		reset(new ScopeInfo());
+	}
+
+	private JsonXMLOutputFactory resetFactory() {
+		if (factory == null) {
+			throw new IllegalStateException("Writer has not been created by a factory");
+		}
+		return factory;
+	}
+
+	/**
+	 * Reset this (closed) writer to write another document to the given writer.
+	 * The writer must have been created by a {@link JsonXMLOutputFactory}, and the
+	 * factory's configuration must not have changed since. The factory's stream factory
+	 * may reuse the previous target and its buffers. Writers returned to the factory's
+	 * pool on close (see {@link JsonXMLOutputFactory#PROP_POOL_SIZE}) must not be reset.
+	 * @param writer new output
+	 * @throws XMLStreamException
+	 * @throws IllegalStateException if the writer cannot be reset
+	 */
+	public void reset(Writer writer) throws XMLStreamException {
+		resetFactory().reset(this, writer);
+	}
+
+	/**
+	 * Reset this (closed) writer to write another (UTF-8) document to the given stream.
+	 * @param stream new output
+	 * @throws XMLStreamException
+	 * @throws IllegalStateException if the writer cannot be reset
+	 * @see #reset(Writer)
+	 */
+	public void reset(OutputStream stream) throws XMLStreamException {
+		resetFactory().reset(this, stream);
 	}
 
 	private String getFieldName(String prefix, String localName) {
 		return XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) ? localName : prefix + namespaceSeparator + localName;
 	}
+
+	/**
+	 * Answer the cached field name of an element or attribute, preparing it if necessary.
+	 * Attribute names are prefixed with the field prefix.
+	 */
+	private PreparedName getPreparedName(String prefix, String localName, boolean attribute) {
+		PreparedName name = names.get(prefix, localName, attribute);
+		if (name == null) {
+			String fieldName = getFieldName(prefix, localName);
+			name = new PreparedName(attribute ? fieldPrefix + fieldName : fieldName);
+			names.put(prefix, localName, attribute, name);
+		}
+		return name;
+	}
 	
 	@Override
 	protected ScopeInfo writeStartElementTag(String prefix, String localName, String namespaceURI) throws XMLStreamException {
 		ScopeInfo parentInfo = getScope().getInfo();
 		if (parentInfo.hasData()) {
 			if (!skipSpace || !isWhitespace(parentInfo.getData())) {
-				throw new XMLStreamException("Mixed content is not supported: '" + parentInfo.getData() + "'");
+				throw new XMLStreamException("Mixed content is not supported: '" + parentInfo.getTextPrefix() + "'");
 			}
 			parentInfo.setData(null);
 		}
-		String fieldName = getFieldName(prefix, localName);
+		PreparedName preparedName = getPreparedName(prefix, localName, false);
+		String fieldName = preparedName.getName();
 		if (getScope().isRoot() && getScope().getLastChild() != null && !documentArray) {
 			if (!fieldName.equals(parentInfo.getArrayName())) {
 				throw new XMLStreamException("Multiple roots within document");
@@ -187,7 +337,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 				writeEndArray();
 			}
 			if (!parentInfo.isArray()) {
-				target.name(fieldName);
+				target.name(preparedName);
 			} else {
 				parentInfo.incArraySize();
 			}
@@ -207,11 +357,13 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 	@Override
 	protected void writeEndElementTag() throws XMLStreamException {
 		try {
-			if (getScope().getInfo().hasData()) {
+			if (getScope().getInfo().streaming) {
+				target.endString();
+			} else if (getScope().getInfo().hasData()) {
 				if (getScope().getInfo().startObjectWritten) {
-					target.name(contentField);
+					target.name(contentName);
 				}
-				target.value(getScope().getInfo().getData());
+				writeValue(getScope().getInfo().getData());
 			}
 			if (autoEndArray && getScope().getInfo().isArray()) {
 				writeEndArray();
@@ -228,16 +380,16 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 
 	@Override
 	protected void writeAttr(String prefix, String localName, String namespaceURI, String value) throws XMLStreamException {
-		String name = XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) ? localName : prefix + namespaceSeparator + localName;
+		PreparedName name = getPreparedName(prefix, localName, true);
 		try {
 			if (!getScope().getInfo().startObjectWritten) {
 				target.startObject();
 				getScope().getInfo().startObjectWritten = true;
 			}
-			target.name(fieldPrefix + name);
+			target.name(name);
 			target.value(value);
 		} catch (IOException e) {
-			throw new XMLStreamException("Cannot write attribute: " + name, e);
+			throw new XMLStreamException("Cannot write attribute: " + getFieldName(prefix, localName), e);
 		}
 	}
 	
@@ -250,9 +402,9 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 					getScope().getInfo().startObjectWritten = true;
 				}
 				if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-					target.name(fieldPrefix + XMLConstants.XMLNS_ATTRIBUTE);
+					target.name(getPreparedName(XMLConstants.DEFAULT_NS_PREFIX, XMLConstants.XMLNS_ATTRIBUTE, true));
 				} else {
-					target.name(fieldPrefix + XMLConstants.XMLNS_ATTRIBUTE + namespaceSeparator + prefix);
+					target.name(getPreparedName(XMLConstants.XMLNS_ATTRIBUTE, prefix, true));
 				}
 				target.value(namespaceURI);
 			} catch (IOException e) {
@@ -261,6 +413,79 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		}
 	}
 	
+	private void writeValue(Object data) throws IOException {
+		if (data instanceof RawValue) {
+			((RawValue) data).writeTo(target);
+		} else {
+			target.value(data);
+		}
+	}
+
+	private void appendString(String text) throws IOException {
+		if (textChunk == null) {
+			textChunk = new char[TEXT_CHUNK_SIZE];
+		}
+		int length = text.length();
+		for (int start = 0; start < length; start += TEXT_CHUNK_SIZE) {
+			int end = Math.min(length, start + TEXT_CHUNK_SIZE);
+			text.getChars(start, end, textChunk, 0);
+			target.appendString(textChunk, 0, end - start);
+		}
+	}
+
+	/**
+	 * Add text to the current element. While the text is whitespace, a child element
+	 * may still follow, so the text is buffered. Otherwise, the element must have simple
+	 * content and the text is streamed to the target as a string value.
+	 * @param text text chunk
+	 * @throws XMLStreamException
+	 */
+	private void addText(String text) throws XMLStreamException {
+		ScopeInfo info = getScope().getInfo();
+		if (!info.streaming) {
+			if (info.isWhitespaceData() && isWhitespace(text)) {
+				info.addText(text);
+				return;
+			}
+			Object data = info.getData();
+			if (data instanceof RawValue) {
+				throw new XMLStreamException("Cannot append text to raw JSON value");
+			}
+			String lead = data.toString();
+			info.startStreaming(lead, text);
+			try {
+				if (info.startObjectWritten) {
+					target.name(contentName);
+				}
+				target.startString();
+				appendString(lead);
+			} catch (IOException e) {
+				throw new XMLStreamException("Cannot write text", e);
+			}
+		}
+		try {
+			appendString(text);
+		} catch (IOException e) {
+			throw new XMLStreamException("Cannot write text", e);
+		}
+	}
+
+	/**
+	 * Stream characters without creating a string, if the element's text is being streamed.
+	 */
+	@Override
+	public void writeCharacters(char[] text, int start, int length) throws XMLStreamException {
+		if (getScope().getInfo().streaming) {
+			try {
+				target.appendString(text, start, length);
+			} catch (IOException e) {
+				throw new XMLStreamException("Cannot write text", e);
+			}
+		} else {
+			super.writeCharacters(text, start, length);
+		}
+	}
+
 	@Override
 	protected void writeData(Object data, int type) throws XMLStreamException {
 		switch(type) {
@@ -268,7 +493,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		case XMLStreamConstants.CDATA:
 			if (getScope().isRoot() && !isStartDocumentWritten()) { // hack: allow to write simple value
 				try {
-					target.value(data);
+					writeValue(data);
 				} catch (IOException e) {
 					throw new XMLStreamException("Cannot write data", e);
 				}
@@ -281,8 +506,10 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 						throw new XMLStreamException("Mixed content is not supported: '" + data + "'");
 					}
 				} else if (getScope().getInfo().hasData()) {
-					if (data instanceof String) {
-						getScope().getInfo().addText(data.toString());
+					if (getScope().getInfo().getData() instanceof RawValue) {
+						throw new XMLStreamException("Cannot append data to raw JSON value");
+					} else if (data instanceof String) {
+						addText((String) data);
 					} else {
 						throw new XMLStreamException("Cannot append primitive data: " + data);
 					}
@@ -362,6 +589,10 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		} catch (IOException e) {
 			throw new XMLStreamException("Close failed", e);
 		}
+		if (factory != null && !released) {
+			released = true;
+			factory.release(this);
+		}
 	}
 
 	@Override
@@ -420,4 +651,32 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		}
 		super.writeCharacters(value, XMLStreamConstants.CHARACTERS);
 	}
+
+	/**
+	 * Write serialized JSON value (e.g. a cached fragment) as the current element's
+	 * content. Like a number or boolean value, it takes the element's place in its
+	 * object or array, or becomes the content field if the element has attributes.
+	 * The value is copied as is; it must be a valid JSON value.
+	 * @param json JSON value text
+	 * @throws XMLStreamException
+	 */
+	public void writeRawJson(CharSequence json) throws XMLStreamException {
+		if (getScope().getInfo().hasData()) {
+			throw new XMLStreamException("Cannot write raw JSON value");
+		}
+		super.writeCharacters(new RawValue(json, null), XMLStreamConstants.CHARACTERS);
+	}
+
+	/**
+	 * Write serialized JSON value as the current element's content.
+	 * @param json UTF-8 encoded JSON value
+	 * @throws XMLStreamException
+	 * @see #writeRawJson(CharSequence)
+	 */
+	public void writeRawJson(byte[] json) throws XMLStreamException {
+		if (getScope().getInfo().hasData()) {
+			throw new XMLStreamException("Cannot write raw JSON value");
+		}
+		super.writeCharacters(new RawValue(null, json), XMLStreamConstants.CHARACTERS);
+	}
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, thread-safe pool of idle instances, used by the factories to recycle
+ * closed readers and writers.
+ */
+class ObjectPool<T> {
+	private final ConcurrentLinkedQueue<T> instances = new ConcurrentLinkedQueue<T>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final int capacity;
+
+	/**
+	 * Create pool.
+	 * @param capacity maximum number of idle instances kept
+	 */
+	ObjectPool(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Take an idle instance from the pool.
+	 * @return instance or <code>null</code> if the pool is empty
+	 */
+	T acquire() {
+		T instance = instances.poll();
+		if (instance != null) {
+			size.decrementAndGet();
+		}
+		return instance;
+	}
+
+	/**
+	 * Return an instance to the pool. The instance is dropped if the pool is full.
+	 * @param instance idle instance
+	 */
+	void release(T instance) {
+		if (size.incrementAndGet() <= capacity) {
+			instances.offer(instance);
+		} else {
+			size.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json;
+
+import java.util.Arrays;
+
+import de.odysseus.staxon.json.stream.PreparedName;
+
+/**
+ * Cache of prepared field names, keyed by prefix, local name and whether the name
+ * is used for an attribute. Lookups neither concatenate nor allocate. The cache is
+ * cleared when it reaches its maximum size.
+ */
+class PreparedNameCache {
+	private static final class Entry {
+		final String prefix;
+		final String localName;
+		final boolean attribute;
+		final PreparedName name;
+		final Entry next;
+
+		Entry(String prefix, String localName, boolean attribute, PreparedName name, Entry next) {
+			this.prefix = prefix;
+			this.localName = localName;
+			this.attribute = attribute;
+			this.name = name;
+			this.next = next;
+		}
+	}
+
+	private final Entry[] table;
+	private final int maxSize;
+	private int size;
+
+	/**
+	 * Create cache.
+	 * @param maxSize maximum number of names (a power of two, used as table size)
+	 */
+	PreparedNameCache(int maxSize) {
+		this.table = new Entry[maxSize];
+		this.maxSize = maxSize;
+	}
+
+	private int index(String prefix, String localName, boolean attribute) {
+		int hash = prefix.hashCode() * 31 + localName.hashCode();
+		if (attribute) {
+			hash = ~hash;
+		}
+		return (hash ^ (hash >>> 16)) & (table.length - 1);
+	}
+
+	/**
+	 * Lookup name.
+	 * @return prepared name or <code>null</code>
+	 */
+	PreparedName get(String prefix, String localName, boolean attribute) {
+		for (Entry e = table[index(prefix, localName, attribute)]; e != null; e = e.next) {
+			if (e.attribute == attribute && e.localName.equals(localName) && e.prefix.equals(prefix)) {
+				return e.name;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Add name, which must not be cached yet.
+	 */
+	void put(String prefix, String localName, boolean attribute, PreparedName name) {
+		if (size == maxSize) {
+			Arrays.fill(table, null);
+			size = 0;
+		}
+		int index = index(prefix, localName, attribute);
+		table[index] = new Entry(prefix, localName, attribute, name, table[index]);
+		size++;
+	}
+}
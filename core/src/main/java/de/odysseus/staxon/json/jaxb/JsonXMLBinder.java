@@ -15,6 +15,7 @@
  */
 package de.odysseus.staxon.json.jaxb;
 
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -107,6 +108,14 @@ public class JsonXMLBinder {
 		return writer;
 	}
 
+	protected XMLStreamWriter createXMLStreamWriter(Class<?> type, JsonXML config, OutputStream stream) throws XMLStreamException, JAXBException {
+		XMLStreamWriter writer = createOutputFactory(type, config).createXMLStreamWriter(stream);
+		if (config.multiplePaths().length > 0) {
+			writer = new XMLMultipleStreamWriter(writer, !config.virtualRoot(), config.multiplePaths());
+		}
+		return writer;
+	}
+
 	public boolean isBindable(Class<?> type) {
 		return type.isAnnotationPresent(XmlRootElement.class) || type.isAnnotationPresent(XmlType.class);
 	}
@@ -163,7 +172,20 @@ public class JsonXMLBinder {
 	public void writeObject(Class<?> type, JsonXML config, JAXBContext context, Writer stream, Object value)
 			throws XMLStreamException, JAXBException {
 		checkBindable(type);
-		XMLStreamWriter writer = createXMLStreamWriter(type, config, stream);
+		writeObject(type, config, context, createXMLStreamWriter(type, config, stream), value);
+	}
+
+	/**
+	 * Write object as UTF-8 encoded JSON.
+	 */
+	public void writeObject(Class<?> type, JsonXML config, JAXBContext context, OutputStream stream, Object value)
+			throws XMLStreamException, JAXBException {
+		checkBindable(type);
+		writeObject(type, config, context, createXMLStreamWriter(type, config, stream), value);
+	}
+
+	private void writeObject(Class<?> type, JsonXML config, JAXBContext context, XMLStreamWriter writer, Object value)
+			throws XMLStreamException, JAXBException {
 		if (value == null) { // hack: write null
 			writer.writeCharacters(null);
 		} else {
@@ -210,7 +232,20 @@ public class JsonXMLBinder {
 	public void writeArray(Class<?> type, JsonXML config, JAXBContext context, Writer stream, Collection<?> collection)
 			throws XMLStreamException, JAXBException {
 		checkBindable(type);
-		XMLStreamWriter writer = createXMLStreamWriter(type, config, stream);
+		writeArray(type, config, context, createXMLStreamWriter(type, config, stream), collection);
+	}
+
+	/**
+	 * Write collection as UTF-8 encoded JSON.
+	 */
+	public void writeArray(Class<?> type, JsonXML config, JAXBContext context, OutputStream stream, Collection<?> collection)
+			throws XMLStreamException, JAXBException {
+		checkBindable(type);
+		writeArray(type, config, context, createXMLStreamWriter(type, config, stream), collection);
+	}
+
+	private void writeArray(Class<?> type, JsonXML config, JAXBContext context, XMLStreamWriter writer, Collection<?> collection)
+			throws XMLStreamException, JAXBException {
 		if (collection == null) { // hack: write null
 			writer.writeCharacters(null);
 		} else {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+/**
+ * JSON string escapes shared by the targets.
+ *
+ * <p>Quotes, backslashes and control characters are escaped; all other characters
+ * (including non-ASCII) are written as they are.</p>
+ */
+public final class JsonEscapes {
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * Escape sequences of ASCII characters (<code>null</code> if not escaped)
+	 */
+	private static final String[] ESCAPES = new String[128];
+	static {
+		char[] escape = new char[6];
+		for (char c = 0; c < ' '; c++) {
+			ESCAPES[c] = new String(escape, 0, unicodeEscape(c, escape, 0));
+		}
+		ESCAPES['"'] = "\\\"";
+		ESCAPES['\\'] = "\\\\";
+		ESCAPES['\b'] = "\\b";
+		ESCAPES['\f'] = "\\f";
+		ESCAPES['\n'] = "\\n";
+		ESCAPES['\r'] = "\\r";
+		ESCAPES['\t'] = "\\t";
+	}
+
+	/**
+	 * Answer the escape sequence of the given character.
+	 * @param c character
+	 * @return escape sequence or <code>null</code> if the character needs no escaping
+	 */
+	public static String get(char c) {
+		return c < ESCAPES.length ? ESCAPES[c] : null;
+	}
+
+	/**
+	 * Write <code>\\uXXXX</code> escape of the given character.
+	 * @param c character
+	 * @param chars destination, with room for six characters at <code>offset</code>
+	 * @param offset start index
+	 * @return index after the escape
+	 */
+	public static int unicodeEscape(char c, char[] chars, int offset) {
+		chars[offset++] = '\\';
+		chars[offset++] = 'u';
+		chars[offset++] = HEX_DIGITS[(c >> 12) & 0xF];
+		chars[offset++] = HEX_DIGITS[(c >> 8) & 0xF];
+		chars[offset++] = HEX_DIGITS[(c >> 4) & 0xF];
+		chars[offset++] = HEX_DIGITS[c & 0xF];
+		return offset;
+	}
+
+	/**
+	 * Escape the given string and enclose it in quotes.
+	 * @param value string
+	 * @return JSON string literal
+	 */
+	public static String quote(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 2);
+		builder.append('"');
+		int length = value.length();
+		int start = 0;
+		for (int i = 0; i < length; i++) {
+			String escape = get(value.charAt(i));
+			if (escape != null) {
+				builder.append(value, start, i).append(escape);
+				start = i + 1;
+			}
+		}
+		return builder.append(value, start, length).append('"').toString();
+	}
+
+	private JsonEscapes() {
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * JSON number, decoded lazily from its text.
+ *
+ * <p>The primitive accessors {@link #longValue()} and {@link #doubleValue()} do not
+ * allocate if the number fits into a <code>long</code> or can be converted exactly
+ * into a <code>double</code>. {@link #toString()} answers the original text, so a
+ * number which is read and written back passes through unchanged.</p>
+ */
+public class JsonNumber extends Number {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Powers of ten which are exactly representable as <code>double</code>
+	 */
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Largest mantissa which is exactly representable as <code>double</code> (2^53)
+	 */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	/**
+	 * Integers with at most this many digits fit into a <code>long</code>
+	 */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	private final String text;
+	private transient Number number;
+
+	/**
+	 * Create number.
+	 * @param text JSON number text
+	 */
+	public JsonNumber(String text) {
+		if (text == null || text.length() == 0) {
+			throw new NumberFormatException("Empty number");
+		}
+		this.text = text;
+	}
+
+	private int digitsStart() {
+		return text.charAt(0) == '-' ? 1 : 0;
+	}
+
+	/**
+	 * @return <code>true</code> if the number has neither fraction nor exponent
+	 */
+	public boolean isIntegral() {
+		for (int i = digitsStart(); i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if the number is integral and fits into a <code>long</code>
+	 */
+	public boolean isLong() {
+		if (!isIntegral()) {
+			return false;
+		}
+		if (text.length() - digitsStart() <= MAX_LONG_DIGITS) {
+			return true;
+		}
+		return bigIntegerValue().bitLength() < 64;
+	}
+
+	@Override
+	public int intValue() {
+		return (int) longValue();
+	}
+
+	@Override
+	public long longValue() {
+		int start = digitsStart();
+		if (text.length() - start <= MAX_LONG_DIGITS && isIntegral()) {
+			long result = 0;
+			for (int i = start; i < text.length(); i++) {
+				result = 10 * result + (text.charAt(i) - '0');
+			}
+			return start > 0 ? -result : result;
+		}
+		return getNumber().longValue();
+	}
+
+	@Override
+	public float floatValue() {
+		return Float.parseFloat(text);
+	}
+
+	@Override
+	public double doubleValue() {
+		int length = text.length();
+		int i = digitsStart();
+		long mantissa = 0;
+		int exponent = 0;
+		boolean fraction = false;
+		for (; i < length; i++) {
+			char c = text.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (mantissa >= MAX_EXACT_MANTISSA / 10) {
+					return Double.parseDouble(text);
+				}
+				mantissa = 10 * mantissa + (c - '0');
+				if (fraction) {
+					exponent--;
+				}
+			} else if (c == '.') {
+				fraction = true;
+			} else {
+				break;
+			}
+		}
+		if (i < length) { // exponent
+			i++;
+			boolean negative = false;
+			if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+				negative = text.charAt(i++) == '-';
+			}
+			int value = 0;
+			for (; i < length; i++) {
+				if (value > POWERS_OF_TEN.length) {
+					return Double.parseDouble(text);
+				}
+				value = 10 * value + (text.charAt(i) - '0');
+			}
+			exponent += negative ? -value : value;
+		}
+		double result;
+		if (exponent == 0) {
+			result = mantissa;
+		} else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+			result = mantissa * POWERS_OF_TEN[exponent];
+		} else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+			result = mantissa / POWERS_OF_TEN[-exponent];
+		} else {
+			return Double.parseDouble(text);
+		}
+		return digitsStart() > 0 ? -result : result;
+	}
+
+	/**
+	 * @return number as big integer (fraction discarded)
+	 */
+	public BigInteger bigIntegerValue() {
+		Number number = getNumber();
+		return number instanceof BigInteger ? (BigInteger) number : ((BigDecimal) number).toBigInteger();
+	}
+
+	/**
+	 * @return number as big decimal
+	 */
+	public BigDecimal bigDecimalValue() {
+		Number number = getNumber();
+		return number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal((BigInteger) number);
+	}
+
+	/**
+	 * Decode number. The result is cached.
+	 * @return {@link BigInteger} if the number is integral, {@link BigDecimal} otherwise
+	 */
+	public Number getNumber() {
+		if (number == null) {
+			number = isIntegral() ? new BigInteger(text) : new BigDecimal(text);
+		}
+		return number;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof JsonNumber && text.equals(((JsonNumber) obj).text);
+	}
+
+	@Override
+	public int hashCode() {
+		return text.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
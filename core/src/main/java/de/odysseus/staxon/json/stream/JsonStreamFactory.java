@@ -24,15 +24,26 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Properties;
 
 import javax.xml.stream.FactoryConfigurationError;
 
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
 /**
  * Abstract JSON stream ({@link JsonStreamSource} and {@link JsonStreamTarget}) factory.
  * 
  * <p>This class provides the static {@link #newFactory()} method to lookup and instantiate a default
  * implementation using the Services API (as detailed in the JAR specification).</p>
+ * 
+ * <p>Implementations provide the four abstract methods. The remaining methods take
+ * {@link JsonStreamSettings}; their default implementations ignore the settings and
+ * read or write channels and files as streams. Implementations supporting (some of) the
+ * settings or other input kinds should override them.</p>
  */
 public abstract class JsonStreamFactory {
 	private static String getMetaInfServicesClassName(Class<?> serviceInterface, ClassLoader classLoader) {
@@ -180,4 +191,191 @@ public abstract class JsonStreamFactory {
 	 * @throws IOException
 	 */
 	public abstract JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty) throws IOException;
+
+	/**
+	 * Create stream source with the given settings.
+	 * @param input
+	 * @param settings source settings
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(InputStream input, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamSource(input);
+	}
+
+	/**
+	 * Create stream source with the given settings.
+	 * @param reader
+	 * @param settings source settings
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(Reader reader, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamSource(reader);
+	}
+
+	/**
+	 * Reuse a closed source previously created by this factory to read from the given stream.
+	 * This implementation creates a new source; subclasses may reset the given source,
+	 * keeping its buffers.
+	 * @param source closed source
+	 * @param input
+	 * @param settings source settings
+	 * @return stream source (possibly <code>source</code>)
+	 * @throws IOException
+	 */
+	public JsonStreamSource resetJsonStreamSource(JsonStreamSource source, InputStream input, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamSource(input, settings);
+	}
+
+	/**
+	 * Reuse a closed source previously created by this factory to read from the given reader.
+	 * This implementation creates a new source; subclasses may reset the given source,
+	 * keeping its buffers.
+	 * @param source closed source
+	 * @param reader
+	 * @param settings source settings
+	 * @return stream source (possibly <code>source</code>)
+	 * @throws IOException
+	 */
+	public JsonStreamSource resetJsonStreamSource(JsonStreamSource source, Reader reader, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamSource(reader, settings);
+	}
+
+	/**
+	 * Create stream source reading (UTF-8) from the channel's current position.
+	 * Like the input stream variant, the source does not close the channel.
+	 * This implementation reads the channel as an input stream; subclasses may
+	 * scan the file through memory-mapped buffers.
+	 * @param channel
+	 * @param settings source settings
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(FileChannel channel, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamSource(Channels.newInputStream(channel), settings);
+	}
+
+	/**
+	 * Create stream source reading (UTF-8) from the given channel, which must be in blocking mode.
+	 * Like the input stream variant, the source does not close the channel.
+	 * This implementation reads the channel as an input stream.
+	 * @param channel
+	 * @param settings source settings
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(ReadableByteChannel channel, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamSource(Channels.newInputStream(channel), settings);
+	}
+
+	/**
+	 * Create stream source reading (UTF-8) from the given file.
+	 * The file is closed when the source is closed.
+	 * @param file
+	 * @param settings source settings
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(File file, JsonStreamSettings settings) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		try {
+			return closeWith(createJsonStreamSource(input.getChannel(), settings), input);
+		} catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	private static JsonStreamSource closeWith(JsonStreamSource source, final FileInputStream input) {
+		return new StreamSourceDelegate(source) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					input.close();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Create non-blocking stream source, which is fed (UTF-8) input in chunks.
+	 * This implementation throws an <code>UnsupportedOperationException</code>.
+	 * @param settings source settings
+	 * @return non-blocking stream source
+	 * @throws IOException
+	 */
+	public JsonStreamFeedSource createJsonStreamFeedSource(JsonStreamSettings settings) throws IOException {
+		throw new UnsupportedOperationException("Non-blocking sources are not supported by " + getClass().getName());
+	}
+
+	/**
+	 * Create stream target with the given settings.
+	 * @param output
+	 * @param pretty
+	 * @param settings target settings
+	 * @return stream target
+	 * @throws IOException
+	 */
+	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamTarget(output, pretty);
+	}
+
+	/**
+	 * Create stream target with the given settings.
+	 * @param writer
+	 * @param pretty
+	 * @param settings target settings
+	 * @return stream target
+	 * @throws IOException
+	 */
+	public JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamTarget(writer, pretty);
+	}
+
+	/**
+	 * Reuse a closed target previously created by this factory to write to the given stream.
+	 * This implementation creates a new target; subclasses may reset the given target,
+	 * keeping its buffers.
+	 * @param target closed target
+	 * @param output
+	 * @param pretty
+	 * @param settings target settings
+	 * @return stream target (possibly <code>target</code>)
+	 * @throws IOException
+	 */
+	public JsonStreamTarget resetJsonStreamTarget(JsonStreamTarget target, OutputStream output, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamTarget(output, pretty, settings);
+	}
+
+	/**
+	 * Reuse a closed target previously created by this factory to write to the given writer.
+	 * This implementation creates a new target; subclasses may reset the given target,
+	 * keeping its buffers.
+	 * @param target closed target
+	 * @param writer
+	 * @param pretty
+	 * @param settings target settings
+	 * @return stream target (possibly <code>target</code>)
+	 * @throws IOException
+	 */
+	public JsonStreamTarget resetJsonStreamTarget(JsonStreamTarget target, Writer writer, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamTarget(writer, pretty, settings);
+	}
+
+	/**
+	 * Create stream target writing (UTF-8) to the given channel, which must be in blocking mode.
+	 * Like the output stream variant, the target does not close the channel.
+	 * This implementation writes to the channel as an output stream.
+	 * @param channel
+	 * @param pretty
+	 * @param settings target settings
+	 * @return stream target
+	 * @throws IOException
+	 */
+	public JsonStreamTarget createJsonStreamTarget(WritableByteChannel channel, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return createJsonStreamTarget(Channels.newOutputStream(channel), pretty, settings);
+	}
 }
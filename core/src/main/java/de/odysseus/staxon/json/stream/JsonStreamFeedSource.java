@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.io.IOException;
+
+/**
+ * Non-blocking JSON stream source, which is fed (UTF-8) input in chunks.
+ * 
+ * <p>Instead of blocking, {@link #peek()} answers {@link JsonStreamToken#NOT_AVAILABLE}
+ * if the next token cannot be determined from the input fed so far. After feeding more
+ * input, <code>peek()</code> may be called again. Once all input has been fed,
+ * {@link #endOfInput()} must be called to let the source report the last tokens and
+ * {@link JsonStreamToken#NONE}.</p>
+ */
+public interface JsonStreamFeedSource extends JsonStreamSource {
+	/**
+	 * Feed input. The bytes are copied, so the array may be reused by the caller.
+	 * @param bytes input bytes
+	 * @param offset offset of first byte
+	 * @param length number of bytes
+	 * @throws IOException if {@link #endOfInput()} has been called before
+	 */
+	public void feed(byte[] bytes, int offset, int length) throws IOException;
+
+	/**
+	 * Signal that all input has been fed.
+	 */
+	public void endOfInput();
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+/**
+ * Settings of sources and targets created by a {@link JsonStreamFactory}: the field name
+ * symbol table, automatic flushing and the maximum nesting depth. Settings are immutable;
+ * implementations may ignore settings they do not support.
+ */
+public final class JsonStreamSettings {
+	/**
+	 * Default maximum nesting depth of objects
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 1000;
+
+	private final SymbolTable symbolTable;
+	private final boolean autoFlush;
+	private final int maxDepth;
+
+	/**
+	 * Create settings with a new symbol table, automatic flushing and default maximum depth.
+	 */
+	public JsonStreamSettings() {
+		this(new SymbolTable(), true, DEFAULT_MAX_DEPTH);
+	}
+
+	private JsonStreamSettings(SymbolTable symbolTable, boolean autoFlush, int maxDepth) {
+		if (maxDepth <= 0) {
+			throw new IllegalArgumentException("Maximum depth must be positive: " + maxDepth);
+		}
+		this.symbolTable = symbolTable;
+		this.autoFlush = autoFlush;
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Sources may use the symbol table to return canonical names from {@link JsonStreamSource#name()}.
+	 * @param symbolTable symbol table (may be <code>null</code> to disable name canonicalization)
+	 * @return settings with the given symbol table
+	 */
+	public JsonStreamSettings withSymbolTable(SymbolTable symbolTable) {
+		return new JsonStreamSettings(symbolTable, autoFlush, maxDepth);
+	}
+
+	/**
+	 * If disabled, targets flush their output only when flushed explicitly or closed.
+	 * @param autoFlush whether targets flush whenever a top-level value has been written
+	 * @return settings with the given flush mode
+	 */
+	public JsonStreamSettings withAutoFlush(boolean autoFlush) {
+		return new JsonStreamSettings(symbolTable, autoFlush, maxDepth);
+	}
+
+	/**
+	 * Sources reject deeper input and targets reject deeper output with an
+	 * <code>IOException</code>, which guards against hostile input.
+	 * @param maxDepth maximum nesting depth of objects (positive)
+	 * @return settings with the given maximum depth
+	 */
+	public JsonStreamSettings withMaxDepth(int maxDepth) {
+		return new JsonStreamSettings(symbolTable, autoFlush, maxDepth);
+	}
+
+	public SymbolTable getSymbolTable() {
+		return symbolTable;
+	}
+
+	public boolean isAutoFlush() {
+		return autoFlush;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	@Override
+	public String toString() {
+		return "JsonStreamSettings(" + (symbolTable == null ? "no symbol table" : "symbol table") + ", max depth " + maxDepth + (autoFlush ? ", auto flush" : "") + ")";
+	}
+}
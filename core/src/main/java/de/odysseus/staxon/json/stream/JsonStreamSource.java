@@ -17,6 +17,7 @@ package de.odysseus.staxon.json.stream;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.math.BigInteger;
 
 import javax.xml.stream.Location;
 
@@ -26,6 +27,12 @@ import javax.xml.stream.Location;
 public interface JsonStreamSource extends Closeable, Location {
 	/**
 	 * Represents a simple value.
+	 * <p>For number values, the type of {@link #data} depends on the source:
+	 * the default source answers a lazily decoded {@link JsonNumber}, where it used to
+	 * answer {@link BigInteger} or {@link java.math.BigDecimal}. This is a breaking change
+	 * for code casting <code>data</code>; use {@link #getNumber()} to get the previous types,
+	 * or the primitive accessors to avoid decoding. Other sources keep their own types
+	 * (e.g. {@link Long} and {@link Double} for Gson).</p>
 	 */
 	public static class Value {
 		public final String text;
@@ -52,6 +59,55 @@ public interface JsonStreamSource extends Closeable, Location {
 		public Value(String text) {
 			this(text, text);
 		}
+
+		/**
+		 * @return <code>true</code> if this is a number value
+		 */
+		public boolean isNumber() {
+			return data instanceof Number;
+		}
+
+		/**
+		 * @return <code>true</code> if this is a number value without fraction and exponent
+		 */
+		public boolean isIntegral() {
+			if (data instanceof JsonNumber) {
+				return ((JsonNumber) data).isIntegral();
+			}
+			return data instanceof Long || data instanceof Integer || data instanceof Short
+					|| data instanceof Byte || data instanceof BigInteger;
+		}
+
+		/**
+		 * Get number value as <code>long</code>. Does not allocate if the number fits.
+		 * @return number value
+		 * @throws ClassCastException if this is not a number value
+		 */
+		public long longValue() {
+			return ((Number) data).longValue();
+		}
+
+		/**
+		 * Get number value as <code>double</code>. Does not allocate if the number
+		 * is exactly representable.
+		 * @return number value
+		 * @throws ClassCastException if this is not a number value
+		 */
+		public double doubleValue() {
+			return ((Number) data).doubleValue();
+		}
+
+		/**
+		 * Get decoded number. Lazy {@link JsonNumber}s are decoded to
+		 * {@link BigInteger} or {@link java.math.BigDecimal}.
+		 * @return number or <code>null</code> if this is not a number value
+		 */
+		public Number getNumber() {
+			if (data instanceof JsonNumber) {
+				return ((JsonNumber) data).getNumber();
+			}
+			return data instanceof Number ? (Number) data : null;
+		}
 		
 		@Override
 		public String toString() {
@@ -87,6 +143,22 @@ public interface JsonStreamSource extends Closeable, Location {
 	 * @throws IOException
 	 */
 	public Value value() throws IOException;
+
+	/**
+	 * Consume a string {@link JsonStreamToken#VALUE} token in chunks, as an alternative
+	 * to {@link #value()}. Up to <code>length</code> characters of the string are copied
+	 * to the buffer. The token is consumed with the last chunk, which is shorter than
+	 * <code>length</code> (and may be empty). Other methods must not be called while
+	 * reading chunks.
+	 * If the next value is not a string, the token is not consumed and <code>-1</code> is
+	 * answered.
+	 * @param buffer chunk buffer
+	 * @param offset buffer offset
+	 * @param length maximum number of characters to copy (positive)
+	 * @return number of characters copied or <code>-1</code> if the value is not a string
+	 * @throws IOException if the next token is not a value
+	 */
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException;
 	
 	/**
 	 * Consume {@link JsonStreamToken#START_OBJECT} token.
@@ -112,6 +184,15 @@ public interface JsonStreamSource extends Closeable, Location {
 	 */
 	public void endArray() throws IOException;
 
+	/**
+	 * Skip the next value. If the next token is {@link JsonStreamToken#NAME}, the
+	 * name and its value are skipped. If the next token starts an object or array,
+	 * the entire subtree is skipped, including the closing token.
+	 * Skipped content is not decoded and may not be fully validated.
+	 * @throws IOException if the next token is neither a name nor starts a value
+	 */
+	public void skipValue() throws IOException;
+
 	/**
 	 * Peek next token.
 	 * @return token
@@ -29,6 +29,13 @@ public interface JsonStreamTarget extends Closeable, Flushable {
 	 * @throws IOException
 	 */
 	public void name(String name) throws IOException;
+
+	/**
+	 * Write prepared name.
+	 * @param name
+	 * @throws IOException
+	 */
+	public void name(PreparedName name) throws IOException;
 	
 	/**
 	 * Write value.
@@ -36,6 +43,65 @@ public interface JsonStreamTarget extends Closeable, Flushable {
 	 * @throws IOException
 	 */
 	public void value(Object value) throws IOException;
+
+	/**
+	 * Write number value.
+	 * @param value
+	 * @throws IOException
+	 */
+	public void value(long value) throws IOException;
+
+	/**
+	 * Write number value.
+	 * @param value
+	 * @throws IOException
+	 */
+	public void value(double value) throws IOException;
+
+	/**
+	 * Write boolean value.
+	 * @param value
+	 * @throws IOException
+	 */
+	public void value(boolean value) throws IOException;
+
+	/**
+	 * Write serialized JSON value as is. The caller is responsible for the value
+	 * being valid JSON; it is neither checked nor reformatted.
+	 * @param json JSON value text
+	 * @throws IOException
+	 */
+	public void rawValue(CharSequence json) throws IOException;
+
+	/**
+	 * Write serialized JSON value as is.
+	 * @param json UTF-8 encoded JSON value
+	 * @throws IOException
+	 * @see #rawValue(CharSequence)
+	 */
+	public void rawValue(byte[] json) throws IOException;
+
+	/**
+	 * Start string value, which is written in chunks via {@link #appendString(char[], int, int)}
+	 * and completed by {@link #endString()}.
+	 * @throws IOException
+	 */
+	public void startString() throws IOException;
+
+	/**
+	 * Append characters to the current string value.
+	 * @param chars characters (unescaped)
+	 * @param offset start index
+	 * @param length number of characters
+	 * @throws IOException
+	 */
+	public void appendString(char[] chars, int offset, int length) throws IOException;
+
+	/**
+	 * End string value.
+	 * @throws IOException
+	 */
+	public void endString() throws IOException;
 	
 	/**
 	 * Start object
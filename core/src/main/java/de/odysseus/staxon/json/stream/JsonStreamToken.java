@@ -52,5 +52,11 @@ public enum JsonStreamToken {
 	/**
 	 * End of input
 	 */
-	NONE;
+	NONE,
+
+	/**
+	 * More input is required to determine the next token (non-blocking sources only)
+	 * @see JsonStreamFeedSource
+	 */
+	NOT_AVAILABLE;
 }
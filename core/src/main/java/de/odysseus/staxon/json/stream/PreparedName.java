@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.nio.charset.Charset;
+
+/**
+ * Field name prepared for repeated writing.
+ *
+ * <p>Besides the name itself, a prepared name holds its JSON representation (escaped
+ * and enclosed in quotes) as chars and as UTF-8 bytes, which targets may copy to their
+ * output as is. Targets may also attach a representation of their own (e.g. Jackson's
+ * <code>SerializableString</code>), which is then reused whenever the name is written.</p>
+ */
+public final class PreparedName {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final String name;
+	private final char[] quotedChars;
+	private final byte[] quotedUtf8;
+
+	private volatile Object attachment;
+
+	/**
+	 * Create prepared name.
+	 * @param name field name
+	 */
+	public PreparedName(String name) {
+		if (name == null) {
+			throw new NullPointerException("Name must not be null");
+		}
+		this.name = name;
+		String quoted = JsonEscapes.quote(name);
+		this.quotedChars = quoted.toCharArray();
+		this.quotedUtf8 = quoted.getBytes(UTF_8);
+	}
+
+	/**
+	 * @return field name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Answer the escaped and quoted name. The array must not be modified.
+	 * @return JSON representation of the name
+	 */
+	public char[] getQuotedChars() {
+		return quotedChars;
+	}
+
+	/**
+	 * Answer the escaped and quoted name, encoded as UTF-8. The array must not be modified.
+	 * @return JSON representation of the name
+	 */
+	public byte[] getQuotedUtf8() {
+		return quotedUtf8;
+	}
+
+	/**
+	 * @return representation attached by a target (may be <code>null</code>)
+	 */
+	public Object getAttachment() {
+		return attachment;
+	}
+
+	/**
+	 * Attach a target specific representation of this name.
+	 * @param attachment representation
+	 */
+	public void setAttachment(Object attachment) {
+		this.attachment = attachment;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import de.odysseus.staxon.util.CanonicalTable;
+
+/**
+ * Bounded, thread-safe table of canonical field names.
+ *
+ * <p>A symbol table is owned by a {@link JsonStreamFactory} and shared by all sources
+ * it creates. Looking up a known name returns the canonical <code>String</code> instance
+ * without allocating. Unknown names are added; when the table's capacity is reached,
+ * it is cleared and starts over.</p>
+ *
+ * <p>Hit and miss counters may be enabled to size the table.</p>
+ */
+public class SymbolTable extends CanonicalTable<String> {
+	/**
+	 * Default capacity (number of symbols)
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * Longer names are never added to the table
+	 */
+	static final int MAX_SYMBOL_LENGTH = 256;
+
+	private static boolean matches(String symbol, char[] chars, int offset, int length) {
+		if (symbol.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (symbol.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create symbol table with default capacity.
+	 */
+	public SymbolTable() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create symbol table without statistics.
+	 * @param capacity maximum number of symbols
+	 */
+	public SymbolTable(int capacity) {
+		this(capacity, false);
+	}
+
+	/**
+	 * Create symbol table.
+	 * @param capacity maximum number of symbols
+	 * @param statistics whether to count hits and misses
+	 */
+	public SymbolTable(int capacity, boolean statistics) {
+		super(capacity, statistics);
+	}
+
+	/**
+	 * Lookup canonical name for the given characters.
+	 * @param chars character buffer
+	 * @param offset name offset
+	 * @param length name length
+	 * @return canonical name
+	 */
+	public String lookup(char[] chars, int offset, int length) {
+		if (length > MAX_SYMBOL_LENGTH) {
+			return miss(new String(chars, offset, length));
+		}
+		int hash = 0;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		for (Entry<String> entry = bucket(hash); entry != null; entry = entry.next) {
+			if (entry.hash == hash && matches(entry.value, chars, offset, length)) {
+				return hit(entry.value);
+			}
+		}
+		return add(hash, new String(chars, offset, length));
+	}
+
+	/**
+	 * Lookup canonical instance of the given name.
+	 * @param name field name
+	 * @return canonical name
+	 */
+	public String lookup(String name) {
+		if (name.length() > MAX_SYMBOL_LENGTH) {
+			return miss(name);
+		}
+		int hash = name.hashCode();
+		for (Entry<String> entry = bucket(hash); entry != null; entry = entry.next) {
+			if (entry.hash == hash && entry.value.equals(name)) {
+				return hit(entry.value);
+			}
+		}
+		return add(hash, name);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded, thread-safe pool of byte buffers of a fixed size.
+ * Allocating direct buffers is expensive, so channel sources and targets
+ * return their buffers when closed. Stream targets pool heap buffers.
+ */
+class ByteBufferPool {
+	private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final int bufferSize;
+	private final int capacity;
+	private final boolean direct;
+
+	/**
+	 * Create pool of direct buffers.
+	 * @param bufferSize size of buffers
+	 * @param capacity maximum number of idle buffers kept
+	 */
+	ByteBufferPool(int bufferSize, int capacity) {
+		this(bufferSize, capacity, true);
+	}
+
+	/**
+	 * Create pool.
+	 * @param bufferSize size of buffers
+	 * @param capacity maximum number of idle buffers kept
+	 * @param direct whether to allocate direct or heap buffers
+	 */
+	ByteBufferPool(int bufferSize, int capacity, boolean direct) {
+		if (bufferSize < 8) {
+			throw new IllegalArgumentException("Buffer size must be at least 8: " + bufferSize);
+		}
+		this.bufferSize = bufferSize;
+		this.capacity = capacity;
+		this.direct = direct;
+	}
+
+	int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * Take a buffer from the pool or allocate a new one.
+	 * @return cleared buffer
+	 */
+	ByteBuffer acquire() {
+		ByteBuffer buffer = buffers.poll();
+		if (buffer == null) {
+			return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+		}
+		size.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	/**
+	 * Return a buffer to the pool. The buffer is dropped if the pool is full.
+	 * @param buffer buffer obtained from {@link #acquire()}
+	 */
+	void release(ByteBuffer buffer) {
+		if (size.incrementAndGet() <= capacity) {
+			buffers.offer(buffer);
+		} else {
+			size.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Unsynchronized input stream reading a (blocking) channel through a pooled direct buffer.
+ * Closing the stream returns the buffer to its pool, but does not close the channel.
+ */
+class ChannelInputStream extends InputStream {
+	private final ReadableByteChannel channel;
+	private final ByteBufferPool pool;
+
+	private ByteBuffer buffer;
+	private boolean eof;
+
+	ChannelInputStream(ReadableByteChannel channel, ByteBufferPool pool) {
+		this.channel = channel;
+		this.pool = pool;
+	}
+
+	/**
+	 * Make sure the buffer has remaining bytes, read from channel if necessary.
+	 * @return <code>false</code> if the end of stream has been reached
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		if (buffer == null) {
+			if (eof) {
+				return false;
+			}
+			buffer = pool.acquire();
+			buffer.flip();
+		}
+		if (buffer.hasRemaining()) {
+			return true;
+		}
+		if (eof) {
+			return false;
+		}
+		buffer.clear();
+		int count = channel.read(buffer);
+		buffer.flip();
+		if (count < 0) {
+			eof = true;
+			return false;
+		}
+		if (count == 0) {
+			throw new IOException("No bytes read from channel (non-blocking mode?)");
+		}
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		return fill() ? buffer.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!fill()) {
+			return -1;
+		}
+		int count = Math.min(len, buffer.remaining());
+		buffer.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return buffer == null ? 0 : buffer.remaining();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (buffer != null) {
+			pool.release(buffer);
+			buffer = null;
+		}
+		eof = true;
+	}
+}
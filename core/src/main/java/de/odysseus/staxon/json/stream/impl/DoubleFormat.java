@@ -0,0 +1,325 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.math.BigInteger;
+
+/**
+ * Shortest round-trip formatting of <code>double</code> values into a char array,
+ * following Ulf Adams' Ryu algorithm (PLDI 2018). The result has the layout of
+ * {@link Double#toString(double)} (e.g. <code>"1.0"</code>, <code>"0.001"</code>,
+ * <code>"1.0E-4"</code>, <code>"1.2345678E7"</code>), but always uses the shortest
+ * digit sequence which parses back to the same value, choosing the closest one if
+ * there are several.
+ */
+final class DoubleFormat {
+	/**
+	 * Minimum length of buffers passed to {@link #format(double, char[], int)}
+	 */
+	static final int MAX_LENGTH = 24;
+
+	private static final int MANTISSA_BITS = 52;
+	private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+	private static final int EXPONENT_MASK = (1 << 11) - 1;
+	private static final int EXPONENT_BIAS = 1023;
+
+	private static final int POW5_BITCOUNT = 125;
+	private static final int POW5_INV_BITCOUNT = 125;
+	private static final int POW5_TABLE_SIZE = 326;
+	private static final int POW5_INV_TABLE_SIZE = 342;
+
+	/*
+	 * 5^i, normalized to 125 bits (high and low word)
+	 */
+	private static final long[] POW5_HIGH = new long[POW5_TABLE_SIZE];
+	private static final long[] POW5_LOW = new long[POW5_TABLE_SIZE];
+
+	/*
+	 * 2^(bitLength(5^i) - 1 + 125) / 5^i + 1 (high and low word)
+	 */
+	private static final long[] POW5_INV_HIGH = new long[POW5_INV_TABLE_SIZE];
+	private static final long[] POW5_INV_LOW = new long[POW5_INV_TABLE_SIZE];
+
+	static {
+		BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+		BigInteger five = BigInteger.valueOf(5);
+		for (int i = 0; i < POW5_INV_TABLE_SIZE; i++) {
+			BigInteger pow = five.pow(i);
+			int length = pow.bitLength();
+			if (i < POW5_TABLE_SIZE) {
+				BigInteger split = length > POW5_BITCOUNT ? pow.shiftRight(length - POW5_BITCOUNT) : pow.shiftLeft(POW5_BITCOUNT - length);
+				POW5_HIGH[i] = split.shiftRight(64).longValue();
+				POW5_LOW[i] = split.and(mask).longValue();
+			}
+			BigInteger inv = BigInteger.ONE.shiftLeft(length - 1 + POW5_INV_BITCOUNT).divide(pow).add(BigInteger.ONE);
+			POW5_INV_HIGH[i] = inv.shiftRight(64).longValue();
+			POW5_INV_LOW[i] = inv.and(mask).longValue();
+		}
+	}
+
+	private DoubleFormat() {
+	}
+
+	/**
+	 * @return bit length of 5^e (1 for e == 0)
+	 */
+	private static int pow5bits(int e) {
+		return ((e * 1217359) >>> 19) + 1;
+	}
+
+	/**
+	 * @return floor(log10(2^e))
+	 */
+	private static int log10Pow2(int e) {
+		return (e * 78913) >>> 18;
+	}
+
+	/**
+	 * @return floor(log10(5^e))
+	 */
+	private static int log10Pow5(int e) {
+		return (e * 732923) >>> 20;
+	}
+
+	private static int pow5Factor(long value) {
+		int count = 0;
+		while (value > 0 && value % 5 == 0) {
+			value /= 5;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return high word of the unsigned 128-bit product of a and b
+	 */
+	private static long multiplyHigh(long a, long b) {
+		long a0 = a & 0xFFFFFFFFL, a1 = a >>> 32;
+		long b0 = b & 0xFFFFFFFFL, b1 = b >>> 32;
+		long p01 = a0 * b1;
+		long p10 = a1 * b0;
+		long mid = ((a0 * b0) >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+		return a1 * b1 + (p01 >>> 32) + (p10 >>> 32) + (mid >>> 32);
+	}
+
+	/**
+	 * @return (m * (high * 2^64 + low)) >> j, for m < 2^55 and 64 < j < 128
+	 */
+	private static long mulShift(long m, long high, long low, int j) {
+		long high1 = multiplyHigh(m, high);
+		long sum = multiplyHigh(m, low) + m * high;
+		if ((sum ^ Long.MIN_VALUE) < ((m * high) ^ Long.MIN_VALUE)) { // unsigned overflow
+			high1++;
+		}
+		int shift = j - 64;
+		return (high1 << (64 - shift)) | (sum >>> shift);
+	}
+
+	/**
+	 * Format value.
+	 * @param value value
+	 * @param buffer buffer, with at least {@link #MAX_LENGTH} chars available at offset
+	 * @param offset start index
+	 * @return end index
+	 */
+	static int format(double value, char[] buffer, int offset) {
+		long bits = Double.doubleToRawLongBits(value);
+		long ieeeMantissa = bits & MANTISSA_MASK;
+		int ieeeExponent = (int) (bits >>> MANTISSA_BITS) & EXPONENT_MASK;
+		int pos = offset;
+		if (ieeeExponent == EXPONENT_MASK) {
+			String special = ieeeMantissa != 0 ? "NaN" : bits < 0 ? "-Infinity" : "Infinity";
+			special.getChars(0, special.length(), buffer, pos);
+			return pos + special.length();
+		}
+		if (bits < 0) {
+			buffer[pos++] = '-';
+		}
+		if (ieeeExponent == 0 && ieeeMantissa == 0) {
+			buffer[pos++] = '0';
+			buffer[pos++] = '.';
+			buffer[pos++] = '0';
+			return pos;
+		}
+
+		int e2;
+		long m2;
+		if (ieeeExponent == 0) {
+			e2 = 1 - EXPONENT_BIAS - MANTISSA_BITS - 2;
+			m2 = ieeeMantissa;
+		} else {
+			e2 = ieeeExponent - EXPONENT_BIAS - MANTISSA_BITS - 2;
+			m2 = (1L << MANTISSA_BITS) | ieeeMantissa;
+		}
+		boolean acceptBounds = (m2 & 1) == 0;
+
+		// determine the interval of valid decimal representations
+		long mv = 4 * m2;
+		long mp = mv + 2;
+		int mmShift = ieeeMantissa != 0 || ieeeExponent <= 1 ? 1 : 0;
+		long mm = mv - 1 - mmShift;
+
+		// convert to a decimal power base
+		long vr, vp, vm;
+		int e10;
+		boolean vmIsTrailingZeros = false;
+		boolean vrIsTrailingZeros = false;
+		if (e2 >= 0) {
+			int q = Math.max(0, log10Pow2(e2) - 1);
+			e10 = q;
+			int k = POW5_INV_BITCOUNT + pow5bits(q) - 1;
+			int i = -e2 + q + k;
+			vr = mulShift(mv, POW5_INV_HIGH[q], POW5_INV_LOW[q], i);
+			vp = mulShift(mp, POW5_INV_HIGH[q], POW5_INV_LOW[q], i);
+			vm = mulShift(mm, POW5_INV_HIGH[q], POW5_INV_LOW[q], i);
+			if (q <= 21) {
+				// only one of mp, mv, and mm can be a multiple of 5, if any
+				if (mv % 5 == 0) {
+					vrIsTrailingZeros = pow5Factor(mv) >= q;
+				} else if (acceptBounds) {
+					vmIsTrailingZeros = pow5Factor(mm) >= q;
+				} else if (pow5Factor(mp) >= q) {
+					vp--;
+				}
+			}
+		} else {
+			int q = Math.max(0, log10Pow5(-e2) - 1);
+			e10 = q + e2;
+			int i = -e2 - q;
+			int k = pow5bits(i) - POW5_BITCOUNT;
+			int j = q - k;
+			vr = mulShift(mv, POW5_HIGH[i], POW5_LOW[i], j);
+			vp = mulShift(mp, POW5_HIGH[i], POW5_LOW[i], j);
+			vm = mulShift(mm, POW5_HIGH[i], POW5_LOW[i], j);
+			if (q <= 1) {
+				// mv = 4 * m2 has at least two trailing zero bits
+				vrIsTrailingZeros = true;
+				if (acceptBounds) {
+					vmIsTrailingZeros = mmShift == 1;
+				} else {
+					vp--;
+				}
+			} else if (q < 63) {
+				vrIsTrailingZeros = (mv & ((1L << q) - 1)) == 0;
+			}
+		}
+
+		// find the shortest decimal representation in the interval
+		int removed = 0;
+		int lastRemovedDigit = 0;
+		long output;
+		if (vmIsTrailingZeros || vrIsTrailingZeros) {
+			while (vp / 10 > vm / 10) {
+				vmIsTrailingZeros &= vm % 10 == 0;
+				vrIsTrailingZeros &= lastRemovedDigit == 0;
+				lastRemovedDigit = (int) (vr % 10);
+				vr /= 10;
+				vp /= 10;
+				vm /= 10;
+				removed++;
+			}
+			if (vmIsTrailingZeros) {
+				while (vm % 10 == 0) {
+					vrIsTrailingZeros &= lastRemovedDigit == 0;
+					lastRemovedDigit = (int) (vr % 10);
+					vr /= 10;
+					vp /= 10;
+					vm /= 10;
+					removed++;
+				}
+			}
+			if (vrIsTrailingZeros && lastRemovedDigit == 5 && vr % 2 == 0) {
+				lastRemovedDigit = 4; // round to even if the exact number is .....50..0
+			}
+			boolean roundUp = vr == vm && (!acceptBounds || !vmIsTrailingZeros) || lastRemovedDigit >= 5;
+			output = roundUp ? vr + 1 : vr;
+		} else {
+			boolean roundUp = false;
+			while (vp / 10 > vm / 10) {
+				roundUp = vr % 10 >= 5;
+				vr /= 10;
+				vp /= 10;
+				vm /= 10;
+				removed++;
+			}
+			output = vr == vm || roundUp ? vr + 1 : vr;
+		}
+		return layout(output, e10 + removed, buffer, pos);
+	}
+
+	/**
+	 * Write <code>output * 10^exponent</code> in the layout of {@link Double#toString(double)}.
+	 */
+	private static int layout(long output, int exponent, char[] buffer, int pos) {
+		int length = 1;
+		for (long limit = 10; length < 19 && output >= limit; limit *= 10) {
+			length++;
+		}
+		int scientific = exponent + length - 1;
+		if (scientific >= -3 && scientific < 7) {
+			if (exponent >= 0) { // integral
+				pos = digits(output, length, buffer, pos);
+				for (int i = 0; i < exponent; i++) {
+					buffer[pos++] = '0';
+				}
+				buffer[pos++] = '.';
+				buffer[pos++] = '0';
+			} else if (scientific >= 0) { // point within digits
+				int point = pos + scientific + 1;
+				pos = digits(output, length, buffer, pos + 1);
+				System.arraycopy(buffer, point - scientific, buffer, point - scientific - 1, scientific + 1);
+				buffer[point] = '.';
+			} else { // leading zeros
+				buffer[pos++] = '0';
+				buffer[pos++] = '.';
+				for (int i = -1; i > scientific; i--) {
+					buffer[pos++] = '0';
+				}
+				pos = digits(output, length, buffer, pos);
+			}
+		} else {
+			int start = pos;
+			pos = digits(output, length, buffer, pos + 1);
+			buffer[start] = buffer[start + 1];
+			buffer[start + 1] = '.';
+			if (length == 1) {
+				buffer[pos++] = '0';
+			}
+			buffer[pos++] = 'E';
+			if (scientific < 0) {
+				buffer[pos++] = '-';
+				scientific = -scientific;
+			}
+			if (scientific >= 100) {
+				buffer[pos++] = (char) ('0' + scientific / 100);
+			}
+			if (scientific >= 10) {
+				buffer[pos++] = (char) ('0' + scientific / 10 % 10);
+			}
+			buffer[pos++] = (char) ('0' + scientific % 10);
+		}
+		return pos;
+	}
+
+	private static int digits(long value, int length, char[] buffer, int pos) {
+		int end = pos + length;
+		for (int i = end - 1; i >= pos; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		return end;
+	}
+}
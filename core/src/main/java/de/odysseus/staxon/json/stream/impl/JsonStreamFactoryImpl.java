@@ -19,21 +19,48 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamFeedSource;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
 
 /**
  * Default <code>JsonStreamFactory</code> implementation.
+ * Sources and targets created without settings use default settings, with a symbol
+ * table shared by this factory.
  */
 public class JsonStreamFactoryImpl extends JsonStreamFactory {
+	/**
+	 * Default size of direct buffers used for channel input and output
+	 */
+	public static final int DEFAULT_CHANNEL_BUFFER_SIZE = 8192;
+
+	/**
+	 * Size of heap buffers used for output stream targets
+	 */
+	private static final int STREAM_BUFFER_SIZE = 8192;
+
+	/**
+	 * Maximum number of idle channel (or stream) buffers kept by a factory
+	 */
+	private static final int BUFFER_POOL_CAPACITY = 32;
+
 	private final String prettyIndent;
 	private final String prettyNewline;
 	private final String prettySpace;
+	private final boolean utf8Scanner;
+	private final JsonStreamSettings defaultSettings = new JsonStreamSettings();
+
+	private volatile ByteBufferPool channelBuffers = new ByteBufferPool(DEFAULT_CHANNEL_BUFFER_SIZE, BUFFER_POOL_CAPACITY);
+	private final ByteBufferPool streamBuffers = new ByteBufferPool(STREAM_BUFFER_SIZE, BUFFER_POOL_CAPACITY, false);
 
 	/**
 	 * Create instance.
@@ -52,32 +79,210 @@ public class JsonStreamFactoryImpl extends JsonStreamFactory {
 	 * @param prettyNewline newline character sequence
 	 */
 	public JsonStreamFactoryImpl(String prettySpace, String prettyIndent, String prettyNewline) {
+		this(prettySpace, prettyIndent, prettyNewline, true);
+	}
+
+	/**
+	 * Create instance.
+	 * @param prettySpace inserted around colons, commas, etc
+	 * @param prettyIndent indentation per depth level
+	 * @param prettyNewline newline character sequence
+	 * @param utf8Scanner whether to scan input streams using the byte-level UTF-8 scanner;
+	 * if <code>false</code>, input streams are decoded and passed to the generated scanner
+	 */
+	public JsonStreamFactoryImpl(String prettySpace, String prettyIndent, String prettyNewline, boolean utf8Scanner) {
 		this.prettySpace = prettySpace;
 		this.prettyIndent = prettyIndent;
 		this.prettyNewline = prettyNewline;
+		this.utf8Scanner = utf8Scanner;
 	}
 	
+	private <T extends JsonStreamSourceImpl> T configure(T source, JsonStreamSettings settings) {
+		source.setMaxDepth(settings.getMaxDepth());
+		return source;
+	}
+
 	@Override
 	public JsonStreamSource createJsonStreamSource(InputStream input) throws IOException {
-		return createJsonStreamSource(new InputStreamReader(input, "UTF-8"));
+		return createJsonStreamSource(input, defaultSettings);
 	}
-	
+
 	@Override
 	public JsonStreamSource createJsonStreamSource(Reader reader) {
-		return new JsonStreamSourceImpl(new Yylex(reader), false);
+		return createJsonStreamSource(reader, defaultSettings);
 	}
 
 	@Override
-	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty) throws IOException {
-		return createJsonStreamTarget(new OutputStreamWriter(output, "UTF-8"), pretty);
+	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty) {
+		return createJsonStreamTarget(output, pretty, defaultSettings);
 	}
 	
 	@Override
 	public JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty) {
+		return createJsonStreamTarget(writer, pretty, defaultSettings);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(InputStream input, JsonStreamSettings settings) throws IOException {
+		if (utf8Scanner) {
+			return configure(new JsonStreamSourceImpl(new Utf8Scanner(input, settings.getSymbolTable()), false), settings);
+		}
+		return createJsonStreamSource(new InputStreamReader(input, "UTF-8"), settings);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(Reader reader, JsonStreamSettings settings) {
+		Yylex scanner = new Yylex(reader);
+		scanner.setSymbolTable(settings.getSymbolTable());
+		return configure(new JsonStreamSourceImpl(scanner, false), settings);
+	}
+
+	/**
+	 * Reset the default source created for an input stream or reader, keeping its scanner's buffers.
+	 * A source created with other settings is replaced.
+	 */
+	@Override
+	public JsonStreamSource resetJsonStreamSource(JsonStreamSource source, InputStream input, JsonStreamSettings settings) throws IOException {
+		if (!utf8Scanner) {
+			return resetJsonStreamSource(source, new InputStreamReader(input, "UTF-8"), settings);
+		}
+		if (source instanceof JsonStreamSourceImpl && ((JsonStreamSourceImpl) source).reset(input, settings.getSymbolTable())) {
+			return configure((JsonStreamSourceImpl) source, settings);
+		}
+		return createJsonStreamSource(input, settings);
+	}
+
+	/**
+	 * Reset the default source created for a reader, keeping its scanner's buffers.
+	 * A source created with other settings is replaced.
+	 */
+	@Override
+	public JsonStreamSource resetJsonStreamSource(JsonStreamSource source, Reader reader, JsonStreamSettings settings) throws IOException {
+		if (source instanceof JsonStreamSourceImpl && ((JsonStreamSourceImpl) source).reset(reader, settings.getSymbolTable())) {
+			return configure((JsonStreamSourceImpl) source, settings);
+		}
+		return createJsonStreamSource(reader, settings);
+	}
+
+	/**
+	 * Scan the file through memory-mapped windows, unless the UTF-8 scanner is disabled.
+	 */
+	@Override
+	public JsonStreamSource createJsonStreamSource(FileChannel channel, JsonStreamSettings settings) throws IOException {
+		if (utf8Scanner) {
+			return configure(new JsonStreamSourceImpl(new Utf8Scanner(new MappedFileInputStream(channel), settings.getSymbolTable()), true), settings);
+		}
+		return createJsonStreamSource(Channels.newInputStream(channel), settings);
+	}
+
+	/**
+	 * Read the channel through a pooled direct buffer, unless the UTF-8 scanner is disabled.
+	 */
+	@Override
+	public JsonStreamSource createJsonStreamSource(ReadableByteChannel channel, JsonStreamSettings settings) throws IOException {
+		if (utf8Scanner) {
+			return configure(new JsonStreamSourceImpl(new Utf8Scanner(new ChannelInputStream(channel, channelBuffers), settings.getSymbolTable()), true), settings);
+		}
+		return createJsonStreamSource(Channels.newInputStream(channel), settings);
+	}
+
+	/**
+	 * Non-blocking sources always use the UTF-8 scanner (in push mode).
+	 */
+	@Override
+	public JsonStreamFeedSource createJsonStreamFeedSource(JsonStreamSettings settings) {
+		return configure(new JsonStreamFeedSourceImpl(new Utf8Scanner(null, settings.getSymbolTable())), settings);
+	}
+
+	/**
+	 * Encode UTF-8 into a pooled heap buffer, which is written to the stream when full.
+	 */
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty, JsonStreamSettings settings) {
+		Writer writer = new Utf8Writer(output, streamBuffers);
+		return createTarget(writer, true, pretty, settings);
+	}
+
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty, JsonStreamSettings settings) {
+		return createTarget(writer, false, pretty, settings);
+	}
+
+	/**
+	 * Reset the default target created for an output stream or writer, keeping its buffers.
+	 */
+	@Override
+	public JsonStreamTarget resetJsonStreamTarget(JsonStreamTarget target, OutputStream output, boolean pretty, JsonStreamSettings settings) {
+		if (isResettable(target, pretty)) {
+			((JsonStreamTargetImpl) target).reset(new Utf8Writer(output, streamBuffers), true);
+			return configure((JsonStreamTargetImpl) target, settings);
+		}
+		return createJsonStreamTarget(output, pretty, settings);
+	}
+
+	/**
+	 * Reset the default target created for an output stream or writer, keeping its buffers.
+	 */
+	@Override
+	public JsonStreamTarget resetJsonStreamTarget(JsonStreamTarget target, Writer writer, boolean pretty, JsonStreamSettings settings) {
+		if (isResettable(target, pretty)) {
+			((JsonStreamTargetImpl) target).reset(writer, false);
+			return configure((JsonStreamTargetImpl) target, settings);
+		}
+		return createJsonStreamTarget(writer, pretty, settings);
+	}
+
+	/**
+	 * Encode UTF-8 into a pooled heap buffer, which is copied into a pooled direct buffer
+	 * and written to the channel when full. Compared to a stream from
+	 * {@link java.nio.channels.Channels#newOutputStream(WritableByteChannel)}, this saves
+	 * the JDK's temporary direct buffer per write, not the copy itself.
+	 */
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(WritableByteChannel channel, boolean pretty, JsonStreamSettings settings) {
+		Writer writer = new Utf8Writer(channel, streamBuffers, channelBuffers);
+		return createTarget(writer, true, pretty, settings);
+	}
+
+	private JsonStreamTargetImpl createTarget(Writer writer, boolean closeWriter, boolean pretty, JsonStreamSettings settings) {
+		JsonStreamTargetImpl target;
 		if (pretty) {
-			return new JsonStreamTargetImpl(writer, false, prettySpace, prettyIndent, prettyNewline);
+			target = new JsonStreamTargetImpl(writer, closeWriter, prettySpace, prettyIndent, prettyNewline);
 		} else {
-			return new JsonStreamTargetImpl(writer, false);
+			target = new JsonStreamTargetImpl(writer, closeWriter);
+		}
+		return configure(target, settings);
+	}
+
+	private JsonStreamTargetImpl configure(JsonStreamTargetImpl target, JsonStreamSettings settings) {
+		target.setAutoFlush(settings.isAutoFlush());
+		target.setMaxDepth(settings.getMaxDepth());
+		return target;
+	}
+
+	private boolean isResettable(JsonStreamTarget target, boolean pretty) {
+		if (target instanceof JsonStreamTargetImpl) {
+			boolean decorated = pretty && (prettySpace != null || prettyIndent != null || prettyNewline != null);
+			return ((JsonStreamTargetImpl) target).isPretty() == decorated;
+		}
+		return false;
+	}
+
+	/**
+	 * @return size of direct buffers used for channel input and output
+	 */
+	public int getChannelBufferSize() {
+		return channelBuffers.getBufferSize();
+	}
+
+	/**
+	 * Set size of direct buffers used for channel input and output.
+	 * Buffers are pooled and reused by subsequently created sources and targets.
+	 * @param channelBufferSize buffer size (at least 8)
+	 */
+	public void setChannelBufferSize(int channelBufferSize) {
+		if (channelBufferSize != channelBuffers.getBufferSize()) {
+			channelBuffers = new ByteBufferPool(channelBufferSize, BUFFER_POOL_CAPACITY);
 		}
 	}
 }
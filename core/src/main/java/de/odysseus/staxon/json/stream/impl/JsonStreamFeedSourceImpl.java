@@ -0,0 +1,42 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+
+import de.odysseus.staxon.json.stream.JsonStreamFeedSource;
+
+/**
+ * Default <code>JsonStreamFeedSource</code> implementation, using a push mode {@link Utf8Scanner}.
+ */
+class JsonStreamFeedSourceImpl extends JsonStreamSourceImpl implements JsonStreamFeedSource {
+	private final Utf8Scanner scanner;
+
+	JsonStreamFeedSourceImpl(Utf8Scanner scanner) {
+		super(scanner, true);
+		this.scanner = scanner;
+	}
+
+	@Override
+	public void feed(byte[] bytes, int offset, int length) throws IOException {
+		scanner.feed(bytes, offset, length);
+	}
+
+	@Override
+	public void endOfInput() {
+		scanner.endOfInput();
+	}
+}
@@ -17,11 +17,14 @@ package de.odysseus.staxon.json.stream.impl;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.BitSet;
 
+import de.odysseus.staxon.json.stream.JsonNumber;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.SymbolTable;
 
 /**
  * Default <code>JsonStreamSource</code> implementation.
@@ -43,25 +46,71 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		    TRUE,
 		    FALSE,
 		    NULL,
-		    EOF;
+		    EOF,
+		    /**
+		     * Push mode scanners only: more input is required
+		     */
+		    NOT_AVAILABLE;
 		}
 		Symbol nextSymbol() throws IOException;
-		String getText();
+		/**
+		 * Skip the rest of the array or object whose start symbol has just been scanned.
+		 * Nested strings are skipped without decoding their content.
+		 * Push mode scanners may answer <code>NOT_AVAILABLE</code>; the next call continues skipping.
+		 * @return closing symbol (<code>END_ARRAY</code> or <code>END_OBJECT</code>) or <code>EOF</code>
+		 * @throws IOException
+		 */
+		Symbol skip() throws IOException;
+		/**
+		 * Text of the current token. Scanners may answer a <code>STRING</code> symbol
+		 * before its closing quote has been scanned; the rest is scanned here.
+		 * @return text
+		 * @throws IOException
+		 */
+		String getText() throws IOException;
+		/**
+		 * Text of the current <code>STRING</code> token used as a field name.
+		 * Scanners using a symbol table answer canonical instances.
+		 * @return name
+		 * @throws IOException
+		 */
+		String getName() throws IOException;
+		/**
+		 * Copy the next chunk of the current <code>STRING</code> token's text, scanning
+		 * the string as far as necessary.
+		 * @param buffer target buffer
+		 * @param offset buffer offset
+		 * @param length maximum number of characters
+		 * @return number of characters copied, less than <code>length</code> at the end of the string
+		 * @throws IOException
+		 */
+		int readText(char[] buffer, int offset, int length) throws IOException;
 
+		/*
+		 * Location of the current token (zero-based), <code>-1</code> if unknown
+		 */
 		int getCharOffset();
 		int getLineNumber();
 		int getColumnNumber();
 	}
 	
 	private final Scanner scanner;
-	private final boolean[] arrays = new boolean[64];
+	private final BitSet arrays = new BitSet(); // array flags per object depth
 	private final boolean closeScanner;
+	private int maxDepth = Integer.MAX_VALUE;
 
 	private JsonStreamToken token = null;
 	private Scanner.Symbol symbol = null;
 	private int depth = 0;
 	private boolean peeked = false;
 
+	/*
+	 * State to resume after the scanner answered NOT_AVAILABLE (push mode)
+	 */
+	private Scanner.Symbol separator = null; // consumed COLON or COMMA
+	private Scanner.Symbol pendingSkip = null; // closing symbol of skipped array or object
+	private boolean skipNextValue = false; // name has been skipped, but not its value
+
 	private int lineNumber;
 	private int columnNumber;
 	private int charOffset;
@@ -75,6 +124,85 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		this.charOffset = scanner.getCharOffset();
 	}
 
+	/**
+	 * @param maxDepth maximum nesting depth of objects
+	 */
+	void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * Reset this source to read from the given reader, reusing its scanner and buffers.
+	 * Sources closing their scanner or not scanning characters cannot be reset.
+	 * @param reader new input
+	 * @return <code>false</code> if this source cannot be reset to read from a reader
+	 */
+	boolean reset(Reader reader) {
+		if (closeScanner || !(scanner instanceof Yylex)) {
+			return false;
+		}
+		((Yylex) scanner).reset(reader);
+		reset();
+		return true;
+	}
+
+	/**
+	 * Reset this source to read from the given reader with the given scanner settings.
+	 * @param reader new input
+	 * @param symbols symbol table (may be <code>null</code>)
+	 * @return <code>false</code> if this source cannot be reset to read from a reader
+	 * @see #reset(Reader)
+	 */
+	boolean reset(Reader reader, SymbolTable symbols) {
+		if (scanner instanceof Yylex) {
+			((Yylex) scanner).setSymbolTable(symbols);
+		}
+		return reset(reader);
+	}
+
+	/**
+	 * Reset this source to read from the given (UTF-8) input stream, reusing its scanner and buffers.
+	 * Sources closing their scanner or not scanning bytes cannot be reset.
+	 * @param input new input
+	 * @return <code>false</code> if this source cannot be reset to read from an input stream
+	 */
+	boolean reset(InputStream input) {
+		if (closeScanner || !(scanner instanceof Utf8Scanner)) {
+			return false;
+		}
+		((Utf8Scanner) scanner).reset(input);
+		reset();
+		return true;
+	}
+
+	/**
+	 * Reset this source to read from the given input stream with the given scanner settings.
+	 * @param input new input
+	 * @param symbols symbol table (may be <code>null</code>)
+	 * @return <code>false</code> if this source cannot be reset to read from an input stream
+	 * @see #reset(InputStream)
+	 */
+	boolean reset(InputStream input, SymbolTable symbols) {
+		if (scanner instanceof Utf8Scanner) {
+			((Utf8Scanner) scanner).setSymbolTable(symbols);
+		}
+		return reset(input);
+	}
+
+	private void reset() {
+		token = null;
+		symbol = null;
+		depth = 0;
+		peeked = false;
+		separator = null;
+		pendingSkip = null;
+		skipNextValue = false;
+		arrays.clear();
+		lineNumber = scanner.getLineNumber();
+		columnNumber = scanner.getColumnNumber();
+		charOffset = scanner.getCharOffset();
+	}
+
 	private JsonStreamToken startJsonValue() throws IOException {
 		switch (symbol) {
 		case FALSE:
@@ -84,12 +212,15 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		case STRING:
 			return JsonStreamToken.VALUE;
 		case START_ARRAY:
-			if (arrays[depth]) {
+			if (arrays.get(depth)) {
 				throw new IOException("Already in an array");
 			}
-			arrays[depth] = true;
+			arrays.set(depth);
 			return JsonStreamToken.START_ARRAY;
 		case START_OBJECT:
+			if (depth == maxDepth) {
+				throw new IOException("Maximum depth exceeded: " + maxDepth);
+			}
 			depth++;
 			return JsonStreamToken.START_OBJECT;
 		default:
@@ -103,10 +234,31 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		}		
 	}
 
+	private JsonStreamToken afterComma() throws IOException {
+		if (arrays.get(depth)) {
+			return startJsonValue();
+		} else {
+			require(Scanner.Symbol.STRING);
+			return JsonStreamToken.NAME;
+		}
+	}
+
 	private JsonStreamToken next() throws IOException {
-		symbol = scanner.nextSymbol();
+		if (pendingSkip != null && !skip(pendingSkip)) {
+			return JsonStreamToken.NOT_AVAILABLE;
+		}
+		Scanner.Symbol next = scanner.nextSymbol();
+		if (next == Scanner.Symbol.NOT_AVAILABLE) {
+			return JsonStreamToken.NOT_AVAILABLE;
+		}
+		symbol = next;
+		if (separator != null) {
+			Scanner.Symbol separator = this.separator;
+			this.separator = null;
+			return separator == Scanner.Symbol.COLON ? startJsonValue() : afterComma();
+		}
 		if (symbol == Scanner.Symbol.EOF) {
-			if (depth != 0 || arrays[depth]) {
+			if (depth != 0 || arrays.get(depth)) {
 				throw new IOException("Premature EOF");
 			}
 			return JsonStreamToken.NONE;
@@ -117,28 +269,23 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		switch (token) {
 		case NAME:
 			require(Scanner.Symbol.COLON);
-			symbol = scanner.nextSymbol();
-			return startJsonValue();
+			separator = Scanner.Symbol.COLON;
+			return next();
 		case END_OBJECT:
 		case END_ARRAY:
 		case VALUE:
 			switch (symbol) {
 			case COMMA:
-				symbol = scanner.nextSymbol();
-				if (arrays[depth]) {
-					return startJsonValue();
-				} else {
-					require(Scanner.Symbol.STRING);
-					return JsonStreamToken.NAME;
-				}
+				separator = Scanner.Symbol.COMMA;
+				return next();
 			case END_ARRAY:
-				if (!arrays[depth]) {
+				if (!arrays.get(depth)) {
 					throw new IOException("Not in an array");
 				}
-				arrays[depth] = false;
+				arrays.clear(depth);
 				return JsonStreamToken.END_ARRAY;
 			case END_OBJECT:
-				if (arrays[depth]) {
+				if (arrays.get(depth)) {
 					throw new IOException("Unclosed array");
 				}
 				if (depth == 0) {
@@ -162,7 +309,7 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		case START_ARRAY:
 			switch (symbol) {
 			case END_ARRAY:
-				arrays[depth] = false;
+				arrays.clear(depth);
 				return JsonStreamToken.END_ARRAY;
 			default:
 				return startJsonValue();
@@ -197,38 +344,109 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 	
 	@Override
 	public String name() throws IOException {
+		String name = peek() == JsonStreamToken.NAME ? scanner.getName() : null; // scan before taking location
 		poll(JsonStreamToken.NAME);
-		return scanner.getText();
+		return name;
 	}
 
 	@Override
 	public Value value() throws IOException {
+		String text = peek() == JsonStreamToken.VALUE ? scanner.getText() : null; // scan before taking location
 		poll(JsonStreamToken.VALUE);
 		switch (symbol) {
 		case NULL:
 			return NULL;
 		case STRING:
-			return new Value(scanner.getText());
+			return new Value(text);
 		case TRUE:
 			return TRUE;
 		case FALSE:
 			return FALSE;
 		case NUMBER:
-			if (scanner.getText().indexOf('.') < 0 && scanner.getText().toLowerCase().indexOf('e') < 0) {
-				return new Value(scanner.getText(), new BigInteger(scanner.getText()));
-			} else {
-				return new Value(scanner.getText(), new BigDecimal(scanner.getText()));
-			}
+			// decoding is deferred; the text, the number and the value are still allocated
+			return new Value(text, new JsonNumber(text));
 		default:
 			throw new IOException("Not a value token: " + symbol);
 		}
 	}
 
+	@Override
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException {
+		if (peek() != JsonStreamToken.VALUE) {
+			throw new IOException("Unexpected token: " + peek());
+		}
+		if (symbol != Scanner.Symbol.STRING) {
+			return -1;
+		}
+		int count = scanner.readText(buffer, offset, length);
+		if (count < length) {
+			poll(JsonStreamToken.VALUE);
+		}
+		return count;
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		poll(JsonStreamToken.START_OBJECT);
 	}
 
+	/**
+	 * Skip to the end of the object or array which has just been started.
+	 * The closing token becomes the current token.
+	 * @param expected closing symbol
+	 * @return <code>false</code> if the scanner needs more input (skipping continues on next call)
+	 * @throws IOException
+	 */
+	private boolean skip(Scanner.Symbol expected) throws IOException {
+		Scanner.Symbol next = scanner.skip();
+		if (next == Scanner.Symbol.NOT_AVAILABLE) {
+			pendingSkip = expected;
+			return false;
+		}
+		pendingSkip = null;
+		symbol = next;
+		if (symbol == Scanner.Symbol.EOF) {
+			throw new IOException("Premature EOF");
+		}
+		require(expected);
+		lineNumber = scanner.getLineNumber();
+		columnNumber = scanner.getColumnNumber();
+		charOffset = scanner.getCharOffset();
+		return true;
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		JsonStreamToken next = peek();
+		switch (next) {
+		case NAME:
+			poll(JsonStreamToken.NAME);
+			if (peek() == JsonStreamToken.NOT_AVAILABLE) {
+				skipNextValue = true;
+			} else {
+				skipValue();
+			}
+			break;
+		case VALUE:
+			poll(JsonStreamToken.VALUE);
+			break;
+		case START_OBJECT:
+			poll(JsonStreamToken.START_OBJECT);
+			depth--;
+			token = JsonStreamToken.END_OBJECT;
+			skip(Scanner.Symbol.END_OBJECT);
+			break;
+		case START_ARRAY:
+			poll(JsonStreamToken.START_ARRAY);
+			arrays.clear(depth);
+			token = JsonStreamToken.END_ARRAY;
+			skip(Scanner.Symbol.END_ARRAY);
+			break;
+		default:
+			throw new IOException("Not a value token: " + next);
+		}
+	}
+
 	@Override
 	public void endObject() throws IOException {
 		poll(JsonStreamToken.END_OBJECT);
@@ -246,21 +464,29 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 	
 	@Override
 	public JsonStreamToken peek() throws IOException {
-		if (!peeked) {
-			token = next();
+		while (!peeked) {
+			JsonStreamToken next = next();
+			if (next == JsonStreamToken.NOT_AVAILABLE) {
+				return next; // keep current token to resume
+			}
+			token = next;
 			peeked = true;
+			if (skipNextValue) {
+				skipNextValue = false;
+				skipValue();
+			}
 		}
 		return token;
 	}
 	
 	@Override
 	public int getLineNumber() {
-		return lineNumber + 1;
+		return lineNumber < 0 ? -1 : lineNumber + 1;
 	}
 	
 	@Override
 	public int getColumnNumber() {
-		return columnNumber + 1;
+		return columnNumber < 0 ? -1 : columnNumber + 1;
 	}
 	
 	@Override
@@ -17,20 +17,46 @@ package de.odysseus.staxon.json.stream.impl;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
+import de.odysseus.staxon.json.stream.JsonEscapes;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 /**
  * Default <code>JsonStreamTarget</code> implementation.
  */
 class JsonStreamTargetImpl implements JsonStreamTarget {
-	private final Writer writer;
-	private final int[] namePos = new int[64];
-	private final int[] arrayPos = new int[64];
-	private final StringBuilder buffer = new StringBuilder();
-	private final boolean closeWriter;
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Decimals with at most this many digits are formatted from their unscaled <code>long</code>
+	 */
+	private static final int MAX_LONG_DIGITS = 18;
+
+	/**
+	 * Scratch buffer for number formatting, large enough for plain <code>BigDecimal</code>
+	 * layouts of up to 18 digits (sign, <code>"0."</code> and five zeros)
+	 */
+	private final char[] digits = new char[Math.max(DoubleFormat.MAX_LENGTH, MAX_LONG_DIGITS + 8)];
+
+	/**
+	 * Initial capacity of the nesting stacks, which grow on demand
+	 */
+	private static final int INITIAL_DEPTH = 8;
+
+	private Writer writer;
+	private int[] namePos = new int[INITIAL_DEPTH];
+	private int[] arrayPos = new int[INITIAL_DEPTH];
+	private boolean closeWriter;
+	private boolean autoFlush = true;
+	private int maxDepth = Integer.MAX_VALUE;
 	
-	private final String[] indent;
+	private String[] indent; // indentation per depth, computed on demand
+	private final String prettyIndent;
+	private final String prettyNewline;
 	private final String space;
 
 	private int depth = 0;
@@ -43,59 +69,114 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		this.writer = writer;
 		this.closeWriter = closeWriter;
 		this.space = prettySpace;
+		this.prettyIndent = prettyIndent;
+		this.prettyNewline = prettyNewline;
 		
 		if (prettyIndent != null || prettyNewline != null) {
-			this.indent = new String[64];
-			StringBuilder builder = new StringBuilder();
-			if (prettyNewline != null) {
-				builder.append(prettyNewline);
-			}
-			for (int i = 0; i < 64; i++) {
-				indent[i] = builder.toString();
-				if (prettyIndent != null) {
-					builder.append(prettyIndent);
-				}
-			}
+			this.indent = new String[INITIAL_DEPTH];
+			this.indent[0] = prettyNewline == null ? "" : prettyNewline;
 		} else {
 			this.indent = null;
 		}
 	}
+
+	/**
+	 * Answer indentation for the given depth, extending the table if necessary.
+	 */
+	private String indent(int depth) {
+		if (depth >= indent.length) {
+			indent = Arrays.copyOf(indent, Math.max(depth + 1, indent.length * 2));
+		}
+		if (indent[depth] == null) {
+			indent[depth] = prettyIndent == null ? indent(depth - 1) : indent(depth - 1) + prettyIndent;
+		}
+		return indent[depth];
+	}
 	
-	private String encode(String value) {
-		buffer.setLength(0);
-		for (int i = 0; i < value.length(); i++) {
+	/**
+	 * Reset this target to write to the given writer, reusing its buffers.
+	 * @param writer new output
+	 * @param closeWriter whether to close the writer when closing this target
+	 */
+	void reset(Writer writer, boolean closeWriter) {
+		this.writer = writer;
+		this.closeWriter = closeWriter;
+		Arrays.fill(namePos, 0);
+		Arrays.fill(arrayPos, 0);
+		depth = 0;
+	}
+
+	/**
+	 * @param maxDepth maximum nesting depth of objects
+	 */
+	void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
+
+	/**
+	 * @param autoFlush whether to flush the writer whenever a top-level object has been written
+	 */
+	void setAutoFlush(boolean autoFlush) {
+		this.autoFlush = autoFlush;
+	}
+
+	/**
+	 * @return <code>true</code> if this target decorates its output
+	 */
+	boolean isPretty() {
+		return indent != null || space != null;
+	}
+
+	/**
+	 * Write string with JSON escapes. Runs of characters which need no escaping
+	 * are written to the writer as is.
+	 * @param value string
+	 * @throws IOException
+	 */
+	private void writeEscaped(String value) throws IOException {
+		int length = value.length();
+		int start = 0;
+		for (int i = 0; i < length; i++) {
 			char c = value.charAt(i);
-			switch (c) {
-			case '"':
-				buffer.append("\\\"");
-				break;
-			case '\\':
-				buffer.append("\\\\");
-				break;
-			case '\b':
-				buffer.append("\\b");
-				break;
-			case '\f':
-				buffer.append("\\f");
-				break;
-			case '\n':
-				buffer.append("\\n");
-				break;
-			case '\r':
-				buffer.append("\\r");
-				break;
-			case '\t':
-				buffer.append("\\t");
-				break;
-			default:
-				if (c < ' ') {
-					buffer.append(String.format("\\u%04X", (int) c));
-				} else {
-					buffer.append(c);
+			String escape = JsonEscapes.get(c);
+			if (escape != null) {
+				if (i > start) {
+					writer.write(value, start, i - start);
+				}
+				writer.write(escape);
+				start = i + 1;
+			}
+		}
+		if (start < length) {
+			writer.write(value, start, length - start);
+		}
+	}
+
+	/**
+	 * Write characters with JSON escapes.
+	 * @param chars characters
+	 * @param offset start index
+	 * @param length number of characters
+	 * @throws IOException
+	 * @see #writeEscaped(String)
+	 */
+	private void writeEscaped(char[] chars, int offset, int length) throws IOException {
+		int end = offset + length;
+		int start = offset;
+		for (int i = offset; i < end; i++) {
+			char c = chars[i];
+			String escape = JsonEscapes.get(c);
+			if (escape != null) {
+				if (i > start) {
+					writer.write(chars, start, i - start);
 				}
+				writer.write(escape);
+				start = i + 1;
 			}
 		}
-		return buffer.toString();
+		if (start < end) {
+			writer.write(chars, start, end - start);
+		}
 	}
 
 	@Override
@@ -112,20 +193,19 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		writer.flush();
 	}
 
-	@Override
-	public void name(String name) throws IOException {
+	private void startName() throws IOException {
 		if (namePos[depth] > 1) {
 			writer.write(',');
 		}
 		namePos[depth]++;
 		if (indent != null) {
-			writer.write(indent[depth]);
+			writer.write(indent(depth));
 		} else if (space != null) {
 			writer.write(space);
 		}
-		writer.write('"');
-		writer.write(name);
-		writer.write('"');
+	}
+
+	private void endName() throws IOException {
 		if (space != null) {
 			writer.write(space);
 		}
@@ -133,7 +213,81 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 	}
 
 	@Override
-	public void value(Object value) throws IOException {
+	public void name(String name) throws IOException {
+		startName();
+		writer.write('"');
+		writeEscaped(name);
+		writer.write('"');
+		endName();
+	}
+
+	/**
+	 * Copy the name's quoted representation; UTF-8 bytes go to the byte encoder as is.
+	 */
+	@Override
+	public void name(PreparedName name) throws IOException {
+		startName();
+		if (writer instanceof Utf8Writer) {
+			((Utf8Writer) writer).writeRaw(name.getQuotedUtf8());
+		} else {
+			char[] quoted = name.getQuotedChars();
+			writer.write(quoted, 0, quoted.length);
+		}
+		endName();
+	}
+
+	/**
+	 * Write <code>unscaled * 10^-scale</code> in plain notation without allocating.
+	 * @param unscaled unscaled value
+	 * @param scale number of fraction digits (non-negative)
+	 * @throws IOException
+	 */
+	private void writeScaled(long unscaled, int scale) throws IOException {
+		int pos = digits.length;
+		long rest = unscaled < 0 ? unscaled : -unscaled; // negative, to cover Long.MIN_VALUE
+		int count = 0;
+		do {
+			if (count == scale && count > 0) {
+				digits[--pos] = '.';
+			}
+			digits[--pos] = (char) ('0' - rest % 10);
+			rest /= 10;
+			count++;
+		} while (rest != 0 || count <= scale);
+		if (unscaled < 0) {
+			digits[--pos] = '-';
+		}
+		writer.write(digits, pos, digits.length - pos);
+	}
+
+	/**
+	 * Write decimal in the layout of {@link BigDecimal#toString()}. Plain values of
+	 * at most 18 digits are formatted from their unscaled <code>long</code>.
+	 * 
+	 * <p>For values with fraction digits, the unscaled value is taken from a temporary
+	 * <code>scaleByPowerOfTen(scale)</code>. That temporary is a compact decimal without a
+	 * digit array, and escape analysis removes it once this method has been compiled
+	 * (no allocation per value on HotSpot). {@link BigDecimal#longValue()} and
+	 * {@link BigDecimal#unscaledValue()} are no alternative: for a non-zero scale they
+	 * build a <code>BigInteger</code>, which is not eliminated.</p>
+	 * @param value decimal
+	 * @throws IOException
+	 */
+	private void writeDecimal(BigDecimal value) throws IOException {
+		int scale = value.scale();
+		int precision = value.precision();
+		if (scale < 0 || precision > MAX_LONG_DIGITS || precision - scale < -5) { // scientific notation
+			writer.write(value.toString());
+		} else {
+			writeScaled(scale == 0 ? value.longValue() : value.scaleByPowerOfTen(scale).longValue(), scale);
+		}
+	}
+
+	private void writeDouble(double value) throws IOException {
+		writer.write(digits, 0, DoubleFormat.format(value, digits, 0));
+	}
+
+	private void startValue() throws IOException {
 		if (arrayPos[depth] > 0) {
 			if (arrayPos[depth] > 1) {
 				writer.write(',');
@@ -143,17 +297,85 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		if (space != null) {
 			writer.write(space);
 		}
+	}
+
+	@Override
+	public void value(Object value) throws IOException {
+		startValue();
 		if (value == null) {
 			writer.write("null");
 		} else if (value instanceof String) {
 			writer.write('"');
-			writer.write(encode((String) value));
+			writeEscaped((String) value);
 			writer.write('"');
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			writeScaled(((Number) value).longValue(), 0);
+		} else if (value instanceof Double) {
+			writeDouble(((Double) value).doubleValue());
+		} else if (value instanceof BigDecimal) {
+			writeDecimal((BigDecimal) value);
 		} else {
 			writer.write(value.toString());
 		}
 	}
 
+	@Override
+	public void value(long value) throws IOException {
+		startValue();
+		writeScaled(value, 0);
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		startValue();
+		writeDouble(value);
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		startValue();
+		writer.write(value ? "true" : "false");
+	}
+
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		startValue();
+		if (json instanceof String) {
+			writer.write((String) json);
+		} else {
+			writer.append(json);
+		}
+	}
+
+	/**
+	 * Copy the value's bytes to the byte encoder as is, decode them for other writers.
+	 */
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		startValue();
+		if (writer instanceof Utf8Writer) {
+			((Utf8Writer) writer).writeRaw(json);
+		} else {
+			writer.write(new String(json, UTF_8));
+		}
+	}
+
+	@Override
+	public void startString() throws IOException {
+		startValue();
+		writer.write('"');
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		writeEscaped(chars, offset, length);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		writer.write('"');
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		if (arrayPos[depth] > 0) {
@@ -165,8 +387,15 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		if (space != null && (depth > 0 || arrayPos[depth] > 0)) {
 			writer.write(space);
 		}
+		if (depth == maxDepth) {
+			throw new IOException("Maximum depth exceeded: " + maxDepth);
+		}
 		writer.write('{');
 		depth++;
+		if (depth == namePos.length) {
+			namePos = Arrays.copyOf(namePos, depth * 2);
+			arrayPos = Arrays.copyOf(arrayPos, depth * 2);
+		}
 		namePos[depth] = 1;
 	}
 
@@ -175,12 +404,12 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		namePos[depth] = 0;
 		depth--;
 		if (indent != null) {
-			writer.write(indent[depth]);
+			writer.write(indent(depth));
 		} else if (space != null) {
 			writer.write(space);
 		}
 		writer.write('}');
-		if (depth == 0) {
+		if (depth == 0 && autoFlush) {
 			writer.flush();
 		}
 	}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream reading a file channel through memory-mapped windows.
+ *
+ * <p>The file is mapped in windows of (at most) the given size, starting at the
+ * channel's position at creation time. When a window has been consumed, the next
+ * one is mapped, so files larger than 2 GB can be read. Reads are bulk copies from
+ * the current window; there are no system calls and no locking except for mapping.</p>
+ *
+ * <p>Closing the stream releases the current window, but does not close the channel.</p>
+ * 
+ * <p>Java offers no API to unmap a buffer; a mapping normally lives until its buffer has
+ * been garbage collected. Therefore, consumed windows and the window released by
+ * {@link #close()} are unmapped explicitly, using the JDK's internal cleaner (looked up
+ * reflectively: <code>sun.misc.Unsafe.invokeCleaner()</code> on Java 9 and later,
+ * <code>sun.nio.ch.DirectBuffer.cleaner()</code> before). If neither is available (see
+ * {@link #isUnmapSupported()}), windows stay mapped until collected, which may hold
+ * address space and keep the file from being deleted on some platforms. Since accessing
+ * an unmapped buffer crashes the VM, the stream must not be closed while another thread
+ * is reading from it.</p>
+ */
+class MappedFileInputStream extends InputStream {
+	static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Java 9 <code>Unsafe.invokeCleaner(ByteBuffer)</code> or Java 6 <code>DirectBuffer.cleaner()</code>
+	 * (<code>null</code> if not available)
+	 */
+	private static final Method CLEANER;
+
+	/**
+	 * <code>Unsafe</code> instance for Java 9 or later, <code>null</code> before
+	 */
+	private static final Object UNSAFE;
+
+	/**
+	 * Java 6 <code>sun.misc.Cleaner.clean()</code>
+	 */
+	private static final Method CLEAN;
+
+	static {
+		Method cleaner = null;
+		Object unsafe = null;
+		Method clean = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			cleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+		} catch (Throwable e) {
+			cleaner = null;
+			unsafe = null;
+			try {
+				cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+				clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+			} catch (Throwable e2) {
+				cleaner = null;
+				clean = null;
+			}
+		}
+		CLEANER = cleaner;
+		UNSAFE = unsafe;
+		CLEAN = clean;
+	}
+
+	/**
+	 * @return <code>true</code> if windows are unmapped explicitly on this platform
+	 */
+	static boolean isUnmapSupported() {
+		return CLEANER != null;
+	}
+
+	/**
+	 * Unmap the given window, if supported. The window must not be accessed afterwards.
+	 * Failures are ignored; the window is then unmapped when collected.
+	 * @param window mapped buffer
+	 */
+	private static void unmap(MappedByteBuffer window) {
+		if (CLEANER != null) {
+			try {
+				if (UNSAFE != null) {
+					CLEANER.invoke(UNSAFE, window);
+				} else {
+					Object cleaner = CLEANER.invoke(window);
+					if (cleaner != null) {
+						CLEAN.invoke(cleaner);
+					}
+				}
+			} catch (Throwable e) {
+				// do nothing
+			}
+		}
+	}
+
+	private final FileChannel channel;
+	private final long size;
+	private final int windowSize;
+
+	private long offset; // file offset of the next window
+	private MappedByteBuffer window;
+
+	MappedFileInputStream(FileChannel channel) throws IOException {
+		this(channel, DEFAULT_WINDOW_SIZE);
+	}
+
+	MappedFileInputStream(FileChannel channel, int windowSize) throws IOException {
+		if (windowSize <= 0) {
+			throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+		}
+		this.channel = channel;
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		this.offset = channel.position();
+	}
+
+	/**
+	 * Make sure the current window has remaining bytes, map next window if necessary.
+	 * @return <code>false</code> if the end of file has been reached
+	 * @throws IOException
+	 */
+	private boolean window() throws IOException {
+		if (window != null && window.hasRemaining()) {
+			return true;
+		}
+		release();
+		if (offset >= size) {
+			return false;
+		}
+		int length = (int) Math.min(windowSize, size - offset);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+		offset += length;
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		return window() ? window.get() & 0xFF : -1;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!window()) {
+			return -1;
+		}
+		int count = Math.min(len, window.remaining());
+		window.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long remaining = window == null ? 0 : window.remaining();
+		if (n <= remaining) {
+			window.position(window.position() + (int) n);
+			return n;
+		}
+		long skipped = Math.min(n, remaining + size - offset);
+		offset += skipped - remaining;
+		release();
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		long remaining = (window == null ? 0 : window.remaining()) + size - offset;
+		return (int) Math.min(remaining, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Drop and unmap the current window.
+	 */
+	private void release() {
+		MappedByteBuffer window = this.window;
+		if (window != null) {
+			this.window = null;
+			unmap(window);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		release();
+		offset = size;
+	}
+}
@@ -0,0 +1,775 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import de.odysseus.staxon.json.stream.SymbolTable;
+
+/**
+ * Hand-written scanner, tokenizing UTF-8 encoded bytes.
+ *
+ * <p>In contrast to the generated {@link Yylex} scanner, this scanner does not
+ * decode its input into a character stream. Only string and number tokens are
+ * decoded into a reusable character buffer, and strings are created lazily on
+ * {@link #getText()}. Field names are looked up in a shared {@link SymbolTable}, if
+ * available.</p>
+ *
+ * <p>Long strings are scanned in chunks of {@link #TEXT_CHUNK_SIZE} characters: a
+ * <code>STRING</code> symbol is answered after the first chunk, and the rest of the
+ * string is scanned by {@link #getText()} or chunk-wise by {@link #readText(char[], int, int)}.</p>
+ *
+ * <p>Location information matches {@link Yylex}: line and column numbers are
+ * zero-based, character offsets count UTF-16 code units.</p>
+ *
+ * <p>A scanner created without input stream operates in push mode: input is
+ * {@link #feed(byte[], int, int) fed} in chunks, and the scanner answers
+ * {@link Symbol#NOT_AVAILABLE} instead of blocking if a symbol is incomplete.
+ * Incomplete symbols are rescanned when more input is available, except for
+ * strings, which are continued where decoding stopped.</p>
+ */
+class Utf8Scanner implements JsonStreamSourceImpl.Scanner {
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	static final int TEXT_CHUNK_SIZE = 8192;
+
+	/**
+	 * Hex digit values, <code>-1</code> for non-hex characters
+	 */
+	private static final int[] HEX = new int[128];
+	static {
+		for (int i = 0; i < HEX.length; i++) {
+			HEX[i] = -1;
+		}
+		for (int i = '0'; i <= '9'; i++) {
+			HEX[i] = i - '0';
+		}
+		for (int i = 'a'; i <= 'f'; i++) {
+			HEX[i] = i - 'a' + 10;
+		}
+		for (int i = 'A'; i <= 'F'; i++) {
+			HEX[i] = i - 'A' + 10;
+		}
+	}
+
+	private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+	private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+	private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+	/**
+	 * Thrown in push mode if more input is required.
+	 */
+	@SuppressWarnings("serial")
+	private static final class NotAvailableException extends IOException {
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+	private static final NotAvailableException NOT_AVAILABLE = new NotAvailableException();
+
+	private InputStream input;
+	private byte[] buffer;
+	private SymbolTable symbols;
+
+	private int position;
+	private int limit;
+	private boolean eof;
+
+	private char[] text = new char[128];
+	private int textLength = -1;
+	private int textRead; // number of characters copied by readText()
+	private String textString;
+
+	private int line;
+	private int lineStart;
+	private int chars;
+
+	private int tokenLine;
+	private int tokenColumn;
+	private int tokenOffset;
+
+	private boolean stringPending; // string started, but not terminated yet
+
+	private int skipDepth; // push mode: skip started, but not completed yet
+	private boolean skipString;
+	private boolean skipEscape;
+	private boolean skipCr;
+
+	/**
+	 * Create push mode scanner.
+	 * @param symbols symbol table used to intern field names or <code>null</code>
+	 */
+	Utf8Scanner(SymbolTable symbols) {
+		this(null, DEFAULT_BUFFER_SIZE, symbols);
+	}
+
+	Utf8Scanner(InputStream input, SymbolTable symbols) {
+		this(input, DEFAULT_BUFFER_SIZE, symbols);
+	}
+
+	Utf8Scanner(InputStream input, int bufferSize, SymbolTable symbols) {
+		this.input = input;
+		this.buffer = new byte[Math.max(bufferSize, 8)];
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Reset scanner to read from the given input stream, reusing its buffers.
+	 * @param input input stream
+	 */
+	void reset(InputStream input) {
+		this.input = input;
+		position = limit = 0;
+		eof = false;
+		textLength = -1;
+		textRead = 0;
+		textString = null;
+		line = lineStart = chars = 0;
+		tokenLine = tokenColumn = tokenOffset = 0;
+		stringPending = false;
+		skipDepth = 0;
+		skipString = skipEscape = skipCr = false;
+	}
+
+	/**
+	 * Append input (push mode only).
+	 * @param bytes input bytes
+	 * @param offset offset of first byte
+	 * @param length number of bytes
+	 * @throws IOException if end of input has been signaled before
+	 */
+	void feed(byte[] bytes, int offset, int length) throws IOException {
+		if (eof) {
+			throw new IOException("Cannot feed input after end of input");
+		}
+		if (length > buffer.length - limit) {
+			int remaining = limit - position;
+			if (remaining + length > buffer.length) {
+				byte[] newBuffer = new byte[Math.max(remaining + length, 2 * buffer.length)];
+				System.arraycopy(buffer, position, newBuffer, 0, remaining);
+				buffer = newBuffer;
+			} else {
+				System.arraycopy(buffer, position, buffer, 0, remaining);
+			}
+			limit = remaining;
+			position = 0;
+		}
+		System.arraycopy(bytes, offset, buffer, limit, length);
+		limit += length;
+	}
+
+	/**
+	 * Signal end of input (push mode only).
+	 */
+	void endOfInput() {
+		eof = true;
+	}
+
+	/**
+	 * Make sure that at least <code>count</code> bytes are available.
+	 * @param count number of bytes
+	 * @return <code>false</code> if EOF has been reached before
+	 * @throws IOException
+	 * @throws NotAvailableException in push mode, if more input is required
+	 */
+	private boolean require(int count) throws IOException {
+		if (limit - position >= count) {
+			return true;
+		}
+		if (eof) {
+			return false;
+		}
+		if (input == null) {
+			throw NOT_AVAILABLE;
+		}
+		if (position > 0) {
+			System.arraycopy(buffer, position, buffer, 0, limit - position);
+			limit -= position;
+			position = 0;
+		}
+		while (limit < count) {
+			int n = input.read(buffer, limit, buffer.length - limit);
+			if (n < 0) {
+				eof = true;
+				return false;
+			}
+			limit += n;
+		}
+		return true;
+	}
+
+	/**
+	 * @param symbols symbol table used to intern field names or <code>null</code>
+	 */
+	void setSymbolTable(SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+	/**
+	 * @return next byte (unsigned) or <code>-1</code> at EOF
+	 */
+	private int peekByte() throws IOException {
+		return position < limit || require(1) ? buffer[position] & 0xFF : -1;
+	}
+
+	private void mark() {
+		tokenLine = line;
+		tokenColumn = chars - lineStart;
+		tokenOffset = chars;
+	}
+
+	private void newline() {
+		line++;
+		lineStart = chars;
+	}
+
+	private void ensureTextCapacity(int capacity) {
+		if (capacity > text.length) {
+			char[] newText = new char[Math.max(capacity, 2 * text.length)];
+			System.arraycopy(text, 0, newText, 0, textLength);
+			text = newText;
+		}
+	}
+
+	private void appendText(char c) {
+		if (textLength == text.length) {
+			ensureTextCapacity(textLength + 1);
+		}
+		text[textLength++] = c;
+	}
+
+	private IOException illegalCharacter() throws IOException {
+		String character;
+		int b = buffer[position];
+		if (b >= 0) {
+			character = String.valueOf((char) b);
+		} else {
+			int codePoint = decode();
+			character = codePoint < 0 ? "\uFFFD" : new String(Character.toChars(codePoint));
+		}
+		return new IOException("Illegal character: <" + character + ">");
+	}
+
+	/**
+	 * Decode multi-byte sequence at current position (without consuming it).
+	 * @return code point or <code>-1</code> if sequence is malformed
+	 */
+	private int decode() throws IOException {
+		int b = buffer[position] & 0xFF;
+		int count;
+		int codePoint;
+		if (b >= 0xC2 && b <= 0xDF) {
+			count = 2;
+			codePoint = b & 0x1F;
+		} else if (b >= 0xE0 && b <= 0xEF) {
+			count = 3;
+			codePoint = b & 0x0F;
+		} else if (b >= 0xF0 && b <= 0xF4) {
+			count = 4;
+			codePoint = b & 0x07;
+		} else {
+			return -1;
+		}
+		if (!require(count)) {
+			return -1;
+		}
+		for (int i = 1; i < count; i++) {
+			int c = buffer[position + i];
+			if ((c & 0xC0) != 0x80) {
+				return -1;
+			}
+			codePoint = (codePoint << 6) | (c & 0x3F);
+		}
+		if (count == 3 && (codePoint < 0x800 || (codePoint >= 0xD800 && codePoint <= 0xDFFF))) {
+			return -1;
+		}
+		if (count == 4 && (codePoint < 0x10000 || codePoint > 0x10FFFF)) {
+			return -1;
+		}
+		return codePoint;
+	}
+
+	private int decodeLength(int codePoint) {
+		return codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+	}
+
+	private Symbol literal(byte[] literal, Symbol symbol, String text) throws IOException {
+		mark();
+		if (!require(literal.length)) {
+			throw illegalCharacter();
+		}
+		for (int i = 1; i < literal.length; i++) {
+			if (buffer[position + i] != literal[i]) {
+				throw illegalCharacter();
+			}
+		}
+		position += literal.length;
+		chars += literal.length;
+		textString = text;
+		return symbol;
+	}
+
+	private int digits() throws IOException {
+		int count = 0;
+		int b = peekByte();
+		while (b >= '0' && b <= '9') {
+			appendText((char) b);
+			position++;
+			count++;
+			b = peekByte();
+		}
+		return count;
+	}
+
+	private Symbol number() throws IOException {
+		mark();
+		textLength = 0;
+		if (buffer[position] == '-') {
+			appendText('-');
+			position++;
+		}
+		int b = peekByte();
+		if (b == '0') {
+			appendText('0');
+			position++;
+		} else if (b < '1' || b > '9' || digits() == 0) {
+			throw b < 0 ? new IOException("Unexpected end of number") : illegalCharacter();
+		}
+		if (peekByte() == '.') {
+			appendText('.');
+			position++;
+			if (digits() == 0) {
+				throw peekByte() == -1 ? new IOException("Unexpected end of number") : illegalCharacter();
+			}
+		}
+		b = peekByte();
+		if (b == 'e' || b == 'E') {
+			appendText((char) b);
+			position++;
+			b = peekByte();
+			if (b == '+' || b == '-') {
+				appendText((char) b);
+				position++;
+			}
+			if (digits() == 0) {
+				throw peekByte() == -1 ? new IOException("Unexpected end of number") : illegalCharacter();
+			}
+		}
+		chars += textLength;
+		return Symbol.NUMBER;
+	}
+
+	private void escape() throws IOException {
+		if (!require(2)) {
+			throw illegalCharacter();
+		}
+		switch (buffer[position + 1]) {
+		case '"':
+			appendText('"');
+			break;
+		case '\\':
+			appendText('\\');
+			break;
+		case '/':
+			appendText('/');
+			break;
+		case 'b':
+			appendText('\b');
+			break;
+		case 'f':
+			appendText('\f');
+			break;
+		case 'n':
+			appendText('\n');
+			break;
+		case 'r':
+			appendText('\r');
+			break;
+		case 't':
+			appendText('\t');
+			break;
+		case 'u':
+			if (!require(6)) {
+				throw illegalCharacter();
+			}
+			int value = 0;
+			for (int i = 2; i < 6; i++) {
+				int b = buffer[position + i];
+				int digit = b < 0 ? -1 : HEX[b];
+				if (digit < 0) {
+					throw illegalCharacter();
+				}
+				value = (value << 4) | digit;
+			}
+			appendText((char) value);
+			position += 6;
+			chars += 6;
+			return;
+		default:
+			throw illegalCharacter();
+		}
+		position += 2;
+		chars += 2;
+	}
+
+	/**
+	 * Scan string content (after the opening quote) into the text buffer.
+	 * @param maxLength stop at this text length, leaving the string pending
+	 * @return <code>STRING</code>
+	 */
+	private Symbol string(int maxLength) throws IOException {
+		while (true) {
+			if (textLength >= maxLength) {
+				return Symbol.STRING;
+			}
+			if (position == limit && !require(1)) {
+				throw new IOException("Unterminated string");
+			}
+			int b = buffer[position];
+			if (b >= 0x20 && b != '"' && b != '\\') { // ASCII run
+				int start = position;
+				int end = start + 1;
+				int stop = limit - start > maxLength - textLength ? start + maxLength - textLength : limit;
+				while (end < stop && (b = buffer[end]) >= 0x20 && b != '"' && b != '\\') {
+					end++;
+				}
+				int length = end - start;
+				ensureTextCapacity(textLength + length);
+				char[] text = this.text;
+				int offset = textLength;
+				for (int i = start; i < end; i++) {
+					text[offset++] = (char) buffer[i];
+				}
+				textLength = offset;
+				position = end;
+				chars += length;
+			} else if (b == '"') {
+				mark();
+				position++;
+				chars++;
+				stringPending = false;
+				return Symbol.STRING;
+			} else if (b == '\\') {
+				escape();
+			} else if (b < 0) {
+				int codePoint = decode();
+				if (codePoint < 0) {
+					appendText('\uFFFD');
+					position++;
+					chars++;
+				} else if (codePoint < 0x10000) {
+					appendText((char) codePoint);
+					position += decodeLength(codePoint);
+					chars++;
+				} else {
+					appendText((char) ((codePoint >>> 10) + (Character.MIN_HIGH_SURROGATE - (0x10000 >>> 10))));
+					appendText((char) ((codePoint & 0x3FF) + Character.MIN_LOW_SURROGATE));
+					position += 4;
+					chars += 2;
+				}
+			} else if (b == '\n' || b == '\r') {
+				throw illegalCharacter();
+			} else { // other control characters are accepted
+				appendText((char) b);
+				position++;
+				chars++;
+			}
+		}
+	}
+
+	@Override
+	public Symbol nextSymbol() throws IOException {
+		if (input != null) {
+			while (stringPending) { // skip rest of string
+				textLength = 0;
+				string(TEXT_CHUNK_SIZE);
+			}
+			textLength = -1;
+			textString = null;
+			return scan();
+		}
+		if (stringPending) {
+			try {
+				return string(Integer.MAX_VALUE);
+			} catch (NotAvailableException e) {
+				return Symbol.NOT_AVAILABLE;
+			}
+		}
+		textLength = -1;
+		textString = null;
+		int position = this.position;
+		int chars = this.chars;
+		int line = this.line;
+		int lineStart = this.lineStart;
+		try {
+			return scan();
+		} catch (NotAvailableException e) {
+			if (!stringPending) { // rescan symbol when more input is available
+				this.position = position;
+				this.chars = chars;
+				this.line = line;
+				this.lineStart = lineStart;
+				textLength = -1;
+			}
+			return Symbol.NOT_AVAILABLE;
+		}
+	}
+
+	private Symbol scan() throws IOException {
+		while (true) {
+			if (position == limit && !require(1)) {
+				mark();
+				return Symbol.EOF;
+			}
+			switch (buffer[position]) {
+			case ' ':
+			case '\t':
+			case '\b':
+				position++;
+				chars++;
+				break;
+			case '\n':
+				position++;
+				chars++;
+				newline();
+				break;
+			case '\r':
+				position++;
+				chars++;
+				if (peekByte() == '\n') {
+					position++;
+					chars++;
+				}
+				newline();
+				break;
+			case ',':
+				mark();
+				position++;
+				chars++;
+				return Symbol.COMMA;
+			case ':':
+				mark();
+				position++;
+				chars++;
+				return Symbol.COLON;
+			case '[':
+				mark();
+				position++;
+				chars++;
+				return Symbol.START_ARRAY;
+			case ']':
+				mark();
+				position++;
+				chars++;
+				return Symbol.END_ARRAY;
+			case '{':
+				mark();
+				position++;
+				chars++;
+				return Symbol.START_OBJECT;
+			case '}':
+				mark();
+				position++;
+				chars++;
+				return Symbol.END_OBJECT;
+			case '"':
+				position++;
+				chars++;
+				textLength = 0;
+				textRead = 0;
+				stringPending = true;
+				return string(input == null ? Integer.MAX_VALUE : TEXT_CHUNK_SIZE);
+			case '-':
+			case '0':
+			case '1':
+			case '2':
+			case '3':
+			case '4':
+			case '5':
+			case '6':
+			case '7':
+			case '8':
+			case '9':
+				return number();
+			case 't':
+				return literal(TRUE, Symbol.TRUE, "true");
+			case 'f':
+				return literal(FALSE, Symbol.FALSE, "false");
+			case 'n':
+				return literal(NULL, Symbol.NULL, "null");
+			case (byte) 0xEF: // byte order mark?
+				if (chars == 0 && require(3) && buffer[position + 1] == (byte) 0xBB && buffer[position + 2] == (byte) 0xBF) {
+					position += 3;
+					break;
+				}
+				throw illegalCharacter();
+			default:
+				throw illegalCharacter();
+			}
+		}
+	}
+
+	@Override
+	public Symbol skip() throws IOException {
+		textLength = -1;
+		textString = null;
+		int depth = 1;
+		boolean string = false;
+		boolean escape = false;
+		boolean cr = false;
+		if (skipDepth > 0) { // continue pending skip
+			depth = skipDepth;
+			string = skipString;
+			escape = skipEscape;
+			cr = skipCr;
+			skipDepth = 0;
+		}
+		while (true) {
+			try {
+				if (position == limit && !require(1)) {
+					if (string) {
+						throw new IOException("Unterminated string");
+					}
+					mark();
+					return Symbol.EOF;
+				}
+			} catch (NotAvailableException e) {
+				skipDepth = depth;
+				skipString = string;
+				skipEscape = escape;
+				skipCr = cr;
+				return Symbol.NOT_AVAILABLE;
+			}
+			byte[] buffer = this.buffer;
+			int position = this.position;
+			int limit = this.limit;
+			while (position < limit) {
+				int b = buffer[position++];
+				if ((b & 0xC0) != 0x80) { // not a continuation byte
+					chars += (b & 0xF8) == 0xF0 ? 2 : 1; // 4-byte sequences are surrogate pairs
+				}
+				if (string) {
+					if (escape) {
+						escape = false;
+					} else if (b == '"') {
+						string = false;
+					} else if (b == '\\') {
+						escape = true;
+					}
+					continue;
+				}
+				switch (b) {
+				case '"':
+					string = true;
+					break;
+				case '[':
+				case '{':
+					depth++;
+					break;
+				case ']':
+				case '}':
+					if (--depth == 0) {
+						this.position = position;
+						chars--;
+						mark();
+						chars++;
+						return b == ']' ? Symbol.END_ARRAY : Symbol.END_OBJECT;
+					}
+					break;
+				case '\n':
+					if (cr) {
+						lineStart = chars;
+					} else {
+						newline();
+					}
+					break;
+				case '\r':
+					newline();
+					break;
+				}
+				cr = b == '\r';
+			}
+			this.position = position;
+		}
+	}
+
+	@Override
+	public String getText() throws IOException {
+		if (stringPending) {
+			string(Integer.MAX_VALUE);
+		}
+		if (textString == null && textLength >= 0) {
+			textString = new String(text, 0, textLength);
+		}
+		return textString;
+	}
+
+	@Override
+	public String getName() throws IOException {
+		if (stringPending) {
+			string(Integer.MAX_VALUE);
+		}
+		if (textString == null && textLength >= 0 && symbols != null) {
+			textString = symbols.lookup(text, 0, textLength);
+		}
+		return getText();
+	}
+
+	@Override
+	public int readText(char[] buffer, int offset, int length) throws IOException {
+		int count = 0;
+		while (count < length) {
+			if (textRead == textLength) {
+				if (!stringPending) {
+					break;
+				}
+				textLength = 0;
+				textRead = 0;
+				textString = null;
+				string(TEXT_CHUNK_SIZE);
+			} else {
+				int n = Math.min(length - count, textLength - textRead);
+				System.arraycopy(text, textRead, buffer, offset + count, n);
+				textRead += n;
+				count += n;
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (input != null) {
+			input.close();
+		}
+	}
+
+	@Override
+	public int getCharOffset() {
+		return tokenOffset;
+	}
+
+	@Override
+	public int getLineNumber() {
+		return tokenLine;
+	}
+
+	@Override
+	public int getColumnNumber() {
+		return tokenColumn;
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Unsynchronized writer encoding UTF-8 into the array of a pooled heap buffer, which
+ * is written to an output stream or a (blocking) channel when full or flushed. Runs of
+ * ASCII characters are copied without further checks. Unpaired surrogates are written
+ * as <code>'?'</code>, like the JDK's UTF-8 encoder does by default.
+ * For a channel, encoded bytes are bulk-copied into a pooled direct buffer, which is
+ * then written. This is the same single copy the JDK makes for heap buffers, but it
+ * avoids the JDK's temporary direct buffer per write; encoding itself is not faster.
+ * Closing the writer flushes it and returns the buffers to their pools, but does not
+ * close the stream or channel.
+ */
+class Utf8Writer extends Writer {
+	private final OutputStream output;
+	private final WritableByteChannel channel;
+	private final ByteBufferPool pool;
+	private final ByteBufferPool directPool;
+
+	private ByteBuffer buffer;
+	private ByteBuffer direct;
+	private byte[] bytes;
+	private int count;
+	private char highSurrogate;
+	private boolean closed;
+
+	/**
+	 * Create writer for an output stream.
+	 * @param output stream
+	 * @param pool pool of heap buffers
+	 */
+	Utf8Writer(OutputStream output, ByteBufferPool pool) {
+		this(output, null, pool, null);
+	}
+
+	/**
+	 * Create writer for a channel.
+	 * @param channel blocking channel
+	 * @param pool pool of heap buffers
+	 * @param directPool pool of direct buffers
+	 */
+	Utf8Writer(WritableByteChannel channel, ByteBufferPool pool, ByteBufferPool directPool) {
+		this(null, channel, pool, directPool);
+	}
+
+	private Utf8Writer(OutputStream output, WritableByteChannel channel, ByteBufferPool pool, ByteBufferPool directPool) {
+		this.output = output;
+		this.channel = channel;
+		this.pool = pool;
+		this.directPool = directPool;
+	}
+
+	private void write(byte[] source, int offset, int length) throws IOException {
+		if (channel == null) {
+			output.write(source, offset, length);
+			return;
+		}
+		while (length > 0) {
+			int n = Math.min(length, direct.remaining());
+			direct.put(source, offset, n);
+			offset += n;
+			length -= n;
+			direct.flip();
+			while (direct.hasRemaining()) {
+				if (channel.write(direct) == 0) {
+					throw new IOException("No bytes written to channel (non-blocking mode?)");
+				}
+			}
+			direct.clear();
+		}
+	}
+
+	private void drain() throws IOException {
+		write(bytes, 0, count);
+		count = 0;
+	}
+
+	private void encode(char c) throws IOException {
+		if (bytes.length - count < 4) {
+			drain();
+		}
+		if (highSurrogate != 0) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(c)) {
+				int codePoint = Character.toCodePoint(high, c);
+				bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+				bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+				bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+				bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+				return;
+			}
+			bytes[count++] = (byte) '?';
+			encode(c);
+		} else if (c < 0x80) {
+			bytes[count++] = (byte) c;
+		} else if (c < 0x800) {
+			bytes[count++] = (byte) (0xC0 | (c >> 6));
+			bytes[count++] = (byte) (0x80 | (c & 0x3F));
+		} else if (Character.isHighSurrogate(c)) {
+			highSurrogate = c;
+		} else if (Character.isLowSurrogate(c)) {
+			bytes[count++] = (byte) '?';
+		} else {
+			bytes[count++] = (byte) (0xE0 | (c >> 12));
+			bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			bytes[count++] = (byte) (0x80 | (c & 0x3F));
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (buffer == null) {
+			if (closed) {
+				throw new IOException("Writer has been closed");
+			}
+			buffer = pool.acquire();
+			bytes = buffer.array();
+			if (channel != null) {
+				direct = directPool.acquire();
+			}
+		}
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		ensureOpen();
+		encode((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		int end = off + len;
+		while (off < end) {
+			char c = cbuf[off];
+			if (c < 0x80 && highSurrogate == 0) {
+				if (count == bytes.length) {
+					drain();
+				}
+				int limit = Math.min(end, off + bytes.length - count);
+				do {
+					bytes[count++] = (byte) c;
+				} while (++off < limit && (c = cbuf[off]) < 0x80);
+			} else {
+				encode(c);
+				off++;
+			}
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		ensureOpen();
+		int end = off + len;
+		while (off < end) {
+			char c = str.charAt(off);
+			if (c < 0x80 && highSurrogate == 0) {
+				if (count == bytes.length) {
+					drain();
+				}
+				int limit = Math.min(end, off + bytes.length - count);
+				do {
+					bytes[count++] = (byte) c;
+				} while (++off < limit && (c = str.charAt(off)) < 0x80);
+			} else {
+				encode(c);
+				off++;
+			}
+		}
+	}
+
+	/**
+	 * Write bytes which are already encoded as UTF-8.
+	 * @param utf8 encoded bytes
+	 * @throws IOException
+	 */
+	void writeRaw(byte[] utf8) throws IOException {
+		ensureOpen();
+		if (highSurrogate != 0) { // unpaired
+			highSurrogate = 0;
+			if (count == bytes.length) {
+				drain();
+			}
+			bytes[count++] = (byte) '?';
+		}
+		if (utf8.length > bytes.length - count) {
+			drain();
+			if (utf8.length > bytes.length) {
+				write(utf8, 0, utf8.length);
+				return;
+			}
+		}
+		System.arraycopy(utf8, 0, bytes, count, utf8.length);
+		count += utf8.length;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (count > 0) {
+			drain();
+		}
+		if (output != null) {
+			output.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (buffer != null) {
+			try {
+				if (highSurrogate != 0) {
+					highSurrogate = 0;
+					if (count == bytes.length) {
+						drain();
+					}
+					bytes[count++] = (byte) '?';
+				}
+				flush();
+			} finally {
+				pool.release(buffer);
+				buffer = null;
+				bytes = null;
+				if (direct != null) {
+					directPool.release(direct);
+					direct = null;
+				}
+			}
+		} else if (output != null) {
+			output.flush();
+		}
+	}
+}
@@ -73,6 +73,17 @@ public class AddRootSource extends StreamSourceDelegate {
 		return super.value();
 	}
 
+	@Override
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException {
+		if (state != State.DELEGATE) {
+			if (peek() != JsonStreamToken.VALUE) {
+				throw new IOException("Unexpected token: " + peek());
+			}
+			return -1; // added xmlns value
+		}
+		return super.stringChunk(buffer, offset, length);
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		if (state == State.START_DOC) {
@@ -101,6 +112,26 @@ public class AddRootSource extends StreamSourceDelegate {
 		depth--;
 	}
 
+	@Override
+	public void skipValue() throws IOException {
+		if (state == State.DELEGATE) {
+			super.skipValue();
+		} else if (peek() == JsonStreamToken.START_OBJECT) { // added root object
+			startObject();
+			while (peek() != JsonStreamToken.END_OBJECT) {
+				skipValue();
+			}
+			endObject();
+		} else if (peek() == JsonStreamToken.NAME) {
+			name();
+			skipValue();
+		} else if (peek() == JsonStreamToken.VALUE) {
+			value();
+		} else {
+			throw new IOException("Not a value token: " + peek());
+		}
+	}
+
 	@Override
 	public JsonStreamToken peek() throws IOException {
 		if (state == null) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Configuration of an {@link AsyncOutputStream}: the executor draining the output,
+ * the size and number of buffered chunks and how long a writer waits for a free
+ * chunk when the output cannot keep up (backpressure). Configurations are immutable.
+ */
+public final class AsyncOutput {
+	private final Executor executor;
+	private final int chunkSize;
+	private final int capacity;
+	private final long timeout;
+
+	/**
+	 * Create configuration; writers wait for free chunks as long as necessary.
+	 * @param executor executor running the drain tasks
+	 * @param chunkSize chunk size in bytes (positive)
+	 * @param capacity maximum number of chunks queued for draining (positive)
+	 */
+	public AsyncOutput(Executor executor, int chunkSize, int capacity) {
+		this(executor, chunkSize, capacity, -1);
+	}
+
+	private AsyncOutput(Executor executor, int chunkSize, int capacity, long timeout) {
+		if (executor == null) {
+			throw new IllegalArgumentException("Executor must not be null");
+		}
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+		}
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+		this.capacity = capacity;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Answer a configuration which fails writes with an <code>IOException</code> if no
+	 * chunk becomes free within the given time.
+	 * @param millis maximum time to wait (non-negative, <code>0</code> means fail immediately)
+	 * @return configuration
+	 */
+	public AsyncOutput withTimeout(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Timeout must not be negative: " + millis);
+		}
+		return new AsyncOutput(executor, chunkSize, capacity, millis);
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return maximum time (in milliseconds) to wait for a free chunk, negative to wait as long as necessary
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncOutput(" + chunkSize + "x" + capacity + (timeout < 0 ? "" : ", " + timeout + "ms") + ")";
+	}
+}
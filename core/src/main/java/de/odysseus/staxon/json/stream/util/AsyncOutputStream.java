@@ -0,0 +1,222 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Output stream handing its output to another thread. Bytes are collected in chunks,
+ * which are queued in a bounded single-producer/single-consumer ring and written to
+ * the underlying stream by a drain task running on the configured executor. The task
+ * is submitted when a chunk is queued and no task is running, and ends when the ring
+ * is empty, so no thread is occupied while the writer is busy producing output.
+ * 
+ * <p>When all chunks are queued, the writer waits for the drain task to free one, at
+ * most for the configured timeout. {@link #flush()} waits until all queued chunks have
+ * been written and then flushes the underlying stream. A failure of the drain task is
+ * reported by the next write or flush. Closing the stream flushes it, but does not
+ * close the underlying stream.</p>
+ * 
+ * <p>The stream must be used by a single thread.</p>
+ */
+public class AsyncOutputStream extends OutputStream {
+	private final OutputStream output;
+	private final Executor executor;
+	private final long timeout; // nanos, negative: wait as long as necessary
+
+	/*
+	 * Ring of chunks: slots [head, tail) are queued, the writer fills slot tail.
+	 */
+	private final byte[][] chunks;
+	private final int[] lengths;
+	private final int chunkSize;
+	private final AtomicLong head = new AtomicLong(); // written by the drain task
+	private final AtomicLong tail = new AtomicLong(); // written by the writer
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+	private final Object lock = new Object();
+	private volatile boolean waiting;
+	private volatile Throwable failure;
+
+	private byte[] chunk; // current chunk, null if not yet acquired
+	private int count;
+	private boolean closed;
+
+	private final Runnable drain = new Runnable() {
+		@Override
+		public void run() {
+			do {
+				long next = head.get();
+				while (next < tail.get()) {
+					int slot = (int) (next % chunks.length);
+					if (failure == null) {
+						try {
+							output.write(chunks[slot], 0, lengths[slot]);
+						} catch (Throwable e) {
+							failure = e;
+						}
+					} // else discard
+					head.set(++next);
+					if (waiting) {
+						synchronized (lock) {
+							lock.notifyAll();
+						}
+					}
+				}
+				draining.set(false);
+			} while (head.get() < tail.get() && draining.compareAndSet(false, true));
+		}
+	};
+
+	public AsyncOutputStream(OutputStream output, AsyncOutput config) {
+		this.output = output;
+		this.executor = config.getExecutor();
+		this.timeout = config.getTimeout() < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(config.getTimeout());
+		this.chunks = new byte[config.getCapacity()][];
+		this.lengths = new int[config.getCapacity()];
+		this.chunkSize = config.getChunkSize();
+	}
+
+	private void checkFailure() throws IOException {
+		Throwable failure = this.failure;
+		if (failure != null) {
+			throw new IOException("Asynchronous write failed", failure);
+		}
+	}
+
+	/**
+	 * Wait until at most <code>queued</code> chunks are queued.
+	 * @param queued number of queued chunks
+	 * @param message failure message on timeout
+	 * @throws IOException
+	 */
+	private void await(int queued, String message) throws IOException {
+		if (tail.get() - head.get() <= queued) {
+			return;
+		}
+		long deadline = System.nanoTime() + timeout;
+		synchronized (lock) {
+			waiting = true;
+			try {
+				while (tail.get() - head.get() > queued) {
+					if (timeout < 0) {
+						lock.wait();
+					} else {
+						long remaining = deadline - System.nanoTime();
+						if (remaining <= 0) {
+							throw new IOException(message);
+						}
+						TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for asynchronous output");
+			} finally {
+				waiting = false;
+			}
+		}
+	}
+
+	private void acquire() throws IOException {
+		if (closed) {
+			throw new IOException("Stream has been closed");
+		}
+		checkFailure();
+		await(chunks.length - 1, "Output queue is full");
+		int slot = (int) (tail.get() % chunks.length);
+		if (chunks[slot] == null) {
+			chunks[slot] = new byte[chunkSize];
+		}
+		chunk = chunks[slot];
+	}
+
+	private void publish() throws IOException {
+		lengths[(int) (tail.get() % chunks.length)] = count;
+		chunk = null;
+		count = 0;
+		tail.incrementAndGet();
+		if (draining.compareAndSet(false, true)) {
+			try {
+				executor.execute(drain);
+			} catch (RejectedExecutionException e) {
+				draining.set(false);
+				throw new IOException("Cannot schedule asynchronous output", e);
+			}
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (chunk == null) {
+			acquire();
+		}
+		chunk[count++] = (byte) b;
+		if (count == chunkSize) {
+			publish();
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (chunk == null) {
+				acquire();
+			}
+			int n = Math.min(len, chunkSize - count);
+			System.arraycopy(b, off, chunk, count, n);
+			count += n;
+			off += n;
+			len -= n;
+			if (count == chunkSize) {
+				publish();
+			}
+		}
+	}
+
+	/**
+	 * Queue the current chunk, wait until all chunks have been written and flush the underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (closed) {
+			return;
+		}
+		if (count > 0) {
+			publish();
+		}
+		await(0, "Output queue has not been drained in time");
+		checkFailure();
+		output.flush();
+	}
+
+	/**
+	 * Flush the stream. The underlying stream is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			flush();
+			closed = true;
+		}
+	}
+}
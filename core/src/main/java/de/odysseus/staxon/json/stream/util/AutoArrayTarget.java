@@ -23,6 +23,7 @@ import java.util.Stack;
 import de.odysseus.staxon.json.JsonXMLStreamWriter;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 /**
  * Target filter to auto-insert array boundaries.
@@ -95,14 +96,20 @@ public class AutoArrayTarget implements JsonStreamTarget {
 
 	static final class NameEvent implements Event {
 		final String name;
+		final PreparedName prepared;
 		boolean array;
 		
-		NameEvent(String name) {
+		NameEvent(String name, PreparedName prepared) {
 			this.name = name;
+			this.prepared = prepared;
 		}
 		@Override
 		public void write(JsonStreamTarget target) throws IOException {
-			target.name(name);
+			if (prepared != null) {
+				target.name(prepared);
+			} else {
+				target.name(name);
+			}
 			if (array) {
 				target.startArray();
 			}
@@ -150,6 +157,32 @@ public class AutoArrayTarget implements JsonStreamTarget {
 		}
 	}
 
+	static final class RawValueEvent implements Event {
+		final CharSequence json;
+		final byte[] utf8;
+
+		RawValueEvent(CharSequence json, byte[] utf8) {
+			this.json = json;
+			this.utf8 = utf8;
+		}
+		@Override
+		public void write(JsonStreamTarget target) throws IOException {
+			if (utf8 != null) {
+				target.rawValue(utf8);
+			} else {
+				target.rawValue(json);
+			}
+		}
+		@Override
+		public JsonStreamToken token() {
+			return JsonStreamToken.VALUE;
+		}
+		@Override
+		public String toString() {
+			return token().name() + " = " + (utf8 != null ? utf8.length + " bytes" : json);
+		}
+	}
+
 	/*
 	 * delegate target
 	 */
@@ -164,13 +197,18 @@ public class AutoArrayTarget implements JsonStreamTarget {
 	 * Field stack
 	 */
 	private final Stack<NameEvent> fields = new Stack<NameEvent>();
+
+	/*
+	 * Streamed string value
+	 */
+	private StringBuilder string;
 	
 	public AutoArrayTarget(JsonStreamTarget delegate) {
 		this.delegate = delegate;
 	}
 
-	private void pushField(String name) {
-		events.add(fields.push(new NameEvent(name)));
+	private void pushField(String name, PreparedName prepared) {
+		events.add(fields.push(new NameEvent(name, prepared)));
 	}
 
 	private void popField() {
@@ -179,25 +217,75 @@ public class AutoArrayTarget implements JsonStreamTarget {
 		}
 	}
 	
-	@Override
-	public void name(String name) throws IOException {
+	private void name(String name, PreparedName prepared) {
 		if (events.peekLast().token() == JsonStreamToken.START_OBJECT) {
-			pushField(name);
+			pushField(name, prepared);
 		} else {
 			if (name.equals(fields.peek().name())) {
 				fields.peek().setArray(true);
 			} else {
 				popField();
-				pushField(name);
+				pushField(name, prepared);
 			}
 		}
 	}
 
+	@Override
+	public void name(String name) throws IOException {
+		name(name, null);
+	}
+
+	@Override
+	public void name(PreparedName name) throws IOException {
+		name(name.getName(), name);
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
 		events.add(new ValueEvent(value));
 	}
 
+	@Override
+	public void value(long value) throws IOException {
+		events.add(new ValueEvent(Long.valueOf(value)));
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		events.add(new ValueEvent(Double.valueOf(value)));
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		events.add(new ValueEvent(Boolean.valueOf(value)));
+	}
+
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		events.add(new RawValueEvent(json, null));
+	}
+
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		events.add(new RawValueEvent(null, json));
+	}
+
+	@Override
+	public void startString() throws IOException {
+		string = new StringBuilder();
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		string.append(chars, offset, length);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		events.add(new ValueEvent(string.toString()));
+		string = null;
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		events.add(START_OBJECT);
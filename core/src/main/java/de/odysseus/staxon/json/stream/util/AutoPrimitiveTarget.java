@@ -20,6 +20,7 @@ import java.math.BigDecimal;
 import java.util.regex.Pattern;
 
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 /**
  * Target-filter to auto-convert string values to primitive (boolean, number, null) values.
@@ -29,6 +30,7 @@ public class AutoPrimitiveTarget extends StreamTargetDelegate {
 	private final boolean convertAttributes;
 	
 	private String lastName;
+	private StringBuilder string; // streamed string value
 
 	public AutoPrimitiveTarget(JsonStreamTarget delegate, boolean convertAttributes) {
 		super(delegate);
@@ -40,6 +42,12 @@ public class AutoPrimitiveTarget extends StreamTargetDelegate {
 		lastName = name;
 		super.name(name);
 	}
+
+	@Override
+	public void name(PreparedName name) throws IOException {
+		lastName = name.getName();
+		super.name(name);
+	}
 	
 	@Override
 	public void value(Object value) throws IOException {
@@ -63,4 +71,24 @@ public class AutoPrimitiveTarget extends StreamTargetDelegate {
 			super.value(value);
 		}
 	}
+
+	/**
+	 * Streamed strings are collected to be converted as a whole.
+	 */
+	@Override
+	public void startString() throws IOException {
+		string = new StringBuilder();
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		string.append(chars, offset, length);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		String value = string.toString();
+		string = null;
+		value(value);
+	}
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+/**
+ * Policy deciding when a {@link FlushPolicyTarget} flushes its delegate.
+ * Policies are immutable.
+ */
+public final class FlushPolicy {
+	public enum Mode {
+		/**
+		 * Flush on close only.
+		 */
+		NEVER,
+		/**
+		 * Flush after every <em>n</em> top-level elements.
+		 */
+		ELEMENTS,
+		/**
+		 * Flush after approximately <em>n</em> bytes.
+		 */
+		BYTES,
+		/**
+		 * Flush when <em>n</em> milliseconds have passed since the last flush.
+		 */
+		LATENCY
+	}
+
+	/**
+	 * Flush on close only.
+	 */
+	public static final FlushPolicy NEVER = new FlushPolicy(Mode.NEVER, 0);
+
+	/**
+	 * Flush after every <code>count</code> top-level elements. Top-level elements are
+	 * the document's root value or, if the root is an array, its elements.
+	 * @param count number of elements (positive)
+	 * @return policy
+	 */
+	public static FlushPolicy elements(int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Element count must be positive: " + count);
+		}
+		return new FlushPolicy(Mode.ELEMENTS, count);
+	}
+
+	/**
+	 * Flush after approximately <code>count</code> bytes. The output size is estimated
+	 * from the characters of names and string values written.
+	 * @param count number of bytes (positive)
+	 * @return policy
+	 */
+	public static FlushPolicy bytes(int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("Byte count must be positive: " + count);
+		}
+		return new FlushPolicy(Mode.BYTES, count);
+	}
+
+	/**
+	 * Flush when writing an event and at least <code>millis</code> milliseconds have
+	 * passed since the last flush. This caps the latency of written data as long
+	 * as events keep coming.
+	 * @param millis maximum latency (positive)
+	 * @return policy
+	 */
+	public static FlushPolicy latency(long millis) {
+		if (millis <= 0) {
+			throw new IllegalArgumentException("Latency must be positive: " + millis);
+		}
+		return new FlushPolicy(Mode.LATENCY, millis);
+	}
+
+	private final Mode mode;
+	private final long limit;
+
+	private FlushPolicy(Mode mode, long limit) {
+		this.mode = mode;
+		this.limit = limit;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return number of elements, bytes or milliseconds, depending on the mode
+	 */
+	public long getLimit() {
+		return limit;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || obj.getClass() != getClass()) {
+			return false;
+		}
+		FlushPolicy other = (FlushPolicy) obj;
+		return mode == other.mode && limit == other.limit;
+	}
+
+	@Override
+	public int hashCode() {
+		return mode.hashCode() * 31 + (int) (limit ^ (limit >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return mode == Mode.NEVER ? mode.name() : mode.name() + "(" + limit + ")";
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.IOException;
+
+import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
+
+/**
+ * Target-filter to flush the delegate according to a {@link FlushPolicy}.
+ * The policy replaces the delegate's automatic flushing after top-level values, so the
+ * delegate itself should not flush automatically (see
+ * {@link de.odysseus.staxon.json.stream.JsonStreamSettings#withAutoFlush(boolean)}).
+ * Explicit calls to {@link #flush()} between the elements of a root array are left to
+ * the policy, since JAXB flushes after every marshalled document; other explicit flushes
+ * are passed to the delegate.
+ */
+public class FlushPolicyTarget extends StreamTargetDelegate {
+	/**
+	 * Estimated size of literals and numbers (in bytes)
+	 */
+	private static final int VALUE_SIZE = 8;
+
+	private final FlushPolicy.Mode mode;
+	private final long limit;
+
+	private int depth;
+	private boolean rootArray;
+	private long count; // elements or bytes since last flush
+	private long lastFlush; // nano time of last flush
+
+	public FlushPolicyTarget(JsonStreamTarget delegate, FlushPolicy policy) {
+		super(delegate);
+		this.mode = policy.getMode();
+		this.limit = policy.getMode() == FlushPolicy.Mode.LATENCY ? policy.getLimit() * 1000000L : policy.getLimit();
+		if (mode == FlushPolicy.Mode.LATENCY) {
+			lastFlush = System.nanoTime();
+		}
+	}
+
+	private void flushDelegate() throws IOException {
+		super.flush();
+		count = 0;
+		if (mode == FlushPolicy.Mode.LATENCY) {
+			lastFlush = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Account for a written event.
+	 * @param size estimated size of the event's output
+	 * @param element <code>true</code> if the event completed a top-level element
+	 * @throws IOException
+	 */
+	private void written(int size, boolean element) throws IOException {
+		switch (mode) {
+		case ELEMENTS:
+			if (element && ++count >= limit) {
+				flushDelegate();
+			}
+			break;
+		case BYTES:
+			count += size;
+			if (count >= limit) {
+				flushDelegate();
+			}
+			break;
+		case LATENCY:
+			if (System.nanoTime() - lastFlush >= limit) {
+				flushDelegate();
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private boolean isTopLevel() {
+		return depth == 0 || depth == 1 && rootArray;
+	}
+
+	@Override
+	public void name(String name) throws IOException {
+		super.name(name);
+		written(name.length() + 4, false);
+	}
+
+	@Override
+	public void name(PreparedName name) throws IOException {
+		super.name(name);
+		written(name.getQuotedUtf8().length + 2, false);
+	}
+
+	@Override
+	public void value(Object value) throws IOException {
+		super.value(value);
+		written(value instanceof String ? ((String) value).length() + 3 : VALUE_SIZE, isTopLevel());
+	}
+
+	@Override
+	public void value(long value) throws IOException {
+		super.value(value);
+		written(VALUE_SIZE, isTopLevel());
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		super.value(value);
+		written(VALUE_SIZE, isTopLevel());
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		super.value(value);
+		written(VALUE_SIZE, isTopLevel());
+	}
+
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		super.rawValue(json);
+		written(json.length(), isTopLevel());
+	}
+
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		super.rawValue(json);
+		written(json.length, isTopLevel());
+	}
+
+	@Override
+	public void startString() throws IOException {
+		super.startString();
+		written(1, false);
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		super.appendString(chars, offset, length);
+		written(length, false);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		super.endString();
+		written(1, isTopLevel());
+	}
+
+	@Override
+	public void startObject() throws IOException {
+		super.startObject();
+		depth++;
+		written(1, false);
+	}
+
+	@Override
+	public void endObject() throws IOException {
+		super.endObject();
+		depth--;
+		written(1, isTopLevel());
+	}
+
+	@Override
+	public void startArray() throws IOException {
+		super.startArray();
+		if (depth++ == 0) {
+			rootArray = true;
+		}
+		written(1, false);
+	}
+
+	@Override
+	public void endArray() throws IOException {
+		super.endArray();
+		if (--depth == 0) {
+			rootArray = false;
+		}
+		written(1, false);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (depth == 1 && rootArray) { // top-level boundary within root array
+			return;
+		}
+		flushDelegate();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+/**
+ * Configuration of a {@link ParallelGzipOutputStream}: the executor compressing blocks,
+ * the block size, the compression level, the maximum number of blocks compressed
+ * concurrently and the flush mode. Configurations are immutable.
+ */
+public final class ParallelGzip {
+	/**
+	 * Default block size (128K)
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+	private final Executor executor;
+	private final int blockSize;
+	private final int level;
+	private final int parallelism;
+	private final boolean syncFlush;
+
+	/**
+	 * Create configuration with default block size and compression level, compressing
+	 * up to two blocks per available processor concurrently, without sync flush.
+	 * @param executor executor running the compression tasks
+	 */
+	public ParallelGzip(Executor executor) {
+		this(executor, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION, 2 * Runtime.getRuntime().availableProcessors(), false);
+	}
+
+	private ParallelGzip(Executor executor, int blockSize, int level, int parallelism, boolean syncFlush) {
+		if (executor == null) {
+			throw new IllegalArgumentException("Executor must not be null");
+		}
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+		}
+		if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level: " + level);
+		}
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+		}
+		this.executor = executor;
+		this.blockSize = blockSize;
+		this.level = level;
+		this.parallelism = parallelism;
+		this.syncFlush = syncFlush;
+	}
+
+	/**
+	 * @param blockSize block size in bytes (positive)
+	 * @return configuration with the given block size
+	 */
+	public ParallelGzip withBlockSize(int blockSize) {
+		return new ParallelGzip(executor, blockSize, level, parallelism, syncFlush);
+	}
+
+	/**
+	 * @param level compression level (<code>0-9</code> or {@link Deflater#DEFAULT_COMPRESSION})
+	 * @return configuration with the given level
+	 */
+	public ParallelGzip withLevel(int level) {
+		return new ParallelGzip(executor, blockSize, level, parallelism, syncFlush);
+	}
+
+	/**
+	 * @param parallelism maximum number of blocks compressed concurrently (positive)
+	 * @return configuration with the given parallelism
+	 */
+	public ParallelGzip withParallelism(int parallelism) {
+		return new ParallelGzip(executor, blockSize, level, parallelism, syncFlush);
+	}
+
+	/**
+	 * Like <code>GZIPOutputStream</code>, streams do not compress pending input when flushed,
+	 * unless sync flush is enabled. Each sync flush ends a (possibly short) block, which
+	 * costs compression ratio and parallelism if flushes are frequent.
+	 * @param syncFlush whether {@link ParallelGzipOutputStream#flush()} compresses pending input
+	 * @return configuration with the given flush mode
+	 */
+	public ParallelGzip withSyncFlush(boolean syncFlush) {
+		return new ParallelGzip(executor, blockSize, level, parallelism, syncFlush);
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public boolean isSyncFlush() {
+		return syncFlush;
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelGzip(" + blockSize + ", level " + level + ", parallelism " + parallelism + (syncFlush ? ", sync flush" : "") + ")";
+	}
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream writing gzip format, compressing blocks of input in parallel (in the
+ * style of <code>pigz</code>). Each block is deflated by a task on the configured executor,
+ * using the last 32K of the previous block as dictionary, and ends with a sync flush
+ * (an empty stored block), so that the compressed blocks can be concatenated to a single
+ * deflate stream. The checksum is computed while writing. Compressed blocks are written
+ * to the underlying stream in order by the writing thread, which waits for the oldest
+ * block when the configured number of blocks is being compressed.
+ * 
+ * <p>{@link #flush()} writes the blocks compressed so far; pending input is compressed
+ * as a (possibly short) block only if sync flush is enabled (see {@link ParallelGzip#withSyncFlush(boolean)}),
+ * in which case the method waits until all blocks have been written. {@link #finish()}
+ * completes the gzip stream without closing the underlying stream. If writing fails,
+ * {@link #abort()} releases the compressors without completing the stream.</p>
+ * 
+ * <p>The stream must be used by a single thread. It requires Java 7 or later at runtime
+ * (for <code>Deflater.SYNC_FLUSH</code>, which is looked up reflectively); use
+ * {@link #isSupported()} to check.</p>
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+	/**
+	 * Member header: magic, deflate method, no flags, no modification time, no extra flags, OS unknown
+	 */
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	/**
+	 * Java 7 <code>Deflater.deflate(byte[], int, int, int)</code> (<code>null</code> if not available)
+	 */
+	private static final Method DEFLATE;
+
+	/**
+	 * Java 7 <code>Deflater.SYNC_FLUSH</code>
+	 */
+	private static final Integer SYNC_FLUSH;
+
+	static {
+		Method deflate = null;
+		Integer syncFlush = null;
+		try {
+			deflate = Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+			syncFlush = (Integer) Deflater.class.getField("SYNC_FLUSH").get(null);
+		} catch (Exception e) {
+			deflate = null; // Java 6
+		}
+		DEFLATE = deflate;
+		SYNC_FLUSH = syncFlush;
+	}
+
+	/**
+	 * Parallel compression requires the sync flush mode of Java 7 or later.
+	 * @return <code>true</code> if streams can be created on this platform
+	 */
+	public static boolean isSupported() {
+		return DEFLATE != null;
+	}
+
+	private static int deflateSyncFlush(Deflater deflater, byte[] buffer) {
+		try {
+			return (Integer) DEFLATE.invoke(deflater, buffer, 0, buffer.length, SYNC_FLUSH);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private final class Block implements Callable<ByteArrayOutputStream> {
+		private final byte[] input;
+		private final int length;
+		private final byte[] dictionary;
+		private final int dictionaryOffset;
+		private final int dictionaryLength;
+		private final boolean last;
+
+		Block(byte[] input, int length, byte[] dictionary, int dictionaryLength, boolean last) {
+			this.input = input;
+			this.length = length;
+			this.dictionary = dictionary;
+			this.dictionaryOffset = Math.max(0, dictionaryLength - DICTIONARY_SIZE);
+			this.dictionaryLength = dictionaryLength - dictionaryOffset;
+			this.last = last;
+		}
+
+		@Override
+		public ByteArrayOutputStream call() {
+			Deflater deflater = deflaters.poll();
+			if (deflater == null) {
+				deflater = new Deflater(level, true);
+			}
+			try {
+				ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+				byte[] buffer = new byte[Math.min(length + 64, 16 * 1024)];
+				if (dictionaryLength > 0) {
+					deflater.setDictionary(dictionary, dictionaryOffset, dictionaryLength);
+				}
+				deflater.setInput(input, 0, length);
+				if (last) {
+					deflater.finish();
+					while (!deflater.finished()) {
+						result.write(buffer, 0, deflater.deflate(buffer));
+					}
+				} else {
+					int count;
+					do {
+						count = deflateSyncFlush(deflater, buffer);
+						result.write(buffer, 0, count);
+					} while (count == buffer.length);
+				}
+				return result;
+			} finally {
+				deflater.reset();
+				deflaters.offer(deflater);
+				if (released && deflaters.remove(deflater)) { // stream released meanwhile
+					deflater.end();
+				}
+			}
+		}
+	}
+
+	private final OutputStream output;
+	private final ParallelGzip config;
+	private final int level;
+	private final Deque<FutureTask<ByteArrayOutputStream>> pending = new ArrayDeque<FutureTask<ByteArrayOutputStream>>();
+	private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+	private final CRC32 crc = new CRC32();
+
+	private byte[] block;
+	private int count;
+	private byte[] previous; // dictionary source
+	private int previousLength;
+	private long size;
+	private boolean started;
+	private boolean finished;
+	private volatile boolean released;
+
+	/**
+	 * Create stream.
+	 * @param output underlying stream
+	 * @param config compression configuration
+	 * @throws UnsupportedOperationException if not supported on this platform (see {@link #isSupported()})
+	 */
+	public ParallelGzipOutputStream(OutputStream output, ParallelGzip config) {
+		if (!isSupported()) {
+			throw new UnsupportedOperationException("Parallel gzip compression requires Java 7 or later");
+		}
+		this.output = output;
+		this.config = config;
+		this.level = config.getLevel();
+	}
+
+	private void writeNext() throws IOException {
+		try {
+			pending.poll().get().writeTo(output);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for compression");
+		} catch (ExecutionException e) {
+			throw new IOException("Compression failed", e.getCause());
+		}
+	}
+
+	private void submit(boolean last) throws IOException {
+		if (!started) {
+			output.write(HEADER);
+			started = true;
+		}
+		if (count > 0) {
+			crc.update(block, 0, count);
+			size += count;
+		}
+		FutureTask<ByteArrayOutputStream> task =
+				new FutureTask<ByteArrayOutputStream>(new Block(block, count, previous, previousLength, last));
+		while (pending.size() >= config.getParallelism()) {
+			writeNext();
+		}
+		try {
+			config.getExecutor().execute(task);
+		} catch (RejectedExecutionException e) {
+			throw new IOException("Cannot schedule compression", e);
+		}
+		pending.add(task);
+		if (count > 0) {
+			previous = block;
+			previousLength = count;
+		}
+		block = null; // blocks are referenced by tasks, so allocate a new one
+		count = 0;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (finished) {
+			throw new IOException("Stream has been finished");
+		}
+		if (block == null) {
+			block = new byte[config.getBlockSize()];
+		}
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+		block[count++] = (byte) b;
+		if (count == block.length) {
+			submit(false);
+		}
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			ensureOpen();
+			int n = Math.min(len, block.length - count);
+			System.arraycopy(b, off, block, count, n);
+			count += n;
+			off += n;
+			len -= n;
+			if (count == block.length) {
+				submit(false);
+			}
+		}
+	}
+
+	/**
+	 * Write the blocks compressed so far and flush the underlying stream. With sync flush,
+	 * compress pending input and wait until all blocks have been written first.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (!finished) {
+			if (config.isSyncFlush()) {
+				if (count > 0) {
+					submit(false);
+				}
+				while (!pending.isEmpty()) {
+					writeNext();
+				}
+			} else {
+				while (!pending.isEmpty() && pending.peek().isDone()) {
+					writeNext();
+				}
+			}
+		}
+		output.flush();
+	}
+
+	/**
+	 * Compress pending input as final block, write the gzip trailer and release the
+	 * compressors. The underlying stream is flushed, but not closed.
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		try {
+			if (block == null) {
+				block = new byte[0];
+			}
+			submit(true);
+			while (!pending.isEmpty()) {
+				writeNext();
+			}
+			int checksum = (int) crc.getValue();
+			int length = (int) size; // modulo 2^32
+			output.write(new byte[] {
+					(byte) checksum, (byte) (checksum >> 8), (byte) (checksum >> 16), (byte) (checksum >> 24),
+					(byte) length, (byte) (length >> 8), (byte) (length >> 16), (byte) (length >> 24)
+			});
+			output.flush();
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Discard pending input and blocks and release the compressors, without completing
+	 * the gzip stream. Blocks which are currently being compressed end their compressors
+	 * when done. Does nothing if the stream has been finished.
+	 */
+	public void abort() {
+		if (!finished) {
+			release();
+		}
+	}
+
+	private void release() {
+		finished = true;
+		released = true;
+		block = null;
+		previous = null;
+		FutureTask<ByteArrayOutputStream> task;
+		while ((task = pending.poll()) != null) {
+			task.cancel(false); // running tasks end their deflater (see Block)
+		}
+		Deflater deflater;
+		while ((deflater = deflaters.poll()) != null) {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Finish the gzip stream and close the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			output.close();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamFeedSource;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
+import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.JsonStreamTarget;
+
+/**
+ * Stream factory decorator compressing output streams with a {@link ParallelGzipOutputStream}.
+ * The gzip stream is finished when the target is closed; the underlying stream is not closed.
+ * Sources and character targets are created by the delegate factory. Creating targets for
+ * output streams requires Java 7 or later (see {@link ParallelGzipOutputStream#isSupported()}).
+ * 
+ * <p>Use e.g. <code>new JsonXMLOutputFactory(new ParallelGzipStreamFactory(JsonStreamFactory.newFactory(), gzip))</code>.</p>
+ */
+public class ParallelGzipStreamFactory extends JsonStreamFactory {
+	private static final JsonStreamSettings TARGET_SETTINGS = new JsonStreamSettings().withSymbolTable(null);
+
+	private final JsonStreamFactory delegate;
+	private final ParallelGzip config;
+
+	public ParallelGzipStreamFactory(JsonStreamFactory delegate, ParallelGzip config) {
+		this.delegate = delegate;
+		this.config = config;
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(InputStream input) throws IOException {
+		return delegate.createJsonStreamSource(input);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(Reader reader) throws IOException {
+		return delegate.createJsonStreamSource(reader);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(InputStream input, JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamSource(input, settings);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(Reader reader, JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamSource(reader, settings);
+	}
+
+	@Override
+	public JsonStreamSource resetJsonStreamSource(JsonStreamSource source, InputStream input, JsonStreamSettings settings) throws IOException {
+		return delegate.resetJsonStreamSource(source, input, settings);
+	}
+
+	@Override
+	public JsonStreamSource resetJsonStreamSource(JsonStreamSource source, Reader reader, JsonStreamSettings settings) throws IOException {
+		return delegate.resetJsonStreamSource(source, reader, settings);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(FileChannel channel, JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamSource(channel, settings);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(ReadableByteChannel channel, JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamSource(channel, settings);
+	}
+
+	@Override
+	public JsonStreamSource createJsonStreamSource(File file, JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamSource(file, settings);
+	}
+
+	@Override
+	public JsonStreamFeedSource createJsonStreamFeedSource(JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamFeedSource(settings);
+	}
+
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty) throws IOException {
+		return createJsonStreamTarget(output, pretty, TARGET_SETTINGS);
+	}
+
+	/**
+	 * Targets writing to the gzip stream never flush automatically, since each sync flush
+	 * would end a compressed block.
+	 */
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty, JsonStreamSettings settings) throws IOException {
+		final ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output, config);
+		return new StreamTargetDelegate(delegate.createJsonStreamTarget(gzip, pretty, settings.withAutoFlush(false))) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					gzip.finish();
+				}
+			}
+		};
+	}
+
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty) throws IOException {
+		return delegate.createJsonStreamTarget(writer, pretty);
+	}
+
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return delegate.createJsonStreamTarget(writer, pretty, settings);
+	}
+
+	@Override
+	public JsonStreamTarget resetJsonStreamTarget(JsonStreamTarget target, Writer writer, boolean pretty, JsonStreamSettings settings) throws IOException {
+		return delegate.resetJsonStreamTarget(target, writer, pretty, settings);
+	}
+}
@@ -20,6 +20,7 @@ import java.io.IOException;
 import javax.xml.namespace.QName;
 
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 public class RemoveRootTarget extends StreamTargetDelegate {
 	private final QName root;
@@ -33,15 +34,28 @@ public class RemoveRootTarget extends StreamTargetDelegate {
 		this.namespaceSeparator = namespaceSeparator;
 	}
 
+	private void checkRoot(String name) throws IOException {
+		String localPart = name.substring(name.indexOf(namespaceSeparator) + 1);
+		if (!localPart.equals(root.getLocalPart())) {
+			throw new IOException("Unexpected root: " + name);
+		}
+	}
+
 	@Override
 	public void name(String name) throws IOException {
 		if (depth > 1) {
 			super.name(name);
 		} else {
-			String localPart = name.substring(name.indexOf(namespaceSeparator) + 1);
-			if (!localPart.equals(root.getLocalPart())) {
-				throw new IOException("Unexpected root: " + name);
-			}
+			checkRoot(name);
+		}
+	}
+
+	@Override
+	public void name(PreparedName name) throws IOException {
+		if (depth > 1) {
+			super.name(name);
+		} else {
+			checkRoot(name.getName());
 		}
 	}
 
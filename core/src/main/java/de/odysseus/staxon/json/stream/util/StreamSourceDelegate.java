@@ -94,6 +94,16 @@ public class StreamSourceDelegate implements JsonStreamSource {
 		delegate.endArray();
 	}
 
+	@Override
+	public void skipValue() throws IOException {
+		delegate.skipValue();
+	}
+
+	@Override
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException {
+		return delegate.stringChunk(buffer, offset, length);
+	}
+
 	@Override
 	public JsonStreamToken peek() throws IOException {
 		return delegate.peek();
@@ -101,6 +111,8 @@ public class StreamSourceDelegate implements JsonStreamSource {
 
 	/**
 	 * Copy events to given target until <code>peek() == JsonStreamToken.NONE</code>.
+	 * A non-blocking source may stop copying with <code>JsonStreamToken.NOT_AVAILABLE</code>;
+	 * after feeding more input, copying can be continued by calling this method again.
 	 * This method does <em>not</em> close streams. 
 	 * @param target
 	 * @throws IOException
@@ -131,6 +143,7 @@ public class StreamSourceDelegate implements JsonStreamSource {
 				target.value(delegate.value().data);
 				break;
 			case NONE:
+			case NOT_AVAILABLE:
 				return;
 			}
 		}		
@@ -18,6 +18,7 @@ package de.odysseus.staxon.json.stream.util;
 import java.io.IOException;
 
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 /**
  * Delegating stream target.
@@ -47,11 +48,56 @@ public class StreamTargetDelegate implements JsonStreamTarget {
 		delegate.name(name);
 	}
 
+	@Override
+	public void name(PreparedName name) throws IOException {
+		delegate.name(name);
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
 		delegate.value(value);
 	}
 
+	@Override
+	public void value(long value) throws IOException {
+		delegate.value(value);
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		delegate.value(value);
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		delegate.value(value);
+	}
+
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		delegate.rawValue(json);
+	}
+
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		delegate.rawValue(json);
+	}
+
+	@Override
+	public void startString() throws IOException {
+		delegate.startString();
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		delegate.appendString(chars, offset, length);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		delegate.endString();
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		delegate.startObject();
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, thread-safe hash table of canonical instances.
+ *
+ * <p>Subclasses compute a hash for their key, walk the {@link #bucket(int)} chain to
+ * find a matching entry and otherwise {@link #add(int, Object)} a new instance. Entries
+ * are added with a compare-and-set on the bucket head, so lookups never lock. When the
+ * table is full, it is cleared and starts over, so that names seen once (e.g. keys of a
+ * map-like document) cannot keep frequently used names out forever.</p>
+ *
+ * <p>Hit and miss counters are only maintained if statistics are enabled, since
+ * counting contends on tables shared by many threads.</p>
+ *
+ * @param <T> instance type
+ */
+public abstract class CanonicalTable<T> {
+	/**
+	 * Chained table entry.
+	 * @param <T> instance type
+	 */
+	protected static final class Entry<T> {
+		public final T value;
+		public final int hash;
+		public final Entry<T> next;
+
+		Entry(T value, int hash, Entry<T> next) {
+			this.value = value;
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Buckets and size, replaced as a whole when the table is cleared.
+	 */
+	private static final class Generation<T> {
+		final AtomicReferenceArray<Entry<T>> buckets;
+		final AtomicInteger size = new AtomicInteger();
+
+		Generation(int length) {
+			this.buckets = new AtomicReferenceArray<Entry<T>>(length);
+		}
+	}
+
+	private final AtomicReference<Generation<T>> generation;
+	private final int mask;
+	private final int capacity;
+	private final AtomicLong hits;
+	private final AtomicLong misses;
+
+	/**
+	 * Create table.
+	 * @param capacity maximum number of instances
+	 * @param statistics whether to count hits and misses
+	 */
+	protected CanonicalTable(int capacity, boolean statistics) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		int length = 16;
+		while (length < 2 * capacity && length < (1 << 30)) {
+			length <<= 1;
+		}
+		this.generation = new AtomicReference<Generation<T>>(new Generation<T>(length));
+		this.mask = length - 1;
+		this.capacity = capacity;
+		this.hits = statistics ? new AtomicLong() : null;
+		this.misses = statistics ? new AtomicLong() : null;
+	}
+
+	private int index(int hash) {
+		hash ^= (hash >>> 20) ^ (hash >>> 12);
+		return (hash ^ (hash >>> 7) ^ (hash >>> 4)) & mask;
+	}
+
+	/**
+	 * Get the first entry of the chain for the given hash.
+	 * @param hash key hash
+	 * @return first entry or <code>null</code>
+	 */
+	protected final Entry<T> bucket(int hash) {
+		return generation.get().buckets.get(index(hash));
+	}
+
+	/**
+	 * Record a lookup answered by a canonical instance.
+	 * @param value canonical instance
+	 * @return <code>value</code>
+	 */
+	protected final T hit(T value) {
+		if (hits != null) {
+			hits.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * Record a lookup which is not cached at all.
+	 * @param value new instance
+	 * @return <code>value</code>
+	 */
+	protected final T miss(T value) {
+		if (misses != null) {
+			misses.incrementAndGet();
+		}
+		return value;
+	}
+
+	/**
+	 * Record a miss and add a new instance, clearing the table if it is full.
+	 * @param hash key hash
+	 * @param value new instance
+	 * @return <code>value</code>
+	 */
+	protected final T add(int hash, T value) {
+		miss(value);
+		if (capacity == 0) {
+			return value;
+		}
+		Generation<T> current = generation.get();
+		if (current.size.incrementAndGet() > capacity) {
+			generation.compareAndSet(current, new Generation<T>(mask + 1)); // full: start over
+			current = generation.get();
+			if (current.size.incrementAndGet() > capacity) { // filled up again meanwhile
+				return value;
+			}
+		}
+		int index = index(hash);
+		Entry<T> head = current.buckets.get(index);
+		if (!current.buckets.compareAndSet(index, head, new Entry<T>(value, hash, head))) {
+			current.size.decrementAndGet(); // lost race
+		}
+		return value;
+	}
+
+	/**
+	 * @return maximum number of instances
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return current number of instances
+	 */
+	public int getSize() {
+		return Math.min(generation.get().size.get(), capacity);
+	}
+
+	/**
+	 * @return <code>true</code> if hits and misses are counted
+	 */
+	public boolean isStatistics() {
+		return hits != null;
+	}
+
+	/**
+	 * @return number of lookups answered by a canonical instance (<code>0</code> if statistics are disabled)
+	 */
+	public long getHitCount() {
+		return hits == null ? 0 : hits.get();
+	}
+
+	/**
+	 * @return number of lookups which had to create a new instance (<code>0</code> if statistics are disabled)
+	 */
+	public long getMissCount() {
+		return misses == null ? 0 : misses.get();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "(size=" + getSize() + ", capacity=" + capacity
+				+ ", hits=" + getHitCount() + ", misses=" + getMissCount() + ")";
+	}
+}
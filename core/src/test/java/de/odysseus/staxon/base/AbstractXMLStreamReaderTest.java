@@ -15,9 +15,12 @@
  */
 package de.odysseus.staxon.base;
 
+import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 
 import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -221,6 +224,140 @@ public class AbstractXMLStreamReaderTest {
 		reader.close();
 	}
 
+	/**
+	 * Queue many events in a single <code>consume()</code> call, so the event queue must grow
+	 * and wrap around; event locations must not change when slots are recycled.
+	 */
+	@Test
+	public void testEventQueue() throws XMLStreamException {
+		final int[] line = new int[1];
+		final Location location = new Location() {
+			@Override
+			public int getLineNumber() {
+				return line[0];
+			}
+			@Override
+			public int getColumnNumber() {
+				return 1;
+			}
+			@Override
+			public int getCharacterOffset() {
+				return line[0];
+			}
+			@Override
+			public String getPublicId() {
+				return null;
+			}
+			@Override
+			public String getSystemId() {
+				return null;
+			}
+		};
+		XMLStreamReader reader = new AbstractXMLStreamReader<Object>(null, location) {
+			int round;
+			{
+				initialize();
+			}
+			@Override
+			protected boolean consume() throws XMLStreamException, IOException {
+				if (round == 0) {
+					readStartDocument("1.0", null, null);
+					readStartElementTag(XMLConstants.DEFAULT_NS_PREFIX, "alice", null, null);
+				}
+				for (int i = 0; i < 50; i++) {
+					line[0]++;
+					readStartElementTag(XMLConstants.DEFAULT_NS_PREFIX, "bob", null, null);
+					readData(String.valueOf(round * 50 + i), null, XMLStreamConstants.CHARACTERS);
+					readEndElementTag();
+				}
+				if (++round < 3) {
+					return true;
+				}
+				readEndElementTag();
+				readEndDocument();
+				return false;
+			}
+		};
+		verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+		Location first = null;
+		for (int i = 0; i < 150; i++) {
+			reader.next();
+			verify(reader, XMLStreamConstants.START_ELEMENT, "bob", null);
+			Assert.assertEquals(i + 1, reader.getLocation().getLineNumber());
+			if (first == null) {
+				first = reader.getLocation();
+			}
+			reader.next();
+			verify(reader, XMLStreamConstants.CHARACTERS, null, String.valueOf(i));
+			reader.next();
+			verify(reader, XMLStreamConstants.END_ELEMENT, "bob", null);
+		}
+		Assert.assertEquals(1, first.getLineNumber());
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		Assert.assertFalse(reader.hasNext());
+		reader.close();
+	}
+
+	/**
+	 * Text read from a char array or a string; accessors must agree without copying it anew.
+	 */
+	@Test
+	public void testTextBuffer() throws XMLStreamException {
+		final char[] chars = "xx bob  \t".toCharArray();
+		XMLStreamReader reader = new AbstractXMLStreamReader<Object>(null) {
+			{
+				initialize();
+			}
+			@Override
+			protected boolean consume() throws XMLStreamException, IOException {
+				readStartDocument("1.0", null, null);
+				readStartElementTag(XMLConstants.DEFAULT_NS_PREFIX, "alice", null, null);
+				readData(chars, 2, 5, null, XMLStreamConstants.CHARACTERS);
+				readData(chars, 6, 3, null, XMLStreamConstants.CHARACTERS);
+				readData("charlie", null, XMLStreamConstants.CHARACTERS);
+				readEndElementTag();
+				readEndDocument();
+				return false;
+			}
+		};
+		Arrays.fill(chars, 'y'); // may reuse buffer
+		reader.nextTag();
+
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertFalse(reader.isWhiteSpace());
+		Assert.assertEquals(0, reader.getTextStart());
+		Assert.assertEquals(5, reader.getTextLength());
+		Assert.assertSame(reader.getTextCharacters(), reader.getTextCharacters());
+		Assert.assertEquals(" bob ", new String(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength()));
+		char[] target = new char[4];
+		Assert.assertEquals(3, reader.getTextCharacters(2, target, 1, 10));
+		Assert.assertEquals("ob ", new String(target, 1, 3));
+		Assert.assertEquals(" bob ", reader.getText());
+		Assert.assertSame(reader.getText(), reader.getText());
+
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertTrue(reader.isWhiteSpace());
+		Assert.assertEquals("  \t", reader.getText());
+
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertFalse(reader.isWhiteSpace());
+		Assert.assertEquals(7, reader.getTextLength());
+		Assert.assertEquals(4, reader.getTextCharacters(3, target, 0, 4));
+		Assert.assertEquals("rlie", new String(target));
+		Assert.assertEquals("charlie", new String(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength()));
+		Assert.assertEquals("charlie", reader.getText());
+
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertNull(reader.getTextCharacters());
+		Assert.assertEquals(0, reader.getTextLength());
+		reader.close();
+	}
+
 	/**
 	 * <code>&lt;alice&gt;&lt;/alice&gt;</code>
 	 */
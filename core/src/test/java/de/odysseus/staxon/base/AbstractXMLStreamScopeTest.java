@@ -15,7 +15,9 @@
  */
 package de.odysseus.staxon.base;
 
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
@@ -269,4 +271,72 @@ public class AbstractXMLStreamScopeTest {
 		scope.addAttribute("bar", "attr1", "http://foo", "value1");
 		scope.setStartTagClosed(true);
 	}
+
+	@Test
+	public void testNestedBindings() throws XMLStreamException {
+		TestScope root = new TestScope(XMLConstants.NULL_NS_URI);
+		root.setPrefix("foo", "http://foo");
+		root.setPrefix("bar", "http://bar");
+		AbstractXMLStreamScope scope = root;
+		for (int i = 0; i < 50; i++) {
+			scope = new TestScope(scope, "foo", "e" + i, null);
+			if (i == 20) { // rebind foo, shadowing the root binding
+				scope.setPrefix("foo", "http://foo2");
+			}
+			scope.setStartTagClosed(true);
+		}
+		Assert.assertEquals("http://foo2", scope.getNamespaceURI("foo"));
+		Assert.assertEquals("http://foo2", scope.getNamespaceURI());
+		Assert.assertEquals("http://bar", scope.getNamespaceURI("bar"));
+		Assert.assertEquals(XMLConstants.NULL_NS_URI, scope.getNamespaceURI("baz"));
+		Assert.assertEquals("foo", scope.getPrefix("http://foo2"));
+		Assert.assertEquals("bar", scope.getPrefix("http://bar"));
+		Assert.assertNull(scope.getPrefix("http://foo")); // shadowed
+
+		Iterator<?> prefixes = scope.getPrefixes("http://foo");
+		Assert.assertFalse(prefixes.hasNext());
+		prefixes = scope.getPrefixes("http://bar");
+		Assert.assertEquals("bar", prefixes.next());
+		Assert.assertFalse(prefixes.hasNext());
+
+		Assert.assertEquals("http://foo", root.getNamespaceURI("foo"));
+	}
+
+	@Test
+	public void testRebind() {
+		TestScope scope = new TestScope(XMLConstants.NULL_NS_URI);
+		for (int i = 0; i < 20; i++) {
+			scope.setPrefix("p" + i, "http://foo");
+		}
+		scope.setPrefix("p0", "http://bar");
+		scope.setPrefix("p1", "http://foo"); // latest binding goes last
+		Assert.assertEquals("http://bar", scope.getNamespaceURI("p0"));
+		Assert.assertEquals("http://foo", scope.getNamespaceURI("p19"));
+		Assert.assertEquals("p2", scope.getPrefix("http://foo"));
+		Iterator<?> prefixes = scope.getPrefixes("http://foo");
+		for (int i = 2; i < 20; i++) {
+			Assert.assertEquals("p" + i, prefixes.next());
+		}
+		Assert.assertEquals("p1", prefixes.next());
+		Assert.assertFalse(prefixes.hasNext());
+	}
+
+	@Test
+	public void testRootContext() throws XMLStreamException {
+		Map<String, String> mappings = new HashMap<String, String>();
+		mappings.put(XMLConstants.DEFAULT_NS_PREFIX, "http://default");
+		mappings.put("foo", "http://foo");
+		TestScope root = new TestScope(new RootNamespaceContext(mappings));
+		TestScope scope = new TestScope(root, "foo", "alice", null);
+		scope.setStartTagClosed(true);
+		Assert.assertEquals("http://foo", scope.getNamespaceURI());
+		Assert.assertEquals("http://default", scope.getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX));
+		Assert.assertEquals("foo", scope.getPrefix("http://foo"));
+		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, scope.getPrefix("http://default"));
+		scope = new TestScope(scope, "foo", "bob", null);
+		scope.setPrefix("foo", "http://bar");
+		scope.setStartTagClosed(true);
+		Assert.assertEquals("http://bar", scope.getNamespaceURI());
+		Assert.assertNull(scope.getPrefix("http://foo"));
+	}
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.base;
+
+import java.io.StringReader;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.odysseus.staxon.json.JsonXMLInputFactory;
+
+public class QNameCacheTest {
+	@Test
+	public void testLookup() {
+		QNameCache cache = new QNameCache(QNameCache.DEFAULT_CAPACITY, true);
+		QName alice = cache.lookup("http://foo", "alice", "foo");
+		Assert.assertEquals(new QName("http://foo", "alice", "foo"), alice);
+		Assert.assertSame(alice, cache.lookup(new String("http://foo"), new String("alice"), new String("foo")));
+		QName bar = cache.lookup("http://foo", "alice", "bar"); // prefix matters
+		Assert.assertNotSame(alice, bar);
+		Assert.assertEquals("bar", bar.getPrefix());
+		Assert.assertEquals(2, cache.getSize());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(2, cache.getMissCount());
+	}
+
+	@Test
+	public void testCapacity() {
+		QNameCache cache = new QNameCache(2, true);
+		QName alice = cache.lookup(XMLConstants.NULL_NS_URI, "alice", XMLConstants.DEFAULT_NS_PREFIX);
+		cache.lookup(XMLConstants.NULL_NS_URI, "bob", XMLConstants.DEFAULT_NS_PREFIX);
+		QName edgar = cache.lookup(XMLConstants.NULL_NS_URI, "edgar", XMLConstants.DEFAULT_NS_PREFIX); // full: start over
+		Assert.assertEquals(1, cache.getSize());
+		Assert.assertSame(edgar, cache.lookup(XMLConstants.NULL_NS_URI, "edgar", XMLConstants.DEFAULT_NS_PREFIX));
+		Assert.assertNotSame(alice, cache.lookup(XMLConstants.NULL_NS_URI, "alice", XMLConstants.DEFAULT_NS_PREFIX));
+		Assert.assertEquals(2, cache.getSize());
+		Assert.assertEquals(1, cache.getHitCount());
+		Assert.assertEquals(4, cache.getMissCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullLocalPart() {
+		new QNameCache().lookup(XMLConstants.NULL_NS_URI, null, XMLConstants.DEFAULT_NS_PREFIX);
+	}
+
+	@Test
+	public void testSharedByFactory() throws Exception {
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		String json = "{\"alice\":{\"@xmlns:foo\":\"http://foo\",\"foo:bob\":{\"@foo:charlie\":\"david\"}}}";
+		XMLStreamReader reader1 = factory.createXMLStreamReader(new StringReader(json));
+		XMLStreamReader reader2 = factory.createXMLStreamReader(new StringReader(json));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader1.nextTag());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader2.nextTag());
+		Assert.assertSame(reader1.getName(), reader2.getName());
+		Assert.assertSame(reader1.getName(), reader1.getName());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader1.nextTag());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader2.nextTag());
+		Assert.assertEquals(new QName("http://foo", "bob"), reader1.getName());
+		Assert.assertEquals("foo", reader1.getName().getPrefix());
+		Assert.assertSame(reader1.getName(), reader2.getName());
+		Assert.assertEquals(new QName("http://foo", "charlie"), reader1.getAttributeName(0));
+		Assert.assertSame(reader1.getAttributeName(0), reader2.getAttributeName(0));
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader1.nextTag());
+		Assert.assertSame(reader2.getName(), reader1.getName());
+		reader1.close();
+		reader2.close();
+
+		factory.setProperty(JsonXMLInputFactory.PROP_NAME_CACHE, null);
+		reader1 = factory.createXMLStreamReader(new StringReader(json));
+		reader2 = factory.createXMLStreamReader(new StringReader(json));
+		reader1.nextTag();
+		reader2.nextTag();
+		Assert.assertEquals(reader1.getName(), reader2.getName());
+		Assert.assertNotSame(reader1.getName(), reader2.getName());
+		reader1.close();
+		reader2.close();
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.base;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.staxon.json.JsonXMLInputFactory;
+
+public class RootNamespaceContextTest {
+	@Test
+	public void testMappings() {
+		Map<String, String> mappings = new HashMap<String, String>();
+		mappings.put(XMLConstants.DEFAULT_NS_PREFIX, "http://foo");
+		mappings.put("foo", "http://foo");
+		mappings.put("bar", "http://bar");
+		RootNamespaceContext context = new RootNamespaceContext(mappings);
+		mappings.clear(); // compiled
+		Assert.assertEquals("http://foo", context.getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX));
+		Assert.assertEquals("http://foo", context.getNamespaceURI("foo"));
+		Assert.assertEquals("http://bar", context.getNamespaceURI("bar"));
+		Assert.assertEquals(XMLConstants.NULL_NS_URI, context.getNamespaceURI("baz"));
+		Assert.assertEquals(XMLConstants.XML_NS_URI, context.getNamespaceURI(XMLConstants.XML_NS_PREFIX));
+		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, context.getPrefix("http://foo"));
+		Assert.assertEquals("bar", context.getPrefix("http://bar"));
+		Assert.assertNull(context.getPrefix("http://baz"));
+		Iterator<String> prefixes = context.getPrefixes("http://foo");
+		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, prefixes.next());
+		Assert.assertEquals("foo", prefixes.next());
+		Assert.assertFalse(prefixes.hasNext());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullPrefix() {
+		new RootNamespaceContext(new HashMap<String, String>()).getNamespaceURI(null);
+	}
+
+	@Test
+	public void testFactoryMappings() throws Exception {
+		Map<String, String> mappings = new HashMap<String, String>();
+		mappings.put("foo", "http://foo");
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		factory.setProperty(JsonXMLInputFactory.PROP_NAMESPACE_MAPPINGS, mappings);
+		for (int i = 0; i < 2; i++) {
+			XMLStreamReader reader = factory.createXMLStreamReader(new StringReader("{\"foo:alice\":{\"foo:bob\":\"charlie\"}}"));
+			Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+			Assert.assertEquals("http://foo", reader.getNamespaceURI());
+			Assert.assertEquals(0, reader.getNamespaceCount());
+			Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+			Assert.assertEquals("http://foo", reader.getNamespaceURI());
+			Assert.assertEquals("foo", reader.getNamespaceContext().getPrefix("http://foo"));
+			reader.close();
+		}
+	}
+}
@@ -15,17 +15,29 @@
  */
 package de.odysseus.staxon.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.math.BigDecimal;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+
 public class JsonXMLStreamReaderTest {
 	void verify(XMLStreamReader reader, int expectedEventType, String expectedLocalName, String expectedText) {
 		Assert.assertEquals(expectedEventType, reader.getEventType());
@@ -376,4 +388,312 @@ public class JsonXMLStreamReaderTest {
 		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
 		reader.close();
 	}
+
+	/**
+	 * <code>&lt;alice&gt;b&ouml;b&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testFileSource() throws Exception {
+		File file = File.createTempFile("staxon", ".json");
+		try {
+			OutputStream output = new FileOutputStream(file);
+			output.write("{\"alice\":\"b\u00f6b\"}".getBytes("UTF-8"));
+			output.close();
+			XMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StreamSource(file.toURI().toString()));
+			verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+			reader.next();
+			verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+			reader.next();
+			verify(reader, XMLStreamConstants.CHARACTERS, null, "b\u00f6b");
+			reader.next();
+			verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+			reader.next();
+			verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+			reader.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * <code>&lt;alice&gt;&lt;bob&gt;...&lt;/bob&gt;&lt;bob&gt;&lt;/bob&gt;&lt;bob&gt;1&lt;/bob&gt;&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testNonCoalescing() throws Exception {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 2500; i++) {
+			text.append("b\u00f6b");
+		}
+		String input = "{\"alice\":{\"bob\":[\"" + text + "\",\"\",1]}}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		factory.setProperty(JsonXMLInputFactory.PROP_TEXT_CHUNK_SIZE, 4000);
+		JsonXMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.PROCESSING_INSTRUCTION, reader.next());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+		StringBuilder chunks = new StringBuilder();
+		for (int i = 0; i < 2; i++) {
+			Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+			Assert.assertEquals(i == 0 ? 4000 : 3500, reader.getTextLength());
+			chunks.append(reader.getText());
+		}
+		Assert.assertEquals(text.toString(), chunks.toString());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertEquals("", reader.getText());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertTrue(reader.hasNumber());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.END_DOCUMENT, reader.next());
+		reader.close();
+	}
+
+	@Test
+	public void testLocationTracking() throws Exception {
+		String input = "{\n\"alice\" : \"bob\"\n}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		Assert.assertEquals(Boolean.TRUE, factory.getProperty(JsonXMLInputFactory.PROP_LOCATION_TRACKING));
+		JsonXMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(2, reader.getLocation().getLineNumber());
+		reader.close();
+
+		factory.setProperty(JsonXMLInputFactory.PROP_LOCATION_TRACKING, Boolean.FALSE);
+		reader = factory.createXMLStreamReader(new ByteArrayInputStream(input.getBytes("UTF-8")));
+		Location location = reader.getLocation();
+		Assert.assertEquals(-1, location.getLineNumber());
+		Assert.assertEquals(-1, location.getColumnNumber());
+		Assert.assertEquals(-1, location.getCharacterOffset());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertSame(location, reader.getLocation());
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertSame(location, reader.getLocation());
+		reader.close();
+	}
+
+	@Test
+	public void testSharedStreamFactory() throws Exception {
+		String input = "{\n\"alice\" : \"bob\"\n}";
+		JsonStreamFactory streamFactory = new JsonStreamFactoryImpl();
+		JsonXMLInputFactory factory = new JsonXMLInputFactory(streamFactory);
+		factory.setProperty(JsonXMLInputFactory.PROP_LOCATION_TRACKING, Boolean.FALSE);
+		factory.setProperty(JsonXMLInputFactory.PROP_SYMBOL_TABLE, null);
+		Assert.assertNull(factory.getProperty(JsonXMLInputFactory.PROP_SYMBOL_TABLE));
+		Assert.assertNotNull(new JsonXMLInputFactory(streamFactory).getProperty(JsonXMLInputFactory.PROP_SYMBOL_TABLE));
+
+		JsonXMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(-1, reader.getLocation().getLineNumber());
+		reader.close();
+
+		reader = new JsonXMLInputFactory(streamFactory).createXMLStreamReader(new StringReader(input));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(2, reader.getLocation().getLineNumber());
+		reader.close();
+	}
+
+	private void verifyDocument(XMLStreamReader reader, String name, String text) throws Exception {
+		Assert.assertEquals(XMLStreamConstants.START_DOCUMENT, reader.getEventType());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(name, reader.getLocalName());
+		Assert.assertEquals(text, reader.getElementText());
+		Assert.assertEquals(XMLStreamConstants.END_DOCUMENT, reader.next());
+		reader.close();
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		JsonXMLStreamReader reader = factory.createXMLStreamReader(new StringReader("{\"alice\":{\"bob\":\"charlie\""));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag()); // stop in the middle
+		reader.close();
+		reader.reset(new StringReader("{\"edgar\":\"david\"}"));
+		verifyDocument(reader, "edgar", "david");
+		reader.reset(new ByteArrayInputStream("{\"bob\":\"charlie\"}".getBytes("UTF-8")));
+		verifyDocument(reader, "bob", "charlie");
+
+		factory.setProperty(JsonXMLInputFactory.PROP_MULTIPLE_PI, Boolean.FALSE);
+		try {
+			reader.reset(new StringReader("{\"edgar\":\"david\"}"));
+			Assert.fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected: configuration has changed
+		}
+	}
+
+	@Test
+	public void testPool() throws Exception {
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		factory.setProperty(JsonXMLInputFactory.PROP_POOL_SIZE, 1);
+		JsonXMLStreamReader reader = factory.createXMLStreamReader(new StringReader("{\"alice\":\"bob\"}"));
+		verifyDocument(reader, "alice", "bob");
+		reader.close(); // twice
+		JsonXMLStreamReader reader2 = factory.createXMLStreamReader(new StringReader("{\"edgar\":\"david\"}"));
+		Assert.assertSame(reader, reader2);
+		Assert.assertNotSame(reader, factory.createXMLStreamReader(new StringReader("{}"))); // pool is empty
+		verifyDocument(reader2, "edgar", "david");
+		Assert.assertSame(reader, factory.createXMLStreamReader(new ByteArrayInputStream("{\"bob\":\"charlie\"}".getBytes("UTF-8"))));
+		verifyDocument(reader, "bob", "charlie");
+
+		factory.setProperty(JsonXMLInputFactory.PROP_POOL_SIZE, 1); // discard pool
+		Assert.assertNotSame(reader, factory.createXMLStreamReader(new StringReader("{}")));
+	}
+
+	private String trace(XMLStreamReader reader) {
+		StringBuilder builder = new StringBuilder().append(reader.getEventType());
+		if (reader.isStartElement()) {
+			builder.append(reader.getName());
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				builder.append(" xmlns:").append(reader.getNamespacePrefix(i)).append('=').append(reader.getNamespaceURI(i));
+			}
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				builder.append(' ').append(reader.getAttributeName(i)).append('=').append(reader.getAttributeValue(i));
+			}
+		} else if (reader.hasText()) {
+			builder.append(reader.getText());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Feed input byte by byte, compare events to blocking reader.
+	 */
+	@Test
+	public void testNonBlocking() throws Exception {
+		String input = "{\"alice\":{\"@xmlns\":{\"$\":\"http://foo\",\"p\":\"http://bar\"},\"@p:x\":\"1\",\"bob\":[\"b\u00f6b\",2],"
+				+ "\"david\":{\"@y\":\"2\",\"$\":\"edgar \u20ac\"}}}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		StringBuilder expected = new StringBuilder();
+		XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		while (true) {
+			expected.append(trace(reader)).append('\n');
+			if (!reader.hasNext()) {
+				break;
+			}
+			reader.next();
+		}
+		reader.close();
+
+		JsonXMLStreamReader nonBlockingReader = factory.createNonBlockingXMLStreamReader();
+		byte[] bytes = input.getBytes("UTF-8");
+		StringBuilder actual = new StringBuilder();
+		int incomplete = 0;
+		int position = 0;
+		while (true) {
+			if (nonBlockingReader.getEventType() == JsonXMLStreamConstants.EVENT_INCOMPLETE) {
+				incomplete++;
+				if (position < bytes.length) {
+					nonBlockingReader.getInputFeeder().feed(bytes, position++, 1);
+				} else {
+					nonBlockingReader.getInputFeeder().endOfInput();
+				}
+			} else {
+				actual.append(trace(nonBlockingReader)).append('\n');
+			}
+			if (!nonBlockingReader.hasNext()) {
+				break;
+			}
+			nonBlockingReader.next();
+		}
+		nonBlockingReader.close();
+		Assert.assertEquals(expected.toString(), actual.toString());
+		Assert.assertTrue(incomplete > 20);
+	}
+
+	/**
+	 * Attributes are consumed in a single step, which must not grow the stack.
+	 */
+	@Test
+	public void testManyAttributes() throws Exception {
+		StringBuilder input = new StringBuilder("{\"alice\":{");
+		for (int i = 0; i < 100000; i++) {
+			input.append("\"@a").append(i).append("\":\"").append(i).append("\",");
+		}
+		input.append("\"$\":\"bob\"}}");
+		XMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StringReader(input.toString()));
+		verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+		Assert.assertEquals(100000, reader.getAttributeCount());
+		Assert.assertEquals("99999", reader.getAttributeValue(null, "a99999"));
+		reader.next();
+		verify(reader, XMLStreamConstants.CHARACTERS, null, "bob");
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		reader.close();
+	}
+
+	String nested(int depth) {
+		StringBuilder builder = new StringBuilder("{");
+		for (int i = 0; i < depth; i++) {
+			builder.append("\"e\":{");
+		}
+		for (int i = 0; i <= depth; i++) {
+			builder.append('}');
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * The reader limits element nesting, even if its source doesn't.
+	 */
+	@Test
+	public void testMaxDepth() throws Exception {
+		JsonStreamFactory streamFactory = new JsonStreamFactoryImpl();
+		JsonStreamSettings settings = new JsonStreamSettings().withMaxDepth(2 * JsonStreamSettings.DEFAULT_MAX_DEPTH);
+
+		XMLStreamReader reader = new JsonXMLStreamReader(streamFactory.createJsonStreamSource(new StringReader(nested(JsonStreamSettings.DEFAULT_MAX_DEPTH)), settings), false, ':');
+		int depth = 0;
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			}
+		}
+		Assert.assertEquals(JsonStreamSettings.DEFAULT_MAX_DEPTH, depth);
+		reader.close();
+
+		try { // nested starts are consumed in one step, i.e. during initialization
+			reader = new JsonXMLStreamReader(streamFactory.createJsonStreamSource(new StringReader(nested(JsonStreamSettings.DEFAULT_MAX_DEPTH + 1)), settings), false, ':');
+			while (reader.hasNext()) {
+				reader.next();
+			}
+			Assert.fail("expected exception");
+		} catch (XMLStreamException e) {
+			Assert.assertEquals("Maximum depth exceeded: " + JsonStreamSettings.DEFAULT_MAX_DEPTH, e.getNestedException().getMessage());
+		}
+	}
+
+	@Test
+	public void testNonBlockingVirtualRoot() throws Exception {
+		JsonXMLInputFactory factory = new JsonXMLInputFactory(new JsonXMLConfigBuilder().virtualRoot("alice").build());
+		JsonXMLStreamReader reader = factory.createNonBlockingXMLStreamReader();
+		Assert.assertEquals(XMLStreamConstants.START_DOCUMENT, reader.getEventType());
+		Assert.assertEquals(JsonXMLStreamConstants.EVENT_INCOMPLETE, reader.next());
+		byte[] bytes = "{\"bob\":\"charlie\"}".getBytes("UTF-8");
+		reader.getInputFeeder().feed(bytes, 0, 8);
+		Assert.assertEquals(JsonXMLStreamConstants.EVENT_INCOMPLETE, reader.next()); // alice may get attributes
+		reader.getInputFeeder().feed(bytes, 8, bytes.length - 8);
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+		Assert.assertEquals("alice", reader.getLocalName());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.next());
+		Assert.assertEquals("bob", reader.getLocalName());
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertEquals("charlie", reader.getText());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.next());
+		Assert.assertEquals("alice", reader.getLocalName());
+		Assert.assertEquals(JsonXMLStreamConstants.EVENT_INCOMPLETE, reader.next());
+		reader.getInputFeeder().endOfInput();
+		Assert.assertEquals(XMLStreamConstants.END_DOCUMENT, reader.next());
+		Assert.assertFalse(reader.hasNext());
+		reader.close();
+	}
 }
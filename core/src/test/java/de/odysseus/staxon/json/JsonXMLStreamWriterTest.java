@@ -15,6 +15,7 @@
  */
 package de.odysseus.staxon.json;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
 
 import javax.xml.namespace.QName;
@@ -311,6 +312,189 @@ public class JsonXMLStreamWriterTest {
 		Assert.assertEquals("{\"alice\":true}", result.toString());
 	}
 
+	@Test
+	public void testRawJson() throws Exception {
+		StringWriter result = new StringWriter();
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeStartElement("bob");
+		writer.writeRawJson("{\"edgar\":[1,null]}");
+		writer.writeEndElement();
+		writer.writeStartArray("david");
+		writer.writeStartElement("david");
+		writer.writeRawJson("\"caf\u00e9\"".getBytes("UTF-8"));
+		writer.writeEndElement();
+		writer.writeStartElement("david");
+		writer.writeCharacters("x");
+		writer.writeEndElement();
+		writer.writeEndArray();
+		writer.writeStartElement("charlie");
+		writer.writeAttribute("id", "1");
+		writer.writeRawJson("true");
+		writer.writeEndElement();
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":{\"edgar\":[1,null]},\"david\":[\"caf\u00e9\",\"x\"],\"charlie\":{\"@id\":\"1\",\"$\":true}}}", result.toString());
+	}
+
+	@Test
+	public void testRawJsonStream() throws Exception {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeRawJson("{\"bob\":\"caf\u00e9\"}".getBytes("UTF-8"));
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":\"caf\u00e9\"}}", result.toString("UTF-8"));
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testRawJsonMixedContent() throws Exception {
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("bob");
+		writer.writeRawJson("1");
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testRawJsonTrailingText() throws Exception {
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeRawJson("{\"bob\":1}");
+		writer.writeCharacters("tail");
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testRawJsonTrailingNumber() throws Exception {
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeRawJson("{\"bob\":1}");
+		writer.writeNumber(1);
+	}
+
+	@Test
+	public void testStreamText() throws Exception {
+		StringWriter result = new StringWriter();
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("\n  ");
+		writer.writeStartElement("bob");
+		writer.writeAttribute("id", "1");
+		writer.writeCharacters(" ");
+		writer.writeCharacters("ab\"");
+		writer.writeCharacters("xcdx".toCharArray(), 1, 2);
+		writer.writeEndElement();
+		writer.writeCharacters("\n");
+		writer.writeCharacters("\n");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":{\"@id\":\"1\",\"$\":\" ab\\\"cd\"}}}", result.toString());
+	}
+
+	@Test
+	public void testStreamTextMixedContentMessage() throws Exception {
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("bob");
+		writer.writeCharacters(" and a rather long text that does not fit");
+		try {
+			writer.writeStartElement("edgar");
+			Assert.fail("expected exception");
+		} catch (XMLStreamException e) {
+			Assert.assertEquals("Mixed content is not supported: 'bob and a rather long text that ...'", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testStreamTextAutoPrimitive() throws Exception {
+		StringWriter result = new StringWriter();
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory();
+		factory.setProperty(JsonXMLOutputFactory.PROP_AUTO_PRIMITIVE, true);
+		factory.setProperty(JsonXMLOutputFactory.PROP_AUTO_ARRAY, true);
+		JsonXMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeStartElement("bob");
+		writer.writeCharacters("12");
+		writer.writeCharacters("3");
+		writer.writeEndElement();
+		writer.writeStartElement("bob");
+		writer.writeCharacters("x");
+		writer.writeCharacters("y");
+		writer.writeEndElement();
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":[123,\"xy\"]}}", result.toString());
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testStreamTextMixedContent() throws Exception {
+		JsonXMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("b");
+		writer.writeCharacters("ob");
+		writer.writeStartElement("edgar");
+	}
+
+	private void writeDocument(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+		writer.writeStartDocument();
+		writer.writeStartElement(name);
+		writer.writeCharacters(text);
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory();
+		StringWriter result = new StringWriter();
+		JsonXMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice"); // stop in the middle
+
+		result = new StringWriter();
+		writer.reset(result);
+		writeDocument(writer, "bob", "charlie");
+		Assert.assertEquals("{\"bob\":\"charlie\"}", result.toString());
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		writer.reset(stream);
+		writeDocument(writer, "edgar", "david");
+		Assert.assertEquals("{\"edgar\":\"david\"}", stream.toString("UTF-8"));
+	}
+
+	@Test
+	public void testPool() throws Exception {
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory();
+		factory.setProperty(JsonXMLOutputFactory.PROP_VIRTUAL_ROOT, "alice");
+		factory.setProperty(JsonXMLOutputFactory.PROP_POOL_SIZE, 1);
+		StringWriter result = new StringWriter();
+		JsonXMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writeDocument(writer, "alice", "bob");
+		Assert.assertEquals("\"bob\"", result.toString());
+
+		result = new StringWriter();
+		Assert.assertSame(writer, factory.createXMLStreamWriter(result));
+		writeDocument(writer, "alice", "charlie");
+		Assert.assertEquals("\"charlie\"", result.toString());
+
+		factory.setProperty(JsonXMLOutputFactory.PROP_VIRTUAL_ROOT, null); // discard pool
+		Assert.assertNotSame(writer, factory.createXMLStreamWriter(new StringWriter()));
+	}
+
 	@Test
 	public void testNull() throws Exception {
 		StringWriter result = new StringWriter();
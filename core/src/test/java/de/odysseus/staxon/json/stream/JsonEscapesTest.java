@@ -0,0 +1,47 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class JsonEscapesTest {
+	@Test
+	public void testGet() {
+		Assert.assertEquals("\\\"", JsonEscapes.get('"'));
+		Assert.assertEquals("\\\\", JsonEscapes.get('\\'));
+		Assert.assertEquals("\\t", JsonEscapes.get('\t'));
+		Assert.assertEquals("\\u001F", JsonEscapes.get('\u001f'));
+		Assert.assertNull(JsonEscapes.get('a'));
+		Assert.assertNull(JsonEscapes.get('/'));
+		Assert.assertNull(JsonEscapes.get('\u00e4'));
+	}
+
+	@Test
+	public void testUnicodeEscape() {
+		char[] chars = new char[8];
+		Assert.assertEquals(7, JsonEscapes.unicodeEscape('\ud83d', chars, 1));
+		Assert.assertEquals("\\uD83D", new String(chars, 1, 6));
+	}
+
+	@Test
+	public void testQuote() {
+		Assert.assertEquals("\"\"", JsonEscapes.quote(""));
+		Assert.assertEquals("\"alice\"", JsonEscapes.quote("alice"));
+		Assert.assertEquals("\"a\\\"b\\\\c\\n\\u0001\u00e4\"", JsonEscapes.quote("a\"b\\c\n\u0001\u00e4"));
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
+public class JsonNumberTest {
+	@Test
+	public void testIntegral() {
+		Assert.assertTrue(new JsonNumber("123").isIntegral());
+		Assert.assertTrue(new JsonNumber("-0").isIntegral());
+		Assert.assertFalse(new JsonNumber("1.0").isIntegral());
+		Assert.assertFalse(new JsonNumber("1e3").isIntegral());
+		Assert.assertFalse(new JsonNumber("-1E3").isIntegral());
+	}
+
+	@Test
+	public void testLongValue() {
+		Assert.assertEquals(123L, new JsonNumber("123").longValue());
+		Assert.assertEquals(-123L, new JsonNumber("-123").longValue());
+		Assert.assertEquals(Long.MAX_VALUE, new JsonNumber(String.valueOf(Long.MAX_VALUE)).longValue());
+		Assert.assertEquals(Long.MIN_VALUE, new JsonNumber(String.valueOf(Long.MIN_VALUE)).longValue());
+		Assert.assertEquals(12L, new JsonNumber("12.9").longValue());
+		Assert.assertEquals(1200L, new JsonNumber("1.2e3").longValue());
+		Assert.assertEquals(123, new JsonNumber("123").intValue());
+	}
+
+	@Test
+	public void testIsLong() {
+		Assert.assertTrue(new JsonNumber("123").isLong());
+		Assert.assertTrue(new JsonNumber(String.valueOf(Long.MIN_VALUE)).isLong());
+		Assert.assertFalse(new JsonNumber("9223372036854775808").isLong());
+		Assert.assertFalse(new JsonNumber("1.0").isLong());
+	}
+
+	@Test
+	public void testDoubleValue() {
+		String[] texts = {
+			"0", "-0", "123", "-123", "12.3", "0.1", "-0.000123", "1.2e3", "1.2E-3", "12e+3",
+			"123456789012345678901234567890", "9007199254740993", "1.7976931348623157e308",
+			"4.9e-324", "1e400", "0.30000000000000004", "2.2250738585072014E-308"
+		};
+		for (String text : texts) {
+			Assert.assertEquals(text, Double.parseDouble(text), new JsonNumber(text).doubleValue(), 0);
+		}
+		Assert.assertEquals(Double.doubleToLongBits(-0.0), Double.doubleToLongBits(new JsonNumber("-0").doubleValue()));
+		Assert.assertEquals(1.5f, new JsonNumber("1.5").floatValue());
+	}
+
+	@Test
+	public void testGetNumber() {
+		Assert.assertEquals(new BigInteger("123456789012345678901234567890"), new JsonNumber("123456789012345678901234567890").getNumber());
+		Assert.assertEquals(new BigDecimal("12.30"), new JsonNumber("12.30").getNumber());
+		Assert.assertEquals(new BigDecimal("123"), new JsonNumber("123").bigDecimalValue());
+		Assert.assertEquals(new BigInteger("12"), new JsonNumber("12.3").bigIntegerValue());
+		JsonNumber number = new JsonNumber("1.5");
+		Assert.assertSame(number.getNumber(), number.getNumber());
+	}
+
+	@Test
+	public void testEquals() {
+		Assert.assertEquals(new JsonNumber("1.0"), new JsonNumber("1.0"));
+		Assert.assertEquals(new JsonNumber("1.0").hashCode(), new JsonNumber("1.0").hashCode());
+		Assert.assertFalse(new JsonNumber("1.0").equals(new JsonNumber("1.00")));
+	}
+
+	/**
+	 * Numbers are copied without being decoded and re-formatted.
+	 */
+	@Test
+	public void testPassThrough() throws IOException {
+		String input = "[1.50,12E3,-0.0,123456789012345678901234567890]";
+		JsonStreamFactory factory = new JsonStreamFactoryImpl();
+		StringWriter result = new StringWriter();
+		StreamSourceDelegate source = new StreamSourceDelegate(factory.createJsonStreamSource(new StringReader(input)));
+		JsonStreamTarget target = factory.createJsonStreamTarget(result, false);
+		source.copy(target);
+		source.close();
+		target.close();
+		Assert.assertEquals(input, result.toString());
+	}
+}
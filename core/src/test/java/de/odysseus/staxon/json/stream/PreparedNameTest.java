@@ -0,0 +1,65 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+
+public class PreparedNameTest {
+	@Test
+	public void testQuoted() throws IOException {
+		PreparedName name = new PreparedName("a\"b\\c\n\u0001\u00e4");
+		Assert.assertEquals("a\"b\\c\n\u0001\u00e4", name.getName());
+		Assert.assertEquals("\"a\\\"b\\\\c\\n\\u0001\u00e4\"", new String(name.getQuotedChars()));
+		Assert.assertEquals("\"a\\\"b\\\\c\\n\\u0001\u00e4\"", new String(name.getQuotedUtf8(), "UTF-8"));
+	}
+
+	private void write(JsonStreamTarget target, PreparedName name) throws IOException {
+		target.startObject();
+		target.name(name);
+		target.startObject();
+		target.name(name);
+		target.value("bob");
+		target.endObject();
+		target.endObject();
+		target.close();
+	}
+
+	@Test
+	public void testDefaultTarget() throws IOException {
+		PreparedName name = new PreparedName("\u00e4lice");
+		String expected = "{\"\u00e4lice\":{\"\u00e4lice\":\"bob\"}}";
+
+		StringWriter writer = new StringWriter();
+		write(new JsonStreamFactoryImpl().createJsonStreamTarget(writer, false), name);
+		Assert.assertEquals(expected, writer.toString());
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		write(new JsonStreamFactoryImpl().createJsonStreamTarget(output, false), name);
+		Assert.assertEquals(expected, output.toString("UTF-8"));
+
+		writer = new StringWriter();
+		write(new JsonStreamFactoryImpl(" ", "  ", "\n").createJsonStreamTarget(writer, true), name);
+		Assert.assertEquals("{\n  \"\u00e4lice\" : {\n    \"\u00e4lice\" : \"bob\"\n  }\n}", writer.toString());
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class SymbolTableTest {
+	@Test
+	public void testLookup() {
+		SymbolTable symbols = new SymbolTable(SymbolTable.DEFAULT_CAPACITY, true);
+		char[] chars = "xalicex".toCharArray();
+		String alice = symbols.lookup(chars, 1, 5);
+		Assert.assertEquals("alice", alice);
+		Assert.assertSame(alice, symbols.lookup(chars, 1, 5));
+		Assert.assertSame(alice, symbols.lookup(new String("alice")));
+		Assert.assertEquals(1, symbols.getSize());
+		Assert.assertEquals(2, symbols.getHitCount());
+		Assert.assertEquals(1, symbols.getMissCount());
+	}
+
+	@Test
+	public void testCapacity() {
+		SymbolTable symbols = new SymbolTable(2, true);
+		String alice = symbols.lookup(new String("alice"));
+		symbols.lookup("bob");
+		Assert.assertEquals(2, symbols.getSize());
+		String edgar = symbols.lookup(new String("edgar")); // full: start over
+		Assert.assertEquals(1, symbols.getSize());
+		Assert.assertSame(edgar, symbols.lookup(new String("edgar")));
+		Assert.assertNotSame(alice, symbols.lookup(new String("alice")));
+		Assert.assertEquals(2, symbols.getSize());
+		Assert.assertEquals(1, symbols.getHitCount());
+		Assert.assertEquals(4, symbols.getMissCount());
+	}
+
+	@Test
+	public void testStatisticsDisabled() {
+		SymbolTable symbols = new SymbolTable();
+		Assert.assertFalse(symbols.isStatistics());
+		Assert.assertSame(symbols.lookup("alice"), symbols.lookup(new String("alice")));
+		Assert.assertEquals(0, symbols.getHitCount());
+		Assert.assertEquals(0, symbols.getMissCount());
+	}
+
+	@Test
+	public void testLongName() {
+		SymbolTable symbols = new SymbolTable();
+		char[] chars = new char[SymbolTable.MAX_SYMBOL_LENGTH + 1];
+		Assert.assertNotSame(symbols.lookup(chars, 0, chars.length), symbols.lookup(chars, 0, chars.length));
+		Assert.assertEquals(0, symbols.getSize());
+	}
+
+	@Test
+	public void testSharedByFactory() throws IOException {
+		JsonStreamFactory factory = JsonStreamFactory.newFactory();
+		JsonStreamSource source1 = factory.createJsonStreamSource(new StringReader("{\"alice\":\"bob\"}"));
+		JsonStreamSource source2 = factory.createJsonStreamSource(new StringReader("{\"alice\":\"bob\"}"));
+		source1.startObject();
+		source2.startObject();
+		Assert.assertSame(source1.name(), source2.name());
+		source1.close();
+		source2.close();
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class ByteBufferPoolTest {
+	@Test
+	public void testAcquireRelease() {
+		ByteBufferPool pool = new ByteBufferPool(16, 1);
+		ByteBuffer buffer1 = pool.acquire();
+		ByteBuffer buffer2 = pool.acquire();
+		Assert.assertNotSame(buffer1, buffer2);
+		Assert.assertTrue(buffer1.isDirect());
+		Assert.assertEquals(16, buffer1.capacity());
+		buffer1.put((byte) 1);
+		pool.release(buffer1);
+		pool.release(buffer2); // dropped, pool is full
+		ByteBuffer buffer3 = pool.acquire();
+		Assert.assertSame(buffer1, buffer3);
+		Assert.assertEquals(0, buffer3.position());
+		Assert.assertNotSame(buffer2, pool.acquire());
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.odysseus.staxon.json.JsonXMLInputFactory;
+import de.odysseus.staxon.json.JsonXMLOutputFactory;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
+import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
+public class ChannelInputStreamTest {
+	@Test
+	public void testRead() throws IOException {
+		ByteBufferPool pool = new ByteBufferPool(8, 1);
+		ChannelInputStream input = new ChannelInputStream(Channels.newChannel(new ByteArrayInputStream("0123456789".getBytes("UTF-8"))), pool);
+		Assert.assertEquals(0, input.available());
+		Assert.assertEquals('0', input.read());
+		Assert.assertEquals(7, input.available());
+		byte[] buffer = new byte[16];
+		Assert.assertEquals(7, input.read(buffer, 0, 16));
+		Assert.assertEquals("1234567", new String(buffer, 0, 7, "UTF-8"));
+		Assert.assertEquals(2, input.read(buffer, 0, 16));
+		Assert.assertEquals(-1, input.read(buffer, 0, 16));
+		Assert.assertEquals(-1, input.read());
+		input.close();
+		Assert.assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		String input = "{\"alice\":[\"b\\u00f6b\",\"\u20ac\ud834\udd1e\",123,true,null]}";
+		JsonStreamFactoryImpl factory = new JsonStreamFactoryImpl();
+		factory.setChannelBufferSize(8);
+		Assert.assertEquals(8, factory.getChannelBufferSize());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		JsonStreamSettings settings = new JsonStreamSettings();
+		JsonStreamSource source = factory.createJsonStreamSource(Channels.newChannel(new ByteArrayInputStream(input.getBytes("UTF-8"))), settings);
+		JsonStreamTarget target = factory.createJsonStreamTarget(Channels.newChannel(output), false, settings);
+		new StreamSourceDelegate(source).copy(target);
+		source.close();
+		target.close();
+		Assert.assertEquals(input.replace("\\u00f6", "\u00f6"), new String(output.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testXMLFactories() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		XMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(Channels.newChannel(output));
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("b\u00f6b");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":\"b\u00f6b\"}", new String(output.toByteArray(), "UTF-8"));
+
+		XMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(Channels.newChannel(new ByteArrayInputStream(output.toByteArray())));
+		Assert.assertEquals(XMLStreamReader.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals("alice", reader.getLocalName());
+		Assert.assertEquals("b\u00f6b", reader.getElementText());
+		reader.close();
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class DoubleFormatTest {
+	private String format(double value) {
+		char[] buffer = new char[DoubleFormat.MAX_LENGTH + 1];
+		buffer[0] = 'x';
+		int end = DoubleFormat.format(value, buffer, 1);
+		Assert.assertEquals('x', buffer[0]);
+		return new String(buffer, 1, end - 1);
+	}
+
+	@Test
+	public void testLayout() {
+		Assert.assertEquals("0.0", format(0.0));
+		Assert.assertEquals("-0.0", format(-0.0));
+		Assert.assertEquals("1.0", format(1.0));
+		Assert.assertEquals("-123.456", format(-123.456));
+		Assert.assertEquals("0.001", format(0.001));
+		Assert.assertEquals("1.0E-4", format(0.0001));
+		Assert.assertEquals("9999999.0", format(9999999.0));
+		Assert.assertEquals("1.0E7", format(1e7));
+		Assert.assertEquals("1.2345678E7", format(12345678.0));
+		Assert.assertEquals("-1.7976931348623157E308", format(-Double.MAX_VALUE));
+		Assert.assertEquals("NaN", format(Double.NaN));
+		Assert.assertEquals("-Infinity", format(Double.NEGATIVE_INFINITY));
+	}
+
+	@Test
+	public void testShortest() {
+		// JDK 8 Double.toString() answers 4.9E-324, 1.9999999999999998E23, 9.999999999999999E22, 8.509699999999999E20
+		Assert.assertEquals("5.0E-324", format(Double.MIN_VALUE));
+		Assert.assertEquals("2.0E23", format(2e23));
+		Assert.assertEquals("1.0E23", format(1e23));
+		Assert.assertEquals("8.5097E20", format(8.5097e20));
+		Assert.assertEquals("0.3", format(0.3));
+		Assert.assertEquals("0.30000000000000004", format(0.1 + 0.2));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random random = new Random(0);
+		for (int i = 0; i < 100000; i++) {
+			double value = Double.longBitsToDouble(random.nextLong());
+			if (!Double.isNaN(value)) {
+				String text = format(value);
+				Assert.assertEquals(text, value, Double.parseDouble(text));
+				Assert.assertTrue(text, text.length() <= Double.toString(value).length());
+			}
+		}
+	}
+}
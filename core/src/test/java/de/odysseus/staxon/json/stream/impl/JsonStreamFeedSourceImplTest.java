@@ -0,0 +1,120 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.odysseus.staxon.json.stream.JsonStreamFeedSource;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
+import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
+public class JsonStreamFeedSourceImplTest {
+	private static final String INPUT =
+			"{\"alice\" : [\"b\\u00f6b\", 123.45e-6, true, null],\r\n\"\u20ac\": {\"\ud834\udd1e\": \"\"}, \"david\": -0}";
+
+	private String copy(byte[] bytes, int chunkSize) throws IOException {
+		JsonStreamFeedSource source = new JsonStreamFactoryImpl().createJsonStreamFeedSource(new JsonStreamSettings());
+		StringWriter result = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(result, false);
+		StreamSourceDelegate delegate = new StreamSourceDelegate(source);
+		for (int position = 0; position < bytes.length; position += chunkSize) {
+			Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+			source.feed(bytes, position, Math.min(chunkSize, bytes.length - position));
+			delegate.copy(target);
+		}
+		source.endOfInput();
+		delegate.copy(target);
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+		return result.toString();
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		byte[] bytes = INPUT.getBytes("UTF-8");
+		String expected = copy(bytes, bytes.length);
+		Assert.assertEquals("{\"alice\":[\"b\u00f6b\",123.45e-6,true,null],\"\u20ac\":{\"\ud834\udd1e\":\"\"},\"david\":-0}", expected);
+		for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+			Assert.assertEquals(expected, copy(bytes, chunkSize));
+		}
+	}
+
+	@Test
+	public void testLocation() throws IOException {
+		JsonStreamFeedSource source = new JsonStreamFactoryImpl().createJsonStreamFeedSource(new JsonStreamSettings());
+		byte[] bytes = "[\r\n\"bob\"]".getBytes("UTF-8");
+		for (int i = 0; i < bytes.length; i++) {
+			source.feed(bytes, i, 1);
+			source.peek();
+		}
+		source.startArray();
+		Assert.assertEquals("bob", source.value().text);
+		Assert.assertEquals(2, source.getLineNumber());
+		Assert.assertEquals(5, source.getColumnNumber());
+		Assert.assertEquals(7, source.getCharacterOffset());
+		source.close();
+	}
+
+	@Test
+	public void testSkipValue() throws IOException {
+		JsonStreamFeedSource source = new JsonStreamFactoryImpl().createJsonStreamFeedSource(new JsonStreamSettings());
+		byte[] bytes = "{\"alice\":{\"bob\":[\"}\\\"\"],\"charlie\":{}},\"david\":1}".getBytes("UTF-8");
+		source.feed(bytes, 0, 9);
+		source.startObject();
+		Assert.assertEquals(JsonStreamToken.NAME, source.peek());
+		source.skipValue(); // name "alice" and its (unavailable) value
+		int position = 9;
+		while (source.peek() == JsonStreamToken.NOT_AVAILABLE) {
+			source.feed(bytes, position++, 1);
+		}
+		Assert.assertEquals("david", source.name());
+		Assert.assertEquals(bytes.length - 3, position);
+		source.feed(bytes, position, bytes.length - position);
+		source.endOfInput();
+		Assert.assertEquals(1L, source.value().longValue());
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testPrematureEOF() throws IOException {
+		JsonStreamFeedSource source = new JsonStreamFactoryImpl().createJsonStreamFeedSource(new JsonStreamSettings());
+		byte[] bytes = "[\"bob".getBytes("UTF-8");
+		source.feed(bytes, 0, bytes.length);
+		source.startArray();
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.endOfInput();
+		try {
+			source.peek();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("Unterminated string", e.getMessage());
+		}
+		try {
+			source.feed(bytes, 0, bytes.length);
+			Assert.fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
@@ -15,11 +15,13 @@
  */
 package de.odysseus.staxon.json.stream.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
 
 import junit.framework.Assert;
 
@@ -27,6 +29,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import de.odysseus.staxon.json.stream.JsonNumber;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
 import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
@@ -289,32 +293,42 @@ public class JsonStreamSourceImplTest {
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("123", value.text);
-		Assert.assertEquals(new BigInteger("123"), value.data);
+		Assert.assertEquals(new JsonNumber("123"), value.data);
+		Assert.assertEquals(new BigInteger("123"), value.getNumber());
+		Assert.assertTrue(value.isIntegral());
+		Assert.assertEquals(123L, value.longValue());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12e3", value.text);
-		Assert.assertEquals(new BigDecimal("12e3"), value.data);
+		Assert.assertEquals(new JsonNumber("12e3"), value.data);
+		Assert.assertEquals(new BigDecimal("12e3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12E3", value.text);
-		Assert.assertEquals(new BigDecimal("12E3"), value.data);
+		Assert.assertEquals(new JsonNumber("12E3"), value.data);
+		Assert.assertEquals(new BigDecimal("12E3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12.3", value.text);
-		Assert.assertEquals(new BigDecimal("12.3"), value.data);
+		Assert.assertEquals(new JsonNumber("12.3"), value.data);
+		Assert.assertEquals(new BigDecimal("12.3"), value.getNumber());
+		Assert.assertFalse(value.isIntegral());
+		Assert.assertEquals(12.3, value.doubleValue(), 0);
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2e3", value.text);
-		Assert.assertEquals(new BigDecimal("1.2e3"), value.data);
+		Assert.assertEquals(new JsonNumber("1.2e3"), value.data);
+		Assert.assertEquals(new BigDecimal("1.2e3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2E3", value.text);
-		Assert.assertEquals(new BigDecimal("1.2E3"), value.data);
+		Assert.assertEquals(new JsonNumber("1.2E3"), value.data);
+		Assert.assertEquals(new BigDecimal("1.2E3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
 		source.endArray();
@@ -400,6 +414,76 @@ public class JsonStreamSourceImplTest {
 		source.close();
 	}
 
+	private void verifyLineBreaks(JsonStreamSourceImpl source) throws IOException {
+		source.startObject();
+		Assert.assertEquals("a", source.name());
+		Assert.assertEquals(2, source.getLineNumber());
+		Assert.assertEquals(3, source.getColumnNumber());
+		Assert.assertEquals(5, source.getCharacterOffset());
+		source.skipValue();
+		Assert.assertEquals(5, source.getLineNumber());
+		Assert.assertEquals(1, source.getColumnNumber());
+		Assert.assertEquals(17, source.getCharacterOffset());
+		Assert.assertEquals("b", source.name());
+		Assert.assertEquals(6, source.getLineNumber());
+		Assert.assertEquals(3, source.getColumnNumber());
+		Assert.assertEquals(23, source.getCharacterOffset());
+		Assert.assertEquals("3", source.value().text);
+		Assert.assertEquals(6, source.getLineNumber());
+		Assert.assertEquals(7, source.getColumnNumber());
+		Assert.assertEquals(27, source.getCharacterOffset());
+		source.endObject();
+		source.close();
+	}
+
+	@Test
+	public void testReset() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			builder.append('x');
+		}
+		String pending = "{\"alice\":[\"" + builder + "\"";
+		String input = "\n{\"bob\":\"charlie\"}";
+
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(new StringReader(pending)), false);
+		source.startObject();
+		source.name();
+		source.startArray();
+		Assert.assertEquals(10, source.stringChunk(new char[10], 0, 10)); // leave string pending
+		Assert.assertTrue(source.reset(new StringReader(input)));
+		Assert.assertFalse(source.reset(new ByteArrayInputStream(new byte[0])));
+		source.startObject();
+		Assert.assertEquals("bob", source.name());
+		Assert.assertEquals(2, source.getLineNumber());
+		Assert.assertEquals("charlie", source.value().text);
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+
+		source = new JsonStreamSourceImpl(new Utf8Scanner(new ByteArrayInputStream(pending.getBytes("UTF-8")), null), false);
+		source.startObject();
+		source.name();
+		source.startArray();
+		Assert.assertEquals(10, source.stringChunk(new char[10], 0, 10));
+		Assert.assertTrue(source.reset(new ByteArrayInputStream(input.getBytes("UTF-8"))));
+		Assert.assertFalse(source.reset(new StringReader(input)));
+		source.startObject();
+		Assert.assertEquals("bob", source.name());
+		Assert.assertEquals(2, source.getLineNumber());
+		Assert.assertEquals("charlie", source.value().text);
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+
+		source = new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true); // closes scanner
+		Assert.assertFalse(source.reset(new StringReader(input)));
+	}
+
+	@Test
+	public void testLocationLineBreaks() throws IOException {
+		String input = "{\r\n\"a\" : [\r\n1,\r2\n],\r\n\"b\" : 3}";
+		verifyLineBreaks(new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true));
+		verifyLineBreaks(new JsonStreamSourceImpl(new Utf8Scanner(new ByteArrayInputStream(input.getBytes("UTF-8")), null), true));
+	}
+
 	@Test
 	public void testInvalid_UnclosedArray() throws IOException {
 		readInvalid("{\"alice\":[\"bob\"}}", IOException.class, "Unclosed array");
@@ -435,8 +519,145 @@ public class JsonStreamSourceImplTest {
 		readInvalid("\"alice\":\"bob\"", IOException.class, "Unexpected symbol: COLON");
 	}
 
+	@Test
+	public void testSkipValue() throws IOException {
+		StringReader reader = new StringReader("{\"alice\":{\"bob\":[\"x]}\\\"{\",[[1]],{\"c\":1}],\"d\":\"e\"},\"edgar\":[1,2],\"f\":3}");
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(reader), true);
+		source.startObject();
+		source.skipValue();
+		Assert.assertEquals("edgar", source.name());
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.NAME, source.peek());
+		Assert.assertEquals("f", source.name());
+		source.skipValue();
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testStringChunk() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append("abc\u00e4\\n");
+		}
+		String text = builder.toString().replace("\\n", "\n");
+		StringReader reader = new StringReader("{\"alice\":[\"" + builder + "\",\"" + builder + "\",true],\"" + builder + "\":\"" + builder + "\"}");
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(reader), true);
+		source.startObject();
+		Assert.assertEquals("alice", source.name());
+		source.startArray();
+		StringBuilder chunks = new StringBuilder();
+		char[] buffer = new char[1000];
+		int count;
+		do {
+			count = source.stringChunk(buffer, 0, buffer.length);
+			chunks.append(buffer, 0, count);
+		} while (count == buffer.length);
+		Assert.assertEquals(text, chunks.toString());
+		Assert.assertEquals(text, source.value().text);
+		Assert.assertEquals(-1, source.stringChunk(buffer, 0, buffer.length));
+		Assert.assertEquals(JsonStreamSource.TRUE, source.value());
+		source.endArray();
+		Assert.assertEquals(text, source.name());
+		source.skipValue(); // skip pending string
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testStringChunkLongRun() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 3 * Yylex.TEXT_CHUNK_SIZE; i++) {
+			builder.append((char) ('a' + i % 26));
+		}
+		String run = builder.toString();
+		String json = "{\"a\":\"" + run + "\\n" + run + "\",\"b\":{\"" + run + "\":[\"" + run + "\\\"\"]},\"c\":\"" + run + "\",\"d\":1}";
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(new StringReader(json)), true);
+		source.startObject();
+		Assert.assertEquals("a", source.name());
+		StringBuilder chunks = new StringBuilder();
+		char[] buffer = new char[1000];
+		int count;
+		do {
+			count = source.stringChunk(buffer, 0, buffer.length);
+			chunks.append(buffer, 0, count);
+		} while (count == buffer.length);
+		Assert.assertEquals(run + "\n" + run, chunks.toString());
+		Assert.assertEquals("b", source.name());
+		source.skipValue(); // skip strings piecewise
+		Assert.assertEquals("c", source.name());
+		Assert.assertEquals(1000, source.stringChunk(buffer, 0, buffer.length));
+		Assert.assertEquals(run, source.value().text); // rest of partially read run
+		Assert.assertEquals("d", source.name());
+		Assert.assertEquals(1L, source.value().longValue());
+		source.endObject();
+		source.close();
+	}
+
+	@Test
+	public void testStringChunkBufferSize() throws IOException {
+		char[] run = new char[4 * 1024 * 1024];
+		Arrays.fill(run, 'a');
+		String text = new String(run);
+		Yylex scanner = new Yylex(new StringReader("{\"a\":[\"" + text + "\"],\"b\":\"" + text + "\"}"));
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(scanner, true);
+		source.startObject();
+		Assert.assertEquals("a", source.name());
+		source.skipValue();
+		Assert.assertEquals("b", source.name());
+		char[] buffer = new char[Yylex.TEXT_CHUNK_SIZE];
+		long length = 0;
+		int count;
+		do {
+			count = source.stringChunk(buffer, 0, buffer.length);
+			length += count;
+		} while (count == buffer.length);
+		Assert.assertEquals(text.length(), length);
+		source.endObject();
+		source.close();
+		Assert.assertTrue(scanner.getBufferSize() <= 2 * Yylex.TEXT_CHUNK_SIZE);
+	}
+
 	@Test
 	public void testInvalid_PrematureEOF() throws IOException {
 		readInvalid("[\"edgar\",\"david\"", IOException.class, "Premature EOF");
 	}
+
+	private String nested(int depth) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			builder.append("{\"a\":[");
+		}
+		builder.append("true");
+		for (int i = 0; i < depth; i++) {
+			builder.append("]}");
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void testDeepNesting() throws IOException {
+		String input = nested(500);
+		StringWriter output = new StringWriter();
+		StreamSourceDelegate source = new StreamSourceDelegate(new JsonStreamFactoryImpl().createJsonStreamSource(new StringReader(input)));
+		source.copy(new JsonStreamTargetImpl(output, true));
+		source.close();
+		Assert.assertEquals(input, output.toString());
+	}
+
+	@Test
+	public void testMaxDepth() throws IOException {
+		JsonStreamFactoryImpl factory = new JsonStreamFactoryImpl();
+		JsonStreamSettings settings = new JsonStreamSettings().withMaxDepth(10);
+		StreamSourceDelegate source = new StreamSourceDelegate(factory.createJsonStreamSource(new StringReader(nested(10)), settings));
+		source.copy(new JsonStreamTargetImpl(new StringWriter(), true));
+		source.close();
+
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Maximum depth exceeded: 10");
+		source = new StreamSourceDelegate(factory.createJsonStreamSource(new ByteArrayInputStream(nested(11).getBytes("UTF-8")), settings));
+		source.copy(new JsonStreamTargetImpl(new StringWriter(), true));
+	}
 }
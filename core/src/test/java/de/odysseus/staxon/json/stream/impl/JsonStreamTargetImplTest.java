@@ -17,12 +17,47 @@ package de.odysseus.staxon.json.stream.impl;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.math.BigDecimal;
 
 import junit.framework.Assert;
 
 import org.junit.Test;
 
 public class JsonStreamTargetImplTest {
+	@Test
+	public void testNumberValues() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true);
+		target.startArray();
+		target.value(0L);
+		target.value(-42L);
+		target.value(Long.MIN_VALUE);
+		target.value(Integer.valueOf(123));
+		target.value(0.1);
+		target.value(Double.valueOf(-1e-7));
+		target.value(true);
+		target.value(false);
+		target.endArray();
+		target.close();
+		Assert.assertEquals("[0,-42,-9223372036854775808,123,0.1,-1.0E-7,true,false]", writer.toString());
+	}
+
+	@Test
+	public void testDecimalValues() throws IOException {
+		String[] values = {
+			"0", "0.00", "12.5", "-12.50", "0.001", "-0.000001", "0.0000001", "123456789012345678.9",
+			"1E+5", "1.5e3", "-12345678901234567890.123"
+		};
+		for (String value : values) {
+			BigDecimal decimal = new BigDecimal(value);
+			StringWriter writer = new StringWriter();
+			JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true);
+			target.value(decimal);
+			target.close();
+			Assert.assertEquals(decimal.toString(), writer.toString());
+		}
+	}
+
 	@Test
 	public void testStringValue() throws IOException {
 		StringWriter writer = new StringWriter();
@@ -64,6 +99,52 @@ public class JsonStreamTargetImplTest {
 		Assert.assertEquals("[\"bob\"]", writer.toString());
 	}
 
+	@Test
+	public void testRawValue() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true);
+		
+		target.startObject();
+		target.name("alice");
+		target.rawValue("{\"bob\":[1,true]}");
+		target.name("edgar");
+		target.rawValue("\"caf\u00e9\"".getBytes("UTF-8"));
+		target.name("david");
+		target.startArray();
+		target.rawValue("2.5");
+		target.value("x");
+		target.endArray();
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"alice\":{\"bob\":[1,true]},\"edgar\":\"caf\u00e9\",\"david\":[2.5,\"x\"]}", writer.toString());
+	}
+
+	@Test
+	public void testStreamedString() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true);
+		
+		target.startObject();
+		target.name("alice");
+		target.startString();
+		target.appendString("b\"o".toCharArray(), 0, 3);
+		target.appendString("xb\n".toCharArray(), 1, 2);
+		target.endString();
+		target.name("edgar");
+		target.startArray();
+		target.startString();
+		target.endString();
+		target.value("x");
+		target.endArray();
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"alice\":\"b\\\"ob\\n\",\"edgar\":[\"\",\"x\"]}", writer.toString());
+	}
+
 	@Test
 	public void testArray1() throws IOException {
 		StringWriter writer = new StringWriter();
@@ -145,6 +226,23 @@ public class JsonStreamTargetImplTest {
 		Assert.assertEquals("[\"\",\"abc\",\"\\b\\f\\n\\r\\t\",\"\\\"\",\"\\\\\",\"\\u001F\"]", writer.toString());
 	}
 
+	@Test
+	public void testEscapeRuns() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true);
+		
+		target.startObject();
+		target.name("a\"b");
+		target.value("ab\u0001c\u00e4\\d\n");
+		target.name("\t");
+		target.value("\u20ac\u0000");
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"a\\\"b\":\"ab\\u0001c\u00e4\\\\d\\n\",\"\\t\":\"\u20ac\\u0000\"}", writer.toString());
+	}
+
 	@Test
 	public void testSimpleValue() throws IOException {
 		StringWriter writer = new StringWriter();
@@ -160,4 +258,67 @@ public class JsonStreamTargetImplTest {
 		
 		Assert.assertEquals("[\"abc\",1234,true]", writer.toString());
 	}
+
+	@Test
+	public void testDeepNesting() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true, null, "\t", "\n");
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			target.startObject();
+			target.name("a");
+			expected.append("{\n");
+			for (int j = 0; j <= i; j++) {
+				expected.append('\t');
+			}
+			expected.append("\"a\":");
+		}
+		target.value(true);
+		expected.append("true");
+		for (int i = 99; i >= 0; i--) {
+			target.endObject();
+			expected.append('\n');
+			for (int j = 0; j < i; j++) {
+				expected.append('\t');
+			}
+			expected.append('}');
+		}
+		target.close();
+		Assert.assertEquals(expected.toString(), writer.toString());
+	}
+
+	@Test
+	public void testMaxDepth() throws IOException {
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(new StringWriter(), true);
+		target.setMaxDepth(2);
+		target.startObject();
+		target.name("a");
+		target.startObject();
+		target.name("b");
+		try {
+			target.startObject();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("Maximum depth exceeded: 2", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReset() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, false);
+		target.startObject();
+		target.name("alice");
+		target.startArray();
+		target.value("bob");
+
+		writer = new StringWriter();
+		target.reset(writer, false);
+		target.startObject();
+		target.name("alice");
+		target.value("bob");
+		target.endObject();
+		target.close();
+		Assert.assertEquals("{\"alice\":\"bob\"}", writer.toString());
+	}
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
+import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
+public class MappedFileInputStreamTest {
+	private File file;
+
+	private void write(String content) throws IOException {
+		OutputStream output = new FileOutputStream(file);
+		try {
+			output.write(content.getBytes("UTF-8"));
+		} finally {
+			output.close();
+		}
+	}
+
+	@Before
+	public void createFile() throws IOException {
+		file = File.createTempFile("staxon", ".json");
+	}
+
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	@Test
+	public void testWindows() throws IOException {
+		write("0123456789abcdef");
+		FileInputStream input = new FileInputStream(file);
+		try {
+			input.getChannel().position(1);
+			InputStream stream = new MappedFileInputStream(input.getChannel(), 4);
+			Assert.assertEquals(15, stream.available());
+			Assert.assertEquals('1', stream.read());
+			byte[] buffer = new byte[8];
+			Assert.assertEquals(3, stream.read(buffer, 0, 8)); // rest of first window
+			Assert.assertEquals("234", new String(buffer, 0, 3, "UTF-8"));
+			Assert.assertEquals(2, stream.skip(2));
+			Assert.assertEquals(4, stream.read(buffer, 0, 8));
+			Assert.assertEquals("789a", new String(buffer, 0, 4, "UTF-8"));
+			Assert.assertEquals(3, stream.skip(3));
+			Assert.assertEquals('e', stream.read());
+			Assert.assertEquals(1, stream.skip(10));
+			Assert.assertEquals(-1, stream.read());
+			Assert.assertEquals(-1, stream.read(buffer, 0, 8));
+			stream.close();
+			Assert.assertTrue(input.getChannel().isOpen());
+		} finally {
+			input.close();
+		}
+	}
+
+	@Test
+	public void testUnmap() throws IOException {
+		Assert.assertTrue(MappedFileInputStream.isUnmapSupported());
+		write("0123456789abcdef");
+		FileInputStream input = new FileInputStream(file);
+		try {
+			InputStream stream = new MappedFileInputStream(input.getChannel(), 4);
+			byte[] buffer = new byte[4];
+			Assert.assertEquals(4, stream.read(buffer, 0, 4));
+			Assert.assertEquals(4, stream.read(buffer, 0, 4)); // first window unmapped
+			Assert.assertEquals("4567", new String(buffer, 0, 4, "UTF-8"));
+			Assert.assertEquals(5, stream.skip(5)); // second window unmapped
+			Assert.assertEquals('d', stream.read());
+			stream.close(); // third window unmapped
+			Assert.assertEquals(-1, stream.read());
+			Assert.assertEquals(0, stream.available());
+		} finally {
+			input.close();
+		}
+		Assert.assertTrue(file.delete());
+	}
+
+	@Test
+	public void testSource() throws IOException {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < 10000; i++) {
+			builder.append(i == 0 ? "" : ",").append("{\"b\u00f6b\":\"\u20ac").append(i).append("\"}");
+		}
+		String input = builder.append("]").toString();
+		write(input);
+		JsonStreamSource source = new JsonStreamFactoryImpl().createJsonStreamSource(file, new JsonStreamSettings());
+		StringWriter result = new StringWriter();
+		new StreamSourceDelegate(source).copy(new JsonStreamTargetImpl(result, false));
+		source.close();
+		Assert.assertEquals(input, result.toString());
+	}
+}
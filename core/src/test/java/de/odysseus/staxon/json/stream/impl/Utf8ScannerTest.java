@@ -0,0 +1,224 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import de.odysseus.staxon.json.stream.SymbolTable;
+import de.odysseus.staxon.json.stream.impl.JsonStreamSourceImpl.Scanner.Symbol;
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
+public class Utf8ScannerTest {
+	@Rule
+	public final ExpectedException expectedException = ExpectedException.none();
+
+	private static Utf8Scanner scanner(String input, int bufferSize) throws IOException {
+		return new Utf8Scanner(new ByteArrayInputStream(input.getBytes("UTF-8")), bufferSize, null);
+	}
+
+	private static String copy(JsonStreamSourceImpl.Scanner scanner) throws IOException {
+		StringWriter result = new StringWriter();
+		StreamSourceDelegate source = new StreamSourceDelegate(new JsonStreamSourceImpl(scanner, true));
+		source.copy(new JsonStreamTargetImpl(result, true));
+		source.close();
+		return result.toString();
+	}
+
+	@Test
+	public void testSymbols() throws IOException {
+		Utf8Scanner scanner = scanner("{\"a\" : [ true, false, null, -1.5e3 ]}", 8);
+		Assert.assertEquals(Symbol.START_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals("a", scanner.getText());
+		Assert.assertEquals(Symbol.COLON, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.START_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.TRUE, scanner.nextSymbol());
+		Assert.assertEquals("true", scanner.getText());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertNull(scanner.getText());
+		Assert.assertEquals(Symbol.FALSE, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.NULL, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.NUMBER, scanner.nextSymbol());
+		Assert.assertEquals("-1.5e3", scanner.getText());
+		Assert.assertEquals(Symbol.END_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.END_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
+	@Test
+	public void testString() throws IOException {
+		String input = "[\"\",\"abc\",\"\\b\\f\\n\\r\\t\\/\",\"\\\"\",\"\\\\\",\"\\u001F\\u00e4\",\"\u00e4\u20ac\ud834\udd1e\"]";
+		Assert.assertEquals(copy(new Yylex(new StringReader(input))), copy(scanner(input, 8)));
+		Assert.assertEquals(copy(new Yylex(new StringReader(input))), copy(scanner(input, 1024)));
+	}
+
+	@Test
+	public void testLongString() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			builder.append("abc\u00e4\\n");
+		}
+		String input = "\"" + builder + "\"";
+		Utf8Scanner scanner = scanner(input, 16);
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals(builder.toString().replace("\\n", "\n"), scanner.getText());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
+	@Test
+	public void testReadText() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append("abc\u00e4\\n");
+		}
+		String text = builder.toString().replace("\\n", "\n");
+		String input = "[\"" + builder + "\",\"" + builder + "\",\"" + builder + "\"]";
+		Utf8Scanner scanner = scanner(input, 64);
+		Assert.assertEquals(Symbol.START_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		StringBuilder chunks = new StringBuilder();
+		char[] buffer = new char[1000];
+		int count;
+		do {
+			count = scanner.readText(buffer, 0, buffer.length);
+			chunks.append(buffer, 0, count);
+		} while (count == buffer.length);
+		Assert.assertEquals(text, chunks.toString());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals(text, scanner.getText());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol()); // skip pending string
+		Assert.assertEquals(Symbol.END_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
+	@Test
+	public void testSymbolTable() throws IOException {
+		SymbolTable symbols = new SymbolTable(SymbolTable.DEFAULT_CAPACITY, true);
+		String input = "[{\"alice\":\"bob\"},{\"alice\":\"bob\"}]";
+		JsonStreamSourceImpl source1 = new JsonStreamSourceImpl(new Utf8Scanner(new ByteArrayInputStream(input.getBytes("UTF-8")), 8, symbols), true);
+		source1.startArray();
+		source1.startObject();
+		String name = source1.name();
+		Assert.assertEquals("alice", name);
+		Assert.assertEquals("bob", source1.value().text);
+		source1.endObject();
+		source1.startObject();
+		Assert.assertSame(name, source1.name());
+		source1.close();
+		Assert.assertEquals(1, symbols.getSize());
+		Assert.assertEquals(1, symbols.getHitCount());
+		Assert.assertEquals(1, symbols.getMissCount());
+	}
+
+	@Test
+	public void testByteOrderMark() throws IOException {
+		Utf8Scanner scanner = scanner("\ufeff{}", 8);
+		Assert.assertEquals(Symbol.START_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.END_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
+	@Test
+	public void testLocation() throws IOException {
+		String input = "{\n\t\"alice\" : {\n\t\t\"b\u00f6b\" : [ \"charlie\" ],\r\n\t\t\"edgar\" : 123\n\t}\r}";
+		Yylex yylex = new Yylex(new StringReader(input));
+		Utf8Scanner scanner = scanner(input, 8);
+		Symbol symbol;
+		do {
+			symbol = yylex.nextSymbol();
+			Assert.assertEquals(symbol, scanner.nextSymbol());
+			Assert.assertEquals(yylex.getLineNumber(), scanner.getLineNumber());
+			Assert.assertEquals(yylex.getColumnNumber(), scanner.getColumnNumber());
+			Assert.assertEquals(yylex.getCharOffset(), scanner.getCharOffset());
+		} while (symbol != Symbol.EOF);
+		scanner.close();
+	}
+
+	@Test
+	public void testSkip() throws IOException {
+		String input = "{\"a\":{\"b\":[\"x]}\\\"{\u00e4\ud834\udd1e\",[[1]],\r\n{\"c\":1}]\n},\"d\":[1,2]}";
+		Yylex yylex = new Yylex(new StringReader(input));
+		Utf8Scanner scanner = scanner(input, 8);
+		Assert.assertEquals(Symbol.START_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.COLON, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.START_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.END_OBJECT, scanner.skip());
+		for (int i = 0; i < 4; i++) {
+			yylex.nextSymbol();
+		}
+		Assert.assertEquals(Symbol.END_OBJECT, yylex.skip());
+		Assert.assertEquals(yylex.getLineNumber(), scanner.getLineNumber());
+		Assert.assertEquals(yylex.getColumnNumber(), scanner.getColumnNumber());
+		Assert.assertEquals(yylex.getCharOffset(), scanner.getCharOffset());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals("d", scanner.getText());
+		Assert.assertEquals(Symbol.COLON, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.START_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.END_ARRAY, scanner.skip());
+		Assert.assertEquals(Symbol.END_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
+	@Test
+	public void testSkipUnterminatedString() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Unterminated string");
+		Utf8Scanner scanner = scanner("[\"abc]", 8);
+		scanner.nextSymbol();
+		scanner.skip();
+	}
+
+	@Test
+	public void testIllegalCharacter() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Illegal character: <x>");
+		copy(scanner("[1,x]", 8));
+	}
+
+	@Test
+	public void testIllegalEscape() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Illegal character: <\\>");
+		copy(scanner("[\"\\u12x4\"]", 8));
+	}
+
+	@Test
+	public void testUnterminatedString() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Unterminated string");
+		copy(scanner("[\"abc", 8));
+	}
+}
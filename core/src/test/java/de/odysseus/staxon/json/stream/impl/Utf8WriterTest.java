@@ -0,0 +1,114 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class Utf8WriterTest {
+	@Test
+	public void testEncoding() throws IOException {
+		String text = "abc\u00e4\u20ac\ud834\udd1e\u07ff\u0800\uffff";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Utf8Writer writer = new Utf8Writer(output, new ByteBufferPool(8, 1, false));
+		for (int i = 0; i < 100; i++) {
+			writer.write(text);
+			writer.write('x');
+			writer.write(text.toCharArray(), 1, text.length() - 1);
+		}
+		writer.close();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			expected.append(text).append('x').append(text.substring(1));
+		}
+		Assert.assertEquals(expected.toString(), new String(output.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testChannel() throws IOException {
+		String text = "abc\u00e4\u20ac\ud834\udd1e\u07ff\u0800\uffff";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Utf8Writer writer = new Utf8Writer(Channels.newChannel(output), new ByteBufferPool(16, 1, false), new ByteBufferPool(8, 1));
+		for (int i = 0; i < 100; i++) {
+			writer.write(text);
+			writer.write('x');
+			writer.write(text.toCharArray(), 1, text.length() - 1);
+		}
+		writer.flush();
+		writer.writeRaw("\"0123456789abcdef\":".getBytes("UTF-8")); // exceeds buffer
+		writer.write("\ud834");
+		writer.close();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			expected.append(text).append('x').append(text.substring(1));
+		}
+		expected.append("\"0123456789abcdef\":?");
+		Assert.assertEquals(expected.toString(), new String(output.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testAsciiRuns() throws IOException {
+		String text = "0123456789abcdefghijklmnopqrstuvwxyz";
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Utf8Writer writer = new Utf8Writer(output, new ByteBufferPool(8, 1, false));
+		writer.write(text, 3, 30);
+		writer.write("\u00e4");
+		writer.write(text.toCharArray(), 0, 17);
+		writer.write("\ud834");
+		writer.write(text);
+		writer.close();
+		Assert.assertEquals(text.substring(3, 33) + "\u00e4" + text.substring(0, 17) + "?" + text, new String(output.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testUnpairedSurrogates() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Utf8Writer writer = new Utf8Writer(output, new ByteBufferPool(8, 1, false));
+		writer.write('\ud834');
+		writer.write("\udd1ea\udd1eb\ud834c\ud834");
+		writer.close();
+		Assert.assertEquals("\ud834\udd1ea?b?c?", new String(output.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testClosed() throws IOException {
+		final boolean[] closed = new boolean[1];
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		Utf8Writer writer = new Utf8Writer(new FilterOutputStream(output) {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+			}
+		}, new ByteBufferPool(8, 1, false));
+		writer.write("abc");
+		writer.close();
+		writer.close();
+		Assert.assertFalse(closed[0]);
+		Assert.assertEquals("abc", output.toString("UTF-8"));
+		try {
+			writer.write('x');
+			Assert.fail();
+		} catch (IOException e) {
+			// expected
+		}
+	}
+}
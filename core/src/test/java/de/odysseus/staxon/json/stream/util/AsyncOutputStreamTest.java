@@ -0,0 +1,134 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.odysseus.staxon.json.JsonXMLOutputFactory;
+
+public class AsyncOutputStreamTest {
+	static class BlockingOutputStream extends ByteArrayOutputStream {
+		final CountDownLatch latch = new CountDownLatch(1);
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			super.write(b, off, len);
+		}
+	}
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		OutputStream output = new AsyncOutputStream(result, new AsyncOutput(executor, 16, 4));
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		byte[] bytes = new byte[37];
+		for (int i = 0; i < 1000; i++) {
+			for (int j = 0; j < bytes.length; j++) {
+				bytes[j] = (byte) (i + j);
+			}
+			output.write(bytes, 0, i % bytes.length);
+			output.write(i);
+			expected.write(bytes, 0, i % bytes.length);
+			expected.write(i);
+		}
+		output.flush();
+		Assert.assertArrayEquals(expected.toByteArray(), result.toByteArray());
+		output.write(1);
+		output.close();
+		Assert.assertEquals(expected.size() + 1, result.size());
+	}
+
+	@Test
+	public void testTimeout() throws IOException {
+		BlockingOutputStream result = new BlockingOutputStream();
+		OutputStream output = new AsyncOutputStream(result, new AsyncOutput(executor, 4, 1).withTimeout(10));
+		output.write(new byte[4]); // queued, drain blocks
+		try {
+			output.write(new byte[4]);
+			Assert.fail();
+		} catch (IOException e) {
+			// expected: queue is full
+		}
+		result.latch.countDown();
+		output.flush();
+		Assert.assertEquals(4, result.size());
+	}
+
+	@Test
+	public void testFailure() throws IOException {
+		OutputStream output = new AsyncOutputStream(new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("broken");
+			}
+		}, new AsyncOutput(executor, 4, 2));
+		try {
+			output.write(new byte[10]); // may report the failure of the first chunk
+			output.flush();
+			Assert.fail();
+		} catch (IOException e) {
+			Assert.assertEquals("broken", e.getCause().getMessage());
+		}
+	}
+
+	@Test
+	public void testFactory() throws Exception {
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory();
+		factory.setProperty(JsonXMLOutputFactory.PROP_ASYNC_OUTPUT, new AsyncOutput(executor, 8, 2));
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		XMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		for (int i = 0; i < 100; i++) {
+			writer.writeStartElement("bob");
+			writer.writeCharacters("edgar");
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertTrue(result.toString("UTF-8").endsWith("\"bob\":\"edgar\"}}"));
+		Assert.assertEquals(10 + 100 * 14 - 1 + 2, result.size());
+	}
+}
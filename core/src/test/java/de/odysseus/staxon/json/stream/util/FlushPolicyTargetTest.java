@@ -0,0 +1,195 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.staxon.json.JsonXMLOutputFactory;
+import de.odysseus.staxon.json.jaxb.JsonXML;
+import de.odysseus.staxon.json.jaxb.JsonXMLBinder;
+import de.odysseus.staxon.json.jaxb.sample.SampleRootElement;
+import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamSettings;
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+
+public class FlushPolicyTargetTest {
+	@JsonXML
+	static class JsonXMLDefault {}
+
+	static class FlushPolicyBinder extends JsonXMLBinder {
+		final FlushPolicy policy;
+		FlushPolicyBinder(FlushPolicy policy) {
+			super(true);
+			this.policy = policy;
+		}
+		@Override
+		protected JsonXMLOutputFactory createOutputFactory(Class<?> type, JsonXML config) throws JAXBException {
+			JsonXMLOutputFactory factory = super.createOutputFactory(type, config);
+			factory.setProperty(JsonXMLOutputFactory.PROP_FLUSH_POLICY, policy);
+			return factory;
+		}
+	}
+
+	static class FlushCountingWriter extends StringWriter {
+		int flushes;
+		@Override
+		public void flush() {
+			flushes++;
+		}
+	}
+
+	private FlushPolicyTarget createTarget(FlushCountingWriter result, FlushPolicy policy) throws IOException {
+		JsonStreamFactory factory = new JsonStreamFactoryImpl();
+		return new FlushPolicyTarget(factory.createJsonStreamTarget(result, false, new JsonStreamSettings().withAutoFlush(false)), policy);
+	}
+
+	private void writeArray(FlushPolicyTarget target, int elements) throws IOException {
+		target.startArray();
+		for (int i = 0; i < elements; i++) {
+			target.startObject();
+			target.name("alice");
+			target.value("bob");
+			target.endObject();
+		}
+		target.endArray();
+	}
+
+	@Test
+	public void testNever() throws IOException {
+		FlushCountingWriter result = new FlushCountingWriter();
+		FlushPolicyTarget target = createTarget(result, FlushPolicy.NEVER);
+		writeArray(target, 5);
+		Assert.assertEquals(0, result.flushes);
+		target.flush(); // explicit flush is passed through
+		Assert.assertEquals(1, result.flushes);
+		target.close();
+		Assert.assertEquals("[{\"alice\":\"bob\"},{\"alice\":\"bob\"},{\"alice\":\"bob\"},{\"alice\":\"bob\"},{\"alice\":\"bob\"}]", result.toString());
+	}
+
+	@Test
+	public void testElements() throws IOException {
+		FlushCountingWriter result = new FlushCountingWriter();
+		FlushPolicyTarget target = createTarget(result, FlushPolicy.elements(2));
+		writeArray(target, 5);
+		Assert.assertEquals(2, result.flushes);
+
+		result = new FlushCountingWriter();
+		target = createTarget(result, FlushPolicy.elements(1));
+		target.startObject();
+		target.name("alice");
+		target.startArray();
+		target.value(1L);
+		target.value(2L);
+		target.endArray();
+		target.endObject();
+		Assert.assertEquals(1, result.flushes);
+	}
+
+	@Test
+	public void testBytes() throws IOException {
+		FlushCountingWriter result = new FlushCountingWriter();
+		FlushPolicyTarget target = createTarget(result, FlushPolicy.bytes(100));
+		writeArray(target, 50); // about 18 bytes per element
+		Assert.assertTrue(result.flushes >= 8 && result.flushes <= 10);
+	}
+
+	@Test
+	public void testLatency() throws Exception {
+		FlushCountingWriter result = new FlushCountingWriter();
+		FlushPolicyTarget target = createTarget(result, FlushPolicy.latency(1000000));
+		writeArray(target, 5);
+		Assert.assertEquals(0, result.flushes);
+
+		target = createTarget(result, FlushPolicy.latency(1));
+		target.startArray();
+		Thread.sleep(10);
+		target.value("bob");
+		Assert.assertEquals(1, result.flushes);
+	}
+
+	@Test
+	public void testBinderDocumentArray() throws Exception {
+		List<SampleRootElement> elements = new ArrayList<SampleRootElement>();
+		for (int i = 0; i < 100; i++) {
+			SampleRootElement element = new SampleRootElement();
+			element.attribute = "hello";
+			elements.add(element);
+		}
+		JAXBContext context = JAXBContext.newInstance(SampleRootElement.class);
+		JsonXML config = JsonXMLDefault.class.getAnnotation(JsonXML.class);
+
+		FlushCountingWriter result = new FlushCountingWriter();
+		new FlushPolicyBinder(FlushPolicy.NEVER).writeArray(SampleRootElement.class, config, context, result, elements);
+		Assert.assertEquals(1, result.flushes); // on close
+		Assert.assertTrue(result.toString().startsWith("[{\"sampleRootElement\":{\"@attribute\":\"hello\"}},"));
+
+		result = new FlushCountingWriter();
+		new FlushPolicyBinder(FlushPolicy.elements(10)).writeArray(SampleRootElement.class, config, context, result, elements);
+		Assert.assertEquals(11, result.flushes);
+	}
+
+	@Test
+	public void testFactory() throws Exception {
+		JsonStreamFactory streamFactory = new JsonStreamFactoryImpl();
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory(streamFactory);
+		factory.setProperty(JsonXMLOutputFactory.PROP_FLUSH_POLICY, FlushPolicy.NEVER);
+		Assert.assertTrue(((JsonStreamSettings) factory.getProperty(JsonXMLOutputFactory.PROP_STREAM_SETTINGS)).isAutoFlush()); // settings are left alone
+		Assert.assertEquals(FlushPolicy.NEVER, factory.getProperty(JsonXMLOutputFactory.PROP_FLUSH_POLICY));
+		FlushCountingWriter result = new FlushCountingWriter();
+		XMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("bob");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		Assert.assertEquals(0, result.flushes);
+		writer.flush();
+		Assert.assertEquals(1, result.flushes);
+		writer.close();
+		Assert.assertEquals("{\"alice\":\"bob\"}", result.toString());
+
+		result = new FlushCountingWriter();
+		writer = new JsonXMLOutputFactory(streamFactory).createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		Assert.assertEquals(1, result.flushes); // other factories still flush top-level objects
+		writer.close();
+
+		factory.setProperty(JsonXMLOutputFactory.PROP_FLUSH_POLICY, null);
+		result = new FlushCountingWriter();
+		writer = factory.createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("bob");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		Assert.assertEquals(1, result.flushes); // default target flushes top-level object
+		writer.close();
+	}
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLStreamWriter;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.odysseus.staxon.json.JsonXMLOutputFactory;
+import de.odysseus.staxon.json.JsonXMLStreamConstants;
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+
+public class ParallelGzipOutputStreamTest {
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(3);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private static byte[] gunzip(byte[] bytes) throws IOException {
+		InputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes));
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		byte[] buffer = new byte[256];
+		for (int n = input.read(buffer); n >= 0; n = input.read(buffer)) {
+			result.write(buffer, 0, n);
+		}
+		return result.toByteArray();
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		ParallelGzip gzip = new ParallelGzip(executor).withBlockSize(1000).withParallelism(3).withSyncFlush(true);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ParallelGzipOutputStream output = new ParallelGzipOutputStream(result, gzip);
+		for (int i = 0; i < 1000; i++) {
+			byte[] line = ("{\"line\":" + i + ",\"text\":\"lorem ipsum\"}\n").getBytes("UTF-8");
+			if (i % 3 == 0) {
+				for (byte b : line) {
+					output.write(b);
+				}
+			} else {
+				output.write(line);
+			}
+			expected.write(line);
+			if (i == 500) {
+				output.flush();
+				Assert.assertArrayEquals(expected.toByteArray(), gunzipPrefix(result.toByteArray(), expected.size()));
+			}
+		}
+		output.close();
+		Assert.assertArrayEquals(expected.toByteArray(), gunzip(result.toByteArray()));
+		Assert.assertTrue(result.size() < expected.size() / 4);
+	}
+
+	/*
+	 * read as much as has been flushed so far (no trailer yet)
+	 */
+	private static byte[] gunzipPrefix(byte[] bytes, int length) throws IOException {
+		InputStream input = new GZIPInputStream(new ByteArrayInputStream(bytes));
+		byte[] result = new byte[length];
+		int count = 0;
+		while (count < length) {
+			int n = input.read(result, count, length - count);
+			Assert.assertTrue(n > 0);
+			count += n;
+		}
+		return result;
+	}
+
+	@Test
+	public void testFlush() throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ParallelGzipOutputStream output = new ParallelGzipOutputStream(result, new ParallelGzip(executor));
+		output.write("lorem ipsum".getBytes("UTF-8"));
+		output.flush();
+		Assert.assertEquals(0, result.size()); // pending input is not compressed
+		output.close();
+		Assert.assertEquals("lorem ipsum", new String(gunzip(result.toByteArray()), "UTF-8"));
+	}
+
+	@Test
+	public void testAbort() throws IOException {
+		final List<Runnable> tasks = new ArrayList<Runnable>();
+		Executor queue = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				tasks.add(command);
+			}
+		};
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		ParallelGzipOutputStream output = new ParallelGzipOutputStream(result, new ParallelGzip(queue).withBlockSize(100).withParallelism(3));
+		output.write(new byte[250]);
+		Assert.assertEquals(2, tasks.size());
+		tasks.get(0).run(); // done before abort
+		output.abort();
+		tasks.get(1).run(); // cancelled
+		try {
+			output.write(0);
+			Assert.fail();
+		} catch (IOException e) {
+			// expected
+		}
+		output.finish(); // no-op
+		Assert.assertEquals(2, tasks.size());
+		Assert.assertEquals(10, result.size()); // header only
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		new ParallelGzipOutputStream(result, new ParallelGzip(executor)).close();
+		Assert.assertEquals(0, gunzip(result.toByteArray()).length);
+	}
+
+	@Test
+	public void testFactory() throws Exception {
+		ParallelGzip gzip = new ParallelGzip(executor).withBlockSize(64);
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory(new ParallelGzipStreamFactory(new JsonStreamFactoryImpl(), gzip));
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		XMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		for (int i = 0; i < 100; i++) {
+			writer.writeStartElement("bob");
+			writer.writeCharacters("charlie");
+			writer.writeEndElement();
+		}
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		StringBuilder expected = new StringBuilder("{\"alice\":{");
+		for (int i = 0; i < 100; i++) {
+			expected.append(i == 0 ? "" : ",").append("\"bob\":\"charlie\"");
+		}
+		expected.append("}}");
+		Assert.assertEquals(expected.toString(), new String(gunzip(result.toByteArray()), "UTF-8"));
+	}
+
+	@Test
+	public void testFactoryDocumentArray() throws Exception {
+		ParallelGzip gzip = new ParallelGzip(executor).withParallelism(4);
+		JsonXMLOutputFactory factory = new JsonXMLOutputFactory(new ParallelGzipStreamFactory(new JsonStreamFactoryImpl(), gzip));
+		ByteArrayOutputStream result = new ByteArrayOutputStream();
+		XMLStreamWriter writer = factory.createXMLStreamWriter(result);
+		writer.writeProcessingInstruction(JsonXMLStreamConstants.MULTIPLE_PI_TARGET);
+		for (int i = 0; i < 20000; i++) {
+			writer.writeStartDocument();
+			writer.writeStartElement("alice");
+			writer.writeStartElement("bob");
+			writer.writeCharacters("charlie " + i);
+			writer.writeEndElement();
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.flush(); // JAXB flushes after each document
+		}
+		writer.close();
+
+		// compare with sequential compression of the same content
+		byte[] json = gunzip(result.toByteArray());
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		GZIPOutputStream output = new GZIPOutputStream(expected);
+		output.write(json);
+		output.close();
+		Assert.assertTrue(result.size() < expected.size() * 11 / 10);
+	}
+}
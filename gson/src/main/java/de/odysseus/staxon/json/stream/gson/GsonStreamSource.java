@@ -18,6 +18,7 @@ package de.odysseus.staxon.json.stream.gson;
 import java.io.IOException;
 
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
@@ -26,6 +27,9 @@ class GsonStreamSource implements JsonStreamSource {
 	private final JsonReader reader;
 	private JsonStreamToken peek;
 
+	private String chunkText; // string value read in chunks
+	private int chunkOffset;
+
 	GsonStreamSource(JsonReader reader) {
 		this.reader = reader;
 	}
@@ -119,6 +123,50 @@ class GsonStreamSource implements JsonStreamSource {
 		}
 	}
 
+	/**
+	 * GSON has no chunked string access, so the string is read at once and copied in chunks.
+	 */
+	@Override
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException {
+		if (chunkText == null) {
+			if (peek() != JsonStreamToken.VALUE) {
+				throw new IllegalStateException("Expected token: " + JsonStreamToken.VALUE + ", but was: " + peek());
+			}
+			if (reader.peek() != JsonToken.STRING) {
+				return -1;
+			}
+			chunkText = reader.nextString();
+			chunkOffset = 0;
+		}
+		int count = Math.min(length, chunkText.length() - chunkOffset);
+		chunkText.getChars(chunkOffset, chunkOffset + count, buffer, offset);
+		chunkOffset += count;
+		if (count < length) {
+			chunkText = null;
+			consume(JsonStreamToken.VALUE);
+		}
+		return count;
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case NAME:
+			reader.skipValue(); // name
+			peek = null;
+			skipValue();
+			break;
+		case VALUE:
+		case START_OBJECT:
+		case START_ARRAY:
+			reader.skipValue();
+			peek = null;
+			break;
+		default:
+			throw new IllegalStateException("Expected value, but was: " + peek());
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		reader.close();
@@ -16,13 +16,27 @@
 package de.odysseus.staxon.json.stream.gson;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonWriter;
 
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 class GsonStreamTarget implements JsonStreamTarget {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Writes raw value trees as they are: keep <code>null</code> members, no HTML escaping.
+	 */
+	private static final Gson GSON = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
 	private final JsonWriter writer;
+	private StringBuilder string; // streamed string value
 	
 	GsonStreamTarget(JsonWriter writer) {
 		this.writer = writer;
@@ -43,6 +57,11 @@ class GsonStreamTarget implements JsonStreamTarget {
 		writer.name(name);
 	}
 
+	@Override
+	public void name(PreparedName name) throws IOException {
+		writer.name(name.getName());
+	}
+
 	@Override
 	public void startArray() throws IOException {
 		writer.beginArray();
@@ -68,6 +87,57 @@ class GsonStreamTarget implements JsonStreamTarget {
 		}
 	}
 
+	@Override
+	public void value(long value) throws IOException {
+		writer.value(value);
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		writer.value(value);
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		writer.value(value);
+	}
+
+	/**
+	 * Gson's writer cannot splice raw values, so the value is parsed and written as a tree.
+	 */
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		try {
+			GSON.toJson(new JsonParser().parse(json.toString()), writer);
+		} catch (JsonParseException e) {
+			throw new IOException("Cannot write raw value: " + json, e);
+		}
+	}
+
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		rawValue(new String(json, UTF_8));
+	}
+
+	/**
+	 * Gson's writer cannot write strings in chunks, so the string is collected.
+	 */
+	@Override
+	public void startString() throws IOException {
+		string = new StringBuilder();
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		string.append(chars, offset, length);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		writer.value(string.toString());
+		string = null;
+	}
+
 	@Override
 	public void flush() throws IOException {
 		writer.flush();
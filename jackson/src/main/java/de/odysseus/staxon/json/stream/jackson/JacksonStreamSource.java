@@ -31,6 +31,7 @@ class JacksonStreamSource implements JsonStreamSource {
 
 	private JsonStreamToken peek = null;
 	private JsonLocation location = JsonLocation.NA;
+	private int chunkOffset = 0; // offset of next string chunk
 	
 	JacksonStreamSource(JsonParser parser) {
 		this.parser = parser;
@@ -60,8 +61,8 @@ class JacksonStreamSource implements JsonStreamSource {
 			return JsonStreamToken.START_ARRAY;
 		case END_ARRAY:
 			return JsonStreamToken.END_ARRAY;
-		case NOT_AVAILABLE:
-			return JsonStreamToken.NONE;
+		case NOT_AVAILABLE: // non-blocking parser needs more input
+			return JsonStreamToken.NOT_AVAILABLE;
 		default:
 			throw new IllegalStateException("Unexpected GSON token: " + parser.getCurrentToken());
 		}
@@ -100,7 +101,14 @@ class JacksonStreamSource implements JsonStreamSource {
 
 	@Override
 	public JsonStreamToken peek() throws IOException {
-		return peek == null ? peek = read() : peek;
+		if (peek == null) {
+			JsonStreamToken token = read();
+			if (token == JsonStreamToken.NOT_AVAILABLE) {
+				return token; // not cached: ask parser again on next peek
+			}
+			peek = token;
+		}
+		return peek;
 	}
 
 	@Override
@@ -113,6 +121,27 @@ class JacksonStreamSource implements JsonStreamSource {
 		expect(JsonStreamToken.START_OBJECT).consume();
 	}
 
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case NAME:
+			consume();
+			skipValue();
+			break;
+		case VALUE:
+			consume();
+			break;
+		case START_OBJECT:
+		case START_ARRAY:
+			parser.skipChildren();
+			location = parser.getCurrentLocation();
+			consume();
+			break;
+		default:
+			throw new IllegalStateException("Expected value, but was: " + peek());
+		}
+	}
+
 	@Override
  	public Value value() throws IOException {
 		expect(JsonStreamToken.VALUE).consume();
@@ -133,6 +162,25 @@ class JacksonStreamSource implements JsonStreamSource {
 		}
 	}
 
+	/**
+	 * Copy chunks from the parser's text buffer.
+	 */
+	@Override
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException {
+		expect(JsonStreamToken.VALUE);
+		if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+			return -1;
+		}
+		int count = Math.min(length, parser.getTextLength() - chunkOffset);
+		System.arraycopy(parser.getTextCharacters(), parser.getTextOffset() + chunkOffset, buffer, offset, count);
+		chunkOffset += count;
+		if (count < length) {
+			chunkOffset = 0;
+			consume();
+		}
+		return count;
+	}
+
 	@Override
 	public void close() throws IOException {
 		parser.close();
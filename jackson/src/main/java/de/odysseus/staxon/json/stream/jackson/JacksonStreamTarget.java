@@ -18,13 +18,23 @@ package de.odysseus.staxon.json.stream.jackson;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 
+import de.odysseus.staxon.json.stream.JsonEscapes;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 class JacksonStreamTarget implements JsonStreamTarget {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
 	private final JsonGenerator generator;
+	private char highSurrogate; // trailing high surrogate of last string chunk
+	private char[] quoted = new char[64]; // quoted string chunk
 	
 	JacksonStreamTarget(JsonGenerator generator) {
 		this.generator = generator;
@@ -45,6 +55,19 @@ class JacksonStreamTarget implements JsonStreamTarget {
 		generator.writeFieldName(name);
 	}
 
+	/**
+	 * Attach a {@link SerializedString} to the name, which caches its encoded forms.
+	 */
+	@Override
+	public void name(PreparedName name) throws IOException {
+		Object attachment = name.getAttachment();
+		if (!(attachment instanceof SerializableString)) {
+			attachment = new SerializedString(name.getName());
+			name.setAttachment(attachment);
+		}
+		generator.writeFieldName((SerializableString) attachment);
+	}
+
 	@Override
 	public void startArray() throws IOException {
 		generator.writeStartArray();
@@ -84,6 +107,88 @@ class JacksonStreamTarget implements JsonStreamTarget {
 		}
 	}
 
+	@Override
+	public void value(long value) throws IOException {
+		generator.writeNumber(value);
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		generator.writeNumber(value);
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		generator.writeBoolean(value);
+	}
+
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		generator.writeRawValue(json.toString());
+	}
+
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		generator.writeRawValue(new String(json, UTF_8));
+	}
+
+	/**
+	 * Open the string with a raw quote, which lets the generator write separators
+	 * and pretty-print as for any other value.
+	 */
+	@Override
+	public void startString() throws IOException {
+		generator.writeRawValue("\"");
+		highSurrogate = 0;
+	}
+
+	/**
+	 * Quote the chunk into a reused buffer and write it raw. A trailing high
+	 * surrogate is held back until the next chunk, since the generator does not accept
+	 * surrogate pairs split across raw writes.
+	 */
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		if (length == 0) {
+			return;
+		}
+		if (quoted.length <= length) {
+			quoted = new char[Math.max(length + 1, quoted.length * 2)];
+		}
+		int count = 0;
+		if (highSurrogate != 0) {
+			quoted[count++] = highSurrogate;
+			highSurrogate = 0;
+		}
+		int end = offset + length;
+		if (Character.isHighSurrogate(chars[end - 1])) {
+			highSurrogate = chars[--end];
+		}
+		for (int i = offset; i < end; i++) {
+			String escape = JsonEscapes.get(chars[i]);
+			if (escape == null) {
+				quoted[count++] = chars[i];
+			} else {
+				int remaining = end - i - 1 + escape.length(); // worst case, one char per remaining char
+				if (quoted.length - count < remaining) {
+					quoted = Arrays.copyOf(quoted, Math.max(count + remaining, quoted.length * 2));
+				}
+				escape.getChars(0, escape.length(), quoted, count);
+				count += escape.length();
+			}
+		}
+		generator.writeRaw(quoted, 0, count);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		if (highSurrogate != 0) { // unpaired
+			generator.writeRaw(quoted, 0, JsonEscapes.unicodeEscape(highSurrogate, quoted, 0));
+			highSurrogate = 0;
+		}
+		generator.writeRaw('"');
+	}
+
 	@Override
 	public void flush() throws IOException {
 		generator.flush();
@@ -259,31 +259,37 @@ public class JacksonStreamSourceTest {
 		value = source.value();
 		Assert.assertEquals("123", value.text);
 		Assert.assertEquals(new Long("123"), value.data);
+		Assert.assertEquals(123L, value.longValue());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12e3", value.text);
 		Assert.assertEquals(new BigDecimal("12e3"), value.data);
+		Assert.assertEquals(new BigDecimal("12e3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12E3", value.text);
 		Assert.assertEquals(new BigDecimal("12E3"), value.data);
+		Assert.assertEquals(new BigDecimal("12E3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12.3", value.text);
 		Assert.assertEquals(new BigDecimal("12.3"), value.data);
+		Assert.assertEquals(new BigDecimal("12.3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2e3", value.text);
 		Assert.assertEquals(new BigDecimal("1.2e3"), value.data);
+		Assert.assertEquals(new BigDecimal("1.2e3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2E3", value.text);
 		Assert.assertEquals(new BigDecimal("1.2E3"), value.data);
+		Assert.assertEquals(new BigDecimal("1.2E3"), value.getNumber());
 
 		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
 		source.endArray();
@@ -324,4 +330,40 @@ public class JacksonStreamSourceTest {
 		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
 		source.close();
 	}
+
+	@Test
+	public void testSkipValue() throws IOException {
+		StringReader reader = new StringReader("{\"alice\":{\"bob\":[\"x]}\",{\"c\":1}],\"d\":\"e\"},\"edgar\":[1,2],\"f\":3}");
+		JacksonStreamSource source = new JacksonStreamSource(new JsonFactory().createParser(reader));
+		source.startObject();
+		source.skipValue();
+		Assert.assertEquals("edgar", source.name());
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.NAME, source.peek());
+		Assert.assertEquals("f", source.name());
+		source.skipValue();
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testStringChunk() throws IOException {
+		StringReader reader = new StringReader("[\"abcdefg\",\"\",1]");
+		JacksonStreamSource source = new JacksonStreamSource(new JsonFactory().createParser(reader));
+		source.startArray();
+		char[] buffer = new char[3];
+		Assert.assertEquals(3, source.stringChunk(buffer, 0, 3));
+		Assert.assertEquals("abc", new String(buffer));
+		Assert.assertEquals(3, source.stringChunk(buffer, 0, 3));
+		Assert.assertEquals("def", new String(buffer));
+		Assert.assertEquals(1, source.stringChunk(buffer, 0, 3));
+		Assert.assertEquals('g', buffer[0]);
+		Assert.assertEquals(0, source.stringChunk(buffer, 0, 3)); // empty string
+		Assert.assertEquals(-1, source.stringChunk(buffer, 0, 3)); // number
+		Assert.assertEquals(1L, source.value().longValue());
+		source.endArray();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
 }
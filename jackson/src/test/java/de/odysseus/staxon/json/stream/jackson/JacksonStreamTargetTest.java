@@ -15,6 +15,7 @@
  */
 package de.odysseus.staxon.json.stream.jackson;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 
@@ -22,9 +23,36 @@ import junit.framework.Assert;
 
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.SerializableString;
+
+import de.odysseus.staxon.json.stream.PreparedName;
 
 public class JacksonStreamTargetTest {
+	@Test
+	public void testPreparedName() throws IOException {
+		StringWriter writer = new StringWriter();
+		JacksonStreamTarget target = new JacksonStreamTarget(new JsonFactory().createGenerator(writer));
+		PreparedName name = new PreparedName("al\"ice");
+
+		target.startArray();
+		target.startObject();
+		target.name(name);
+		target.value("bob");
+		target.endObject();
+		Assert.assertTrue(name.getAttachment() instanceof SerializableString);
+		target.startObject();
+		target.name(name);
+		target.value("bob");
+		target.endObject();
+		target.endArray();
+
+		target.close();
+
+		Assert.assertEquals("[{\"al\\\"ice\":\"bob\"},{\"al\\\"ice\":\"bob\"}]", writer.toString());
+	}
+
 	@Test
 	public void testObjectValue() throws IOException {
 		StringWriter writer = new StringWriter();
@@ -54,6 +82,93 @@ public class JacksonStreamTargetTest {
 		Assert.assertEquals("[\"bob\"]", writer.toString());
 	}
 
+	@Test
+	public void testRawValue() throws IOException {
+		StringWriter writer = new StringWriter();
+		JacksonStreamTarget target = new JacksonStreamTarget(new JsonFactory().createGenerator(writer));
+		
+		target.startObject();
+		target.name("alice");
+		target.rawValue("{\"bob\":[1,true]}");
+		target.name("edgar");
+		target.rawValue("\"caf\u00e9\"".getBytes("UTF-8"));
+		target.name("david");
+		target.startArray();
+		target.rawValue("2.5");
+		target.value("x");
+		target.endArray();
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"alice\":{\"bob\":[1,true]},\"edgar\":\"caf\u00e9\",\"david\":[2.5,\"x\"]}", writer.toString());
+	}
+
+	@Test
+	public void testStreamedString() throws IOException {
+		StringWriter writer = new StringWriter();
+		JacksonStreamTarget target = new JacksonStreamTarget(new JsonFactory().createGenerator(writer));
+		
+		target.startObject();
+		target.name("alice");
+		target.startString();
+		target.appendString("b\"o".toCharArray(), 0, 3);
+		target.appendString("xb\n".toCharArray(), 1, 2);
+		target.endString();
+		target.name("edgar");
+		target.startArray();
+		target.startString();
+		target.endString();
+		target.value("x");
+		target.endArray();
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"alice\":\"b\\\"ob\\n\",\"edgar\":[\"\",\"x\"]}", writer.toString());
+	}
+
+	@Test
+	public void testStreamedStringEscapes() throws IOException {
+		StringWriter writer = new StringWriter();
+		JacksonStreamTarget target = new JacksonStreamTarget(new JsonFactory().createGenerator(writer));
+		StringBuilder text = new StringBuilder();
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			text.append("a\"\u0001");
+			expected.append("a\\\"\\u0001");
+		}
+
+		target.startString();
+		target.appendString("ab".toCharArray(), 0, 2);
+		target.appendString(text.toString().toCharArray(), 0, text.length());
+		target.appendString("ab".toCharArray(), 0, 2);
+		target.endString();
+
+		target.close();
+
+		Assert.assertEquals("\"ab" + expected + "ab\"", writer.toString());
+	}
+
+	@Test
+	public void testStreamedStringSurrogates() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		JacksonStreamTarget target = new JacksonStreamTarget(new JsonFactory().createGenerator(output, JsonEncoding.UTF8));
+		
+		char[] chars = "a\ud834\udd1eb\ud834".toCharArray();
+		target.startArray();
+		target.startString();
+		target.appendString(chars, 0, 2);
+		target.appendString(chars, 2, 2);
+		target.appendString(chars, 4, 1);
+		target.endString();
+		target.endArray();
+		
+		target.close();
+		
+		Assert.assertEquals("[\"a\ud834\udd1eb\\uD834\"]", output.toString("UTF-8"));
+	}
+
 	@Test
 	public void testArray1() throws IOException {
 		StringWriter writer = new StringWriter();
@@ -25,8 +25,10 @@ import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyReader;
@@ -37,8 +39,23 @@ import javax.xml.bind.JAXBException;
 
 import de.odysseus.staxon.json.jaxb.JsonXML;
 import de.odysseus.staxon.json.jaxb.JsonXMLBinder;
+import de.odysseus.staxon.json.stream.util.ParallelGzip;
+import de.odysseus.staxon.json.stream.util.ParallelGzipOutputStream;
 
 abstract class AbstractJsonXMLProvider extends JsonXMLBinder implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+	/**
+	 * Gzip stream which can release its deflater without closing the entity stream.
+	 */
+	private static final class GzipStream extends GZIPOutputStream {
+		GzipStream(OutputStream output) throws IOException {
+			super(output);
+		}
+
+		void end() {
+			def.end();
+		}
+	}
+
 	protected static <A extends Annotation> A getAnnotation(Annotation[] annotations, Class<A> annotationType) {
 		for (Annotation annotation : annotations) {
 			if (annotation.annotationType() == annotationType) {
@@ -72,6 +89,17 @@ abstract class AbstractJsonXMLProvider extends JsonXMLBinder implements MessageB
 		return parameters.containsKey("charset") ? parameters.get("charset") : "UTF-8";
 	}
 
+	/**
+	 * Answer the configuration used to compress entities written with header
+	 * <code>Content-Encoding: gzip</code> (e.g. set by the resource after negotiating the encoding).
+	 * Subclasses may override this method to enable parallel compression. On Java 6, which
+	 * lacks the required deflater mode, such entities are compressed sequentially.
+	 * @return configuration or <code>null</code> (default) to leave compression to the container
+	 */
+	protected ParallelGzip getParallelGzip() {
+		return null;
+	}
+
 	protected JAXBContext getContext(Class<?> type, MediaType mediaType) throws JAXBException {
 		return store.getContext(type, mediaType);
 	}
@@ -122,6 +150,23 @@ abstract class AbstractJsonXMLProvider extends JsonXMLBinder implements MessageB
 			Writer entityStream,
 			Object entry) throws IOException, WebApplicationException;
 
+	/**
+	 * Write entity as UTF-8. This implementation wraps the stream into an
+	 * {@link OutputStreamWriter} and delegates to the writer variant; subclasses
+	 * override it to let the output factory encode UTF-8 directly.
+	 */
+	public void write(
+			Class<?> type,
+			Type genericType,
+			Annotation[] annotations,
+			MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream,
+			Object entry) throws IOException, WebApplicationException {
+		Writer writer = new OutputStreamWriter(entityStream, "UTF-8");
+		write(type, genericType, annotations, mediaType, httpHeaders, writer, entry);
+	}
+
 	@Override
 	public final void writeTo(
 			Object entry,
@@ -131,7 +176,45 @@ abstract class AbstractJsonXMLProvider extends JsonXMLBinder implements MessageB
 			MediaType mediaType,
 			MultivaluedMap<String, Object> httpHeaders,
 			OutputStream entityStream) throws IOException, WebApplicationException {
-		Writer writer = new OutputStreamWriter(entityStream, getCharset(mediaType));
-		write(type, genericType, annotations, mediaType, httpHeaders, writer, entry);
+		ParallelGzip gzip = getParallelGzip();
+		if (gzip != null && httpHeaders != null
+				&& "gzip".equalsIgnoreCase(String.valueOf(httpHeaders.getFirst(HttpHeaders.CONTENT_ENCODING)))) {
+			if (ParallelGzipOutputStream.isSupported()) {
+				ParallelGzipOutputStream stream = new ParallelGzipOutputStream(entityStream, gzip);
+				try {
+					writeEntity(entry, type, genericType, annotations, mediaType, httpHeaders, stream);
+					stream.finish();
+				} finally {
+					stream.abort(); // release compressors if writing failed
+				}
+			} else {
+				GzipStream stream = new GzipStream(entityStream);
+				try {
+					writeEntity(entry, type, genericType, annotations, mediaType, httpHeaders, stream);
+					stream.finish();
+				} finally {
+					stream.end();
+				}
+			}
+		} else {
+			writeEntity(entry, type, genericType, annotations, mediaType, httpHeaders, entityStream);
+		}
+	}
+
+	private void writeEntity(
+			Object entry,
+			Class<?> type,
+			Type genericType,
+			Annotation[] annotations,
+			MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders,
+			OutputStream entityStream) throws IOException, WebApplicationException {
+		String charset = getCharset(mediaType);
+		if ("UTF-8".equalsIgnoreCase(charset)) {
+			write(type, genericType, annotations, mediaType, httpHeaders, entityStream, entry);
+		} else {
+			Writer writer = new OutputStreamWriter(entityStream, charset);
+			write(type, genericType, annotations, mediaType, httpHeaders, writer, entry);
+		}
 	}
 }
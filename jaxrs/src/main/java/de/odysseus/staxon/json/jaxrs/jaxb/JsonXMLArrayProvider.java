@@ -16,6 +16,7 @@
 package de.odysseus.staxon.json.jaxrs.jaxb;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
@@ -170,20 +171,42 @@ public class JsonXMLArrayProvider extends AbstractJsonXMLProvider {
 			Object entry) throws IOException, WebApplicationException {
 		Class<?> componentType = getComponentType(type, genericType);
 		JsonXML config = getJsonXML(componentType, annotations);
-		Collection<?> collection;
-		if (entry == null) {
-			collection = null;
-		} else if (type.isArray()) {
-			collection = Arrays.asList((Object[]) entry);
-		} else {
-			collection = (Collection<?>) entry;
+		try {
+			writeArray(componentType, config, getContext(componentType, mediaType), stream, toCollection(type, entry));
+		} catch (XMLStreamException e) {
+			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+		} catch (JAXBException e) {
+			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
 		}
+	}
+
+	@Override
+	public void write(
+			Class<?> type,
+			Type genericType,
+			Annotation[] annotations,
+			MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders,
+			OutputStream stream,
+			Object entry) throws IOException, WebApplicationException {
+		Class<?> componentType = getComponentType(type, genericType);
+		JsonXML config = getJsonXML(componentType, annotations);
 		try {
-			writeArray(componentType, config, getContext(componentType, mediaType), stream, collection);
+			writeArray(componentType, config, getContext(componentType, mediaType), stream, toCollection(type, entry));
 		} catch (XMLStreamException e) {
 			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
 		} catch (JAXBException e) {
 			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	private Collection<?> toCollection(Class<?> type, Object entry) {
+		if (entry == null) {
+			return null;
+		} else if (type.isArray()) {
+			return Arrays.asList((Object[]) entry);
+		} else {
+			return (Collection<?>) entry;
+		}
+	}
 }
\ No newline at end of file
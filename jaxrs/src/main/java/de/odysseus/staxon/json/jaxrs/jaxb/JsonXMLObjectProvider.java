@@ -16,6 +16,7 @@
 package de.odysseus.staxon.json.jaxrs.jaxb;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
@@ -84,4 +85,23 @@ public class JsonXMLObjectProvider extends AbstractJsonXMLProvider {
 			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	@Override
+	public void write(
+			Class<?> type,
+			Type genericType,
+			Annotation[] annotations,
+			MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders,
+			OutputStream stream,
+			Object value) throws IOException, WebApplicationException {
+		JsonXML config = getJsonXML(type, annotations);
+		try {
+			writeObject(type, config, getContext(type, mediaType), stream, value);
+		} catch (XMLStreamException e) {
+			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+		} catch (JAXBException e) {
+			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+		}
+	}
 }
@@ -15,11 +15,19 @@
  */
 package de.odysseus.staxon.json.jaxrs.jaxb;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
 
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 
 import junit.framework.Assert;
@@ -29,6 +37,9 @@ import org.junit.Test;
 import de.odysseus.staxon.json.jaxb.JsonXML;
 import de.odysseus.staxon.json.jaxrs.jaxb.model.SampleRootElement;
 import de.odysseus.staxon.json.jaxrs.jaxb.model.SampleType;
+import de.odysseus.staxon.json.stream.util.ParallelGzip;
+
+import com.sun.jersey.core.header.OutBoundHeaders;
 
 public class JsonXMLObjectProviderTest {
 	@JsonXML
@@ -91,6 +102,36 @@ public class JsonXMLObjectProviderTest {
 		Assert.assertEquals(json, writer.toString());
 	}
 
+	@Test
+	public void testWriteGzip() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		final ParallelGzip gzip = new ParallelGzip(executor);
+		JsonXMLObjectProvider provider = new JsonXMLObjectProvider(null) {
+			@Override
+			protected ParallelGzip getParallelGzip() {
+				return gzip;
+			}
+		};
+		SampleRootElement sampleRootElement = new SampleRootElement();
+		sampleRootElement.attribute = "hello";
+		sampleRootElement.elements = Arrays.asList("world");
+
+		OutBoundHeaders headers = new OutBoundHeaders();
+		headers.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		provider.writeTo(sampleRootElement, SampleRootElement.class,
+				null, new Annotation[0], MediaType.APPLICATION_JSON_TYPE, headers, output);
+		executor.shutdown();
+
+		Reader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())), "UTF-8");
+		StringWriter json = new StringWriter();
+		char[] buffer = new char[256];
+		for (int n = reader.read(buffer); n >= 0; n = reader.read(buffer)) {
+			json.write(buffer, 0, n);
+		}
+		Assert.assertEquals("{\"sampleRootElement\":{\"@attribute\":\"hello\",\"elements\":[\"world\"]}}", json.toString());
+	}
+
 	@Test
 	public void testWriteSampleType() throws Exception {
 		JsonXMLObjectProvider provider = new JsonXMLObjectProvider(null);
@@ -63,6 +63,9 @@ public class JsonProcessingStreamSource implements JsonStreamSource {
 	private final JsonParser parser;	
 	private Event peekEvent;
 
+	private String chunkText; // string value read in chunks
+	private int chunkOffset;
+
 	public JsonProcessingStreamSource(JsonParser parser) {
 		this.parser = parser;
 	}
@@ -159,6 +162,31 @@ public class JsonProcessingStreamSource implements JsonStreamSource {
 		}
 	}
 
+	/**
+	 * JSON-P 1.0 has no chunked string access, so the string is copied in chunks.
+	 */
+	@Override
+	public int stringChunk(char[] buffer, int offset, int length) throws IOException {
+		if (chunkText == null) {
+			if (peek() != JsonStreamToken.VALUE) {
+				throw new IOException("Expected token: " + JsonStreamToken.VALUE + ", but was: " + peek());
+			}
+			if (peekEvent != Event.VALUE_STRING) {
+				return -1;
+			}
+			chunkText = parser.getString();
+			chunkOffset = 0;
+		}
+		int count = Math.min(length, chunkText.length() - chunkOffset);
+		chunkText.getChars(chunkOffset, chunkOffset + count, buffer, offset);
+		chunkOffset += count;
+		if (count < length) {
+			chunkText = null;
+			consume(JsonStreamToken.VALUE);
+		}
+		return count;
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		consume(JsonStreamToken.START_OBJECT);
@@ -179,6 +207,48 @@ public class JsonProcessingStreamSource implements JsonStreamSource {
 		consume(JsonStreamToken.END_ARRAY);
 	}
 	
+	/**
+	 * JSON-P 1.0 has no native skip; walk events without accessing names or values.
+	 */
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case NAME:
+			consume(JsonStreamToken.NAME);
+			skipValue();
+			break;
+		case VALUE:
+			consume(JsonStreamToken.VALUE);
+			break;
+		case START_OBJECT:
+		case START_ARRAY:
+			peekEvent = null;
+			int depth = 1;
+			while (depth > 0) {
+				Event event = peekEvent();
+				if (event == null) {
+					throw new IOException("Premature EOF");
+				}
+				switch (event) {
+				case START_OBJECT:
+				case START_ARRAY:
+					depth++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					depth--;
+					break;
+				default:
+					break;
+				}
+				peekEvent = null;
+			}
+			break;
+		default:
+			throw new IOException("Expected value, but was: " + peek());
+		}
+	}
+
 	@Override
 	public JsonStreamToken peek() throws IOException {
 		return toToken(peekEvent());
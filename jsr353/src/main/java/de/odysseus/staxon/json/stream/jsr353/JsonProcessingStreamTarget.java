@@ -16,20 +16,29 @@
 package de.odysseus.staxon.json.stream.jsr353;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.Charset;
 
+import javax.json.Json;
 import javax.json.JsonException;
+import javax.json.JsonValue;
 import javax.json.stream.JsonGenerator;
 
+import de.odysseus.staxon.json.stream.JsonNumber;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.PreparedName;
 
 /**
  * JSON-P (<code>javax.json</code>) <code>JsonStreamTarget</code> implementation.
  */
 public class JsonProcessingStreamTarget implements JsonStreamTarget {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
 	private final JsonGenerator generator;
 	private String name;
+	private StringBuilder string; // streamed string value
 
 	public JsonProcessingStreamTarget(JsonGenerator generator) {
 		this.generator = generator;
@@ -69,6 +78,11 @@ public class JsonProcessingStreamTarget implements JsonStreamTarget {
 		this.name = name;
 	}
 
+	@Override
+	public void name(PreparedName name) throws IOException {
+		name(name.getName());
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
 		try {
@@ -78,7 +92,14 @@ public class JsonProcessingStreamTarget implements JsonStreamTarget {
 				} else if (value instanceof String) {
 					generator.write(name, (String) value);
 				} else if (value instanceof Number) {
-					if (value instanceof BigDecimal) {
+					if (value instanceof JsonNumber) {
+						JsonNumber number = (JsonNumber) value;
+						if (number.isLong()) {
+							generator.write(name, number.longValue());
+						} else {
+							generator.write(name, number.bigDecimalValue());
+						}
+					} else if (value instanceof BigDecimal) {
 						generator.write(name, (BigDecimal) value);
 					} else if (value instanceof BigInteger) {
 						generator.write(name, (BigInteger) value);
@@ -101,7 +122,14 @@ public class JsonProcessingStreamTarget implements JsonStreamTarget {
 				} else if (value instanceof String) {
 					generator.write((String) value);
 				} else if (value instanceof Number) {
-					if (value instanceof BigDecimal) {
+					if (value instanceof JsonNumber) {
+						JsonNumber number = (JsonNumber) value;
+						if (number.isLong()) {
+							generator.write(number.longValue());
+						} else {
+							generator.write(number.bigDecimalValue());
+						}
+					} else if (value instanceof BigDecimal) {
 						generator.write((BigDecimal) value);
 					} else if (value instanceof BigInteger) {
 						generator.write((BigInteger) value);
@@ -127,6 +155,108 @@ public class JsonProcessingStreamTarget implements JsonStreamTarget {
 		}
 	}
 
+	@Override
+	public void value(long value) throws IOException {
+		try {
+			if (name != null) {
+				generator.write(name, value);
+				name = null;
+			} else {
+				generator.write(value);
+			}
+		} catch (JsonException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public void value(double value) throws IOException {
+		try {
+			if (name != null) {
+				generator.write(name, value);
+				name = null;
+			} else {
+				generator.write(value);
+			}
+		} catch (JsonException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public void value(boolean value) throws IOException {
+		try {
+			if (name != null) {
+				generator.write(name, value);
+				name = null;
+			} else {
+				generator.write(value);
+			}
+		} catch (JsonException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * The generator cannot splice raw values, so the value is parsed and written as a tree.
+	 * Wrapping it into an array allows to parse literals and numbers, too.
+	 */
+	@Override
+	public void rawValue(CharSequence json) throws IOException {
+		try {
+			JsonValue value = Json.createReader(new StringReader("[" + json + "]")).readArray().get(0);
+			if (name != null) {
+				generator.write(name, value);
+				name = null;
+			} else {
+				generator.write(value);
+			}
+		} catch (JsonException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			} else {
+				throw e;
+			}
+		}
+	}
+
+	@Override
+	public void rawValue(byte[] json) throws IOException {
+		rawValue(new String(json, UTF_8));
+	}
+
+	/**
+	 * The generator cannot write strings in chunks, so the string is collected.
+	 */
+	@Override
+	public void startString() throws IOException {
+		string = new StringBuilder();
+	}
+
+	@Override
+	public void appendString(char[] chars, int offset, int length) throws IOException {
+		string.append(chars, offset, length);
+	}
+
+	@Override
+	public void endString() throws IOException {
+		String value = string.toString();
+		string = null;
+		value(value);
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		try {
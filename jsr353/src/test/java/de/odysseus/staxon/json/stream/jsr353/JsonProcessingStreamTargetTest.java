@@ -54,6 +54,52 @@ public class JsonProcessingStreamTargetTest {
 		Assert.assertEquals("[\"bob\"]", writer.toString());
 	}
 
+	@Test
+	public void testRawValue() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonProcessingStreamTarget target = new JsonProcessingStreamTarget(Json.createGenerator(writer));
+		
+		target.startObject();
+		target.name("alice");
+		target.rawValue("{\"bob\":[1,true]}");
+		target.name("edgar");
+		target.rawValue("\"caf\u00e9\"".getBytes("UTF-8"));
+		target.name("david");
+		target.startArray();
+		target.rawValue("2.5");
+		target.value("x");
+		target.endArray();
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"alice\":{\"bob\":[1,true]},\"edgar\":\"caf\u00e9\",\"david\":[2.5,\"x\"]}", writer.toString());
+	}
+
+	@Test
+	public void testStreamedString() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonProcessingStreamTarget target = new JsonProcessingStreamTarget(Json.createGenerator(writer));
+		
+		target.startObject();
+		target.name("alice");
+		target.startString();
+		target.appendString("b\"o".toCharArray(), 0, 3);
+		target.appendString("xb\n".toCharArray(), 1, 2);
+		target.endString();
+		target.name("edgar");
+		target.startArray();
+		target.startString();
+		target.endString();
+		target.value("x");
+		target.endArray();
+		target.endObject();
+		
+		target.close();
+		
+		Assert.assertEquals("{\"alice\":\"b\\\"ob\\n\",\"edgar\":[\"\",\"x\"]}", writer.toString());
+	}
+
 	@Test
 	public void testArray1() throws IOException {
 		StringWriter writer = new StringWriter();